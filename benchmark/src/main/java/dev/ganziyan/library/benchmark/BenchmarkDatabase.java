@@ -0,0 +1,162 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.util.DBUtil;
+import dev.ganziyan.library.util.SchemaLoader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * 基准测试数据库
+ * 在嵌入式数据库中按 database/schema.sql 重建表结构，并按指定规模生成图书、用户和借阅记录
+ * 数据由固定随机种子生成，保证每次运行的基线可复现
+ */
+public final class BenchmarkDatabase {
+
+    /**
+     * 读者数量
+     */
+    public static final int USER_COUNT = 1000;
+
+    /**
+     * 每个读者的历史借阅记录数
+     */
+    public static final int RECORDS_PER_USER = 20;
+
+    /**
+     * 读者的统一密码
+     */
+    public static final String PASSWORD = "reader123";
+
+    /**
+     * 搜索关键词，覆盖书名、作者、出版社、分类以及无结果的情况
+     */
+    public static final String[] KEYWORDS = {"Java", "算法", "作者42", "机械工业", "历史", "不存在的书"};
+
+    private static final String[] TITLE_WORDS = {"Java", "算法", "数据库", "设计模式", "操作系统", "网络",
+        "三体", "活着", "红楼梦", "明朝", "人类简史", "编译原理"};
+    private static final String[] PUBLISHERS = {"机械工业出版社", "人民邮电出版社", "清华大学出版社",
+        "电子工业出版社", "作家出版社", "中信出版社", "人民文学出版社", "重庆出版社"};
+    private static final String[] CATEGORIES = {"计算机", "文学", "科幻", "古典文学", "历史", "哲学",
+        "经济", "艺术"};
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * 重建表结构并生成测试数据
+     *
+     * @param catalogSize 图书数量
+     * @throws SQLException SQL异常
+     */
+    public static void reset(int catalogSize) throws SQLException {
+        try (Connection connection = DBUtil.getConnection()) {
+            createSchema(connection);
+            connection.setAutoCommit(false);
+            insertBooks(connection, catalogSize);
+            insertUsers(connection);
+            insertBorrowRecords(connection, catalogSize);
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * 用 database/schema.sql 重建表结构，并清空脚本自带的示例数据，使自增ID从1开始
+     */
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS borrow_records");
+            statement.execute("DROP TABLE IF EXISTS books");
+            statement.execute("DROP TABLE IF EXISTS users");
+        }
+
+        try (Reader reader = new InputStreamReader(
+                BenchmarkDatabase.class.getClassLoader().getResourceAsStream("database/schema.sql"),
+                StandardCharsets.UTF_8)) {
+            SchemaLoader.load(connection, reader);
+        } catch (IOException e) {
+            throw new SQLException("读取建表脚本失败", e);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            statement.execute("TRUNCATE TABLE borrow_records RESTART IDENTITY");
+            statement.execute("TRUNCATE TABLE books RESTART IDENTITY");
+            statement.execute("TRUNCATE TABLE users RESTART IDENTITY");
+            statement.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+
+    private static void insertBooks(Connection connection, int catalogSize) throws SQLException {
+        Random random = new Random(42);
+        String sql = "INSERT INTO books (book_name, author, publisher, isbn, category, "
+            + "total_quantity, available_quantity, publish_date, price, description) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= catalogSize; i++) {
+                String word = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)];
+                preparedStatement.setString(1, word + "（第" + i + "册）");
+                preparedStatement.setString(2, "作者" + random.nextInt(5000));
+                preparedStatement.setString(3, PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+                preparedStatement.setString(4, String.format("978%010d", i));
+                preparedStatement.setString(5, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                preparedStatement.setInt(6, 10);
+                preparedStatement.setInt(7, 10);
+                preparedStatement.setDate(8, new Date(946684800000L + random.nextInt(8000) * 86400000L));
+                preparedStatement.setBigDecimal(9, java.math.BigDecimal.valueOf(2000 + random.nextInt(10000), 2));
+                preparedStatement.setString(10, "这是一本关于" + word + "的图书，用于性能基准测试的示例简介。");
+                preparedStatement.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    preparedStatement.executeBatch();
+                }
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private static void insertUsers(Connection connection) throws SQLException {
+        String sql = "INSERT INTO users (username, password, real_name, user_type, status, max_borrow_count) "
+            + "VALUES (?, ?, ?, '读者', '正常', 1000)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= USER_COUNT; i++) {
+                preparedStatement.setString(1, "reader" + i);
+                preparedStatement.setString(2, PASSWORD);
+                preparedStatement.setString(3, "读者" + i);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private static void insertBorrowRecords(Connection connection, int catalogSize) throws SQLException {
+        Random random = new Random(7);
+        String sql = "INSERT INTO borrow_records (user_id, book_id, due_date, return_date, status) "
+            + "VALUES (?, ?, ?, CURRENT_TIMESTAMP, '已归还')";
+        Date dueDate = new Date(System.currentTimeMillis());
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            int count = 0;
+            for (int userId = 1; userId <= USER_COUNT; userId++) {
+                for (int i = 0; i < RECORDS_PER_USER; i++) {
+                    preparedStatement.setInt(1, userId);
+                    preparedStatement.setInt(2, 1 + random.nextInt(catalogSize));
+                    preparedStatement.setDate(3, dueDate);
+                    preparedStatement.addBatch();
+                    if (++count % BATCH_SIZE == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.service.BorrowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 借还书业务基准：BorrowService.borrowBook 与 BorrowService.returnBook
+ * 每次操作借一本随机图书再归还，库存保持不变，便于长时间运行
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx4g"})
+public class BorrowBenchmark {
+
+    private final BorrowService borrowService = new BorrowService();
+
+    @Benchmark
+    public String borrowAndReturn(CatalogState catalog) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userId = 1 + random.nextInt(BenchmarkDatabase.USER_COUNT);
+        int bookId = 1 + random.nextInt(catalog.catalogSize);
+        String error = borrowService.borrowBook(userId, bookId, 30);
+        if (error != null) {
+            return error;
+        }
+        return borrowService.returnBook(userId, bookId);
+    }
+}
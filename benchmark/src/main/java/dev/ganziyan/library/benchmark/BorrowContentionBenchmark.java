@@ -0,0 +1,92 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.service.BorrowService;
+import dev.ganziyan.library.util.DBUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门图书争用基准：大量线程同时借阅同一本图书
+ * 每轮结束时校验库存：可借数量不能为负，且必须等于总数量减去未归还的借阅记录数，
+ * 校验失败会抛出异常使本次基准运行失败
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx2g"})
+public class BorrowContentionBenchmark {
+
+    private static final int HOT_BOOK_ID = 1;
+    private static final int HOT_BOOK_COPIES = 5;
+
+    private final BorrowService borrowService = new BorrowService();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset(1000);
+        try (Connection connection = DBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                 "UPDATE books SET total_quantity = ?, available_quantity = ? WHERE book_id = ?")) {
+            preparedStatement.setInt(1, HOT_BOOK_COPIES);
+            preparedStatement.setInt(2, HOT_BOOK_COPIES);
+            preparedStatement.setInt(3, HOT_BOOK_ID);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * 随机读者借阅热门图书，借到后有一半概率立即归还，使库存在 0 附近反复争用
+     */
+    @Benchmark
+    public String borrowHotTitle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userId = 1 + random.nextInt(BenchmarkDatabase.USER_COUNT);
+        String error = borrowService.borrowBook(userId, HOT_BOOK_ID, 30);
+        if (error == null && random.nextBoolean()) {
+            return borrowService.returnBook(userId, HOT_BOOK_ID);
+        }
+        return error;
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifyInventory() throws SQLException {
+        String sql = "SELECT b.available_quantity, b.total_quantity, "
+            + "(SELECT COUNT(*) FROM borrow_records br WHERE br.book_id = b.book_id AND br.status = '借阅中') "
+            + "FROM books b WHERE b.book_id = ?";
+        try (Connection connection = DBUtil.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, HOT_BOOK_ID);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                resultSet.next();
+                int available = resultSet.getInt(1);
+                int total = resultSet.getInt(2);
+                int openLoans = resultSet.getInt(3);
+                if (available < 0 || available != total - openLoans) {
+                    throw new IllegalStateException("库存不一致：available=" + available
+                        + ", total=" + total + ", openLoans=" + openLoans);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图书目录查询基准：BookDao.findAll 与 BookDao.searchBooks
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx4g"})
+public class CatalogBenchmark {
+
+    private final BookDao bookDao = new BookDao();
+    private int keywordIndex;
+
+    @Benchmark
+    public List<Book> findAll(CatalogState catalog) {
+        return bookDao.findAll();
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(CatalogState catalog) {
+        String keyword = BenchmarkDatabase.KEYWORDS[keywordIndex++ % BenchmarkDatabase.KEYWORDS.length];
+        return bookDao.searchBooks(keyword);
+    }
+}
@@ -0,0 +1,28 @@
+package dev.ganziyan.library.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.SQLException;
+
+/**
+ * 共享的基准数据状态
+ * 每个参数组合在独立的 JVM 中运行，Trial 开始前按图书规模重建数据
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    /**
+     * 图书目录规模
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.reset(catalogSize);
+    }
+}
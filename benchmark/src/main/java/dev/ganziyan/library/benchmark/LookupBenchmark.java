@@ -0,0 +1,48 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.dao.BorrowRecordDao;
+import dev.ganziyan.library.dao.UserDao;
+import dev.ganziyan.library.entity.BorrowRecord;
+import dev.ganziyan.library.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户查询的基准：BorrowRecordDao.findByUserId 与 UserDao.login
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx4g"})
+public class LookupBenchmark {
+
+    private final BorrowRecordDao borrowRecordDao = new BorrowRecordDao();
+    private final UserDao userDao = new UserDao();
+
+    @Benchmark
+    public List<BorrowRecord> findByUserId(CatalogState catalog) {
+        return borrowRecordDao.findByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public User login(CatalogState catalog) {
+        return userDao.login("reader" + randomUserId(), BenchmarkDatabase.PASSWORD);
+    }
+
+    private static int randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(BenchmarkDatabase.USER_COUNT);
+    }
+}
@@ -0,0 +1,174 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.dao.BookRowMapper;
+import dev.ganziyan.library.dao.BorrowRecordRowMapper;
+import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.entity.BorrowRecord;
+import dev.ganziyan.library.util.DBUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果集映射基准：按列名逐列读取（原 extractXxxFromResultSet 的写法）与 RowMapper 按列序号读取
+ * 结果集预先查询并缓存在内存中，每次调用重新遍历同样的行，只测量映射本身的开销（结果为每行耗时）。
+ * borrowRecords 对应关联查询；plainBorrowRecords 查询中没有关联列，原写法每行都会抛出并捕获一次 SQLException
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx4g"})
+public class RowMapperBenchmark {
+
+    /**
+     * 每个结果集的行数
+     */
+    private static final int ROWS = 1000;
+
+    private static final BookRowMapper BOOK_MAPPER = new BookRowMapper();
+    private static final BorrowRecordRowMapper RECORD_MAPPER = new BorrowRecordRowMapper();
+
+    private Connection connection;
+    private ResultSet books;
+    private ResultSet borrowRecords;
+    private ResultSet plainBorrowRecords;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState catalog) throws SQLException {
+        connection = DBUtil.getConnection();
+        // 每个结果集使用单独的 Statement，关闭连接时一并关闭
+        books = scrollable().executeQuery("SELECT * FROM books ORDER BY book_id LIMIT " + ROWS);
+        borrowRecords = scrollable().executeQuery(
+            "SELECT br.*, u.username, u.real_name, b.book_name, b.author FROM borrow_records br "
+                + "JOIN users u ON br.user_id = u.user_id JOIN books b ON br.book_id = b.book_id "
+                + "ORDER BY br.record_id LIMIT " + ROWS);
+        plainBorrowRecords = scrollable().executeQuery(
+            "SELECT * FROM borrow_records ORDER BY record_id LIMIT " + ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DBUtil.closeConnection(connection);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void booksByName(Blackhole blackhole) throws SQLException {
+        books.beforeFirst();
+        while (books.next()) {
+            blackhole.consume(bookByName(books));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void booksByIndex(Blackhole blackhole) throws SQLException {
+        books.beforeFirst();
+        int[] columns = BOOK_MAPPER.resolve(books);
+        while (books.next()) {
+            blackhole.consume(BOOK_MAPPER.mapRow(books, columns));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void borrowRecordsByName(Blackhole blackhole) throws SQLException {
+        borrowRecords.beforeFirst();
+        while (borrowRecords.next()) {
+            blackhole.consume(recordByName(borrowRecords));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void borrowRecordsByIndex(Blackhole blackhole) throws SQLException {
+        borrowRecords.beforeFirst();
+        int[] columns = RECORD_MAPPER.resolve(borrowRecords);
+        while (borrowRecords.next()) {
+            blackhole.consume(RECORD_MAPPER.mapRow(borrowRecords, columns));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void plainBorrowRecordsByName(Blackhole blackhole) throws SQLException {
+        plainBorrowRecords.beforeFirst();
+        while (plainBorrowRecords.next()) {
+            blackhole.consume(recordByName(plainBorrowRecords));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void plainBorrowRecordsByIndex(Blackhole blackhole) throws SQLException {
+        plainBorrowRecords.beforeFirst();
+        int[] columns = RECORD_MAPPER.resolve(plainBorrowRecords);
+        while (plainBorrowRecords.next()) {
+            blackhole.consume(RECORD_MAPPER.mapRow(plainBorrowRecords, columns));
+        }
+    }
+
+    private Statement scrollable() throws SQLException {
+        return connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    private static Book bookByName(ResultSet resultSet) throws SQLException {
+        Book book = new Book();
+        book.setBookId(resultSet.getInt("book_id"));
+        book.setBookName(resultSet.getString("book_name"));
+        book.setAuthor(resultSet.getString("author"));
+        book.setPublisher(resultSet.getString("publisher"));
+        book.setIsbn(resultSet.getString("isbn"));
+        book.setCategory(resultSet.getString("category"));
+        book.setTotalQuantity(resultSet.getInt("total_quantity"));
+        book.setAvailableQuantity(resultSet.getInt("available_quantity"));
+        book.setPublishDate(resultSet.getDate("publish_date"));
+        book.setPrice(resultSet.getBigDecimal("price"));
+        book.setDescription(resultSet.getString("description"));
+        book.setPinyinKeys(resultSet.getString("pinyin_keys"));
+        book.setCreatedAt(resultSet.getTimestamp("created_at"));
+        book.setUpdatedAt(resultSet.getTimestamp("updated_at"));
+        return book;
+    }
+
+    private static BorrowRecord recordByName(ResultSet resultSet) throws SQLException {
+        BorrowRecord record = new BorrowRecord();
+        record.setRecordId(resultSet.getInt("record_id"));
+        record.setUserId(resultSet.getInt("user_id"));
+        record.setBookId(resultSet.getInt("book_id"));
+        record.setBorrowDate(resultSet.getTimestamp("borrow_date"));
+        record.setDueDate(resultSet.getDate("due_date"));
+        record.setReturnDate(resultSet.getTimestamp("return_date"));
+        record.setStatus(resultSet.getString("status"));
+        record.setRemarks(resultSet.getString("remarks"));
+        record.setCreatedAt(resultSet.getTimestamp("created_at"));
+        try {
+            record.setUsername(resultSet.getString("username"));
+            record.setRealName(resultSet.getString("real_name"));
+            record.setBookName(resultSet.getString("book_name"));
+            record.setAuthor(resultSet.getString("author"));
+        } catch (SQLException e) {
+            // 关联字段不存在
+        }
+        return record;
+    }
+}
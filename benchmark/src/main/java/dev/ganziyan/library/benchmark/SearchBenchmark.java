@@ -0,0 +1,82 @@
+package dev.ganziyan.library.benchmark;
+
+import dev.ganziyan.library.dto.Suggestion;
+import dev.ganziyan.library.service.BookSearchIndex;
+import dev.ganziyan.library.service.BookSuggestIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存检索基准：倒排索引关键词搜索、拼音搜索与自动补全
+ * 与 CatalogBenchmark.searchBooks 使用相同的关键词，便于和 LIKE 全表扫描对比
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.config=benchmark-db.properties", "-Xmx4g"})
+public class SearchBenchmark {
+
+    private static final String[] PREFIXES = {"j", "算", "作者4", "978000", "人类", "不存在"};
+
+    // 全拼、首字母及其片段（对应“算法”“数据库”“操作系统”“设计模式”“作者42”）
+    private static final String[] PINYIN_KEYWORDS = {"suanfa", "sjk", "czxt", "shejimo", "zuozhe42"};
+
+    // 拼写错误和同音字（对应“Java”“算法”“数据库”“设计模式”），以及完全不匹配的关键词
+    private static final String[] FUZZY_KEYWORDS = {"Jvaa", "算发", "数剧库", "涉及模式", "Pythn"};
+
+    private int keywordIndex;
+    private int pinyinIndex;
+    private int fuzzyIndex;
+    private int prefixIndex;
+
+    /**
+     * 数据准备完成后构建索引
+     */
+    @State(Scope.Benchmark)
+    public static class Indexes {
+
+        @Setup(Level.Trial)
+        public void build(CatalogState catalog) {
+            BookSearchIndex.getInstance().build();
+            BookSuggestIndex.getInstance().rebuild();
+        }
+    }
+
+    @Benchmark
+    public int[] indexSearch(Indexes indexes) {
+        String keyword = BenchmarkDatabase.KEYWORDS[keywordIndex++ % BenchmarkDatabase.KEYWORDS.length];
+        return BookSearchIndex.getInstance().search(keyword);
+    }
+
+    @Benchmark
+    public int[] pinyinSearch(Indexes indexes) {
+        String keyword = PINYIN_KEYWORDS[pinyinIndex++ % PINYIN_KEYWORDS.length];
+        return BookSearchIndex.getInstance().search(keyword);
+    }
+
+    @Benchmark
+    public int[] fuzzySearch(Indexes indexes) {
+        String keyword = FUZZY_KEYWORDS[fuzzyIndex++ % FUZZY_KEYWORDS.length];
+        return BookSearchIndex.getInstance().searchFuzzy(keyword, 100, 50);
+    }
+
+    @Benchmark
+    public List<Suggestion> suggest(Indexes indexes) {
+        String prefix = PREFIXES[prefixIndex++ % PREFIXES.length];
+        return BookSuggestIndex.getInstance().suggest(prefix, 10);
+    }
+}
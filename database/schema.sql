@@ -4,10 +4,14 @@
 -- ============================================
 
 -- 创建数据库
+-- 说明：紧跟在 "-- @mysql-only" 标记后的语句只在 MySQL 上执行，
+--       嵌入式模式（db.backend=embedded）加载本脚本时会跳过这些语句
+-- @mysql-only
 CREATE DATABASE IF NOT EXISTS library_system 
     DEFAULT CHARACTER SET utf8mb4 
     COLLATE utf8mb4_unicode_ci;
 
+-- @mysql-only
 USE library_system;
 
 -- ============================================
@@ -26,6 +30,7 @@ CREATE TABLE IF NOT EXISTS books (
     publish_date DATE COMMENT '出版日期',
     price DECIMAL(10, 2) COMMENT '图书价格',
     description TEXT COMMENT '图书简介',
+    pinyin_keys VARCHAR(2000) COMMENT '拼音检索键：书名和作者的全拼及首字母，以空格分隔',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     
@@ -34,9 +39,17 @@ CREATE TABLE IF NOT EXISTS books (
     -- 索引：提高查询效率
     INDEX idx_book_name (book_name),
     INDEX idx_author (author),
-    INDEX idx_category (category)
+    INDEX idx_category (category),
+    -- 索引：其他终端按更新时间增量检查修改过的图书
+    INDEX idx_updated_at (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='图书信息表';
 
+-- 全文索引：search.fulltext.enabled=true 时用于检索书名、作者、出版社、简介和拼音检索键
+-- ngram 分词器按 ngram_token_size（默认2）切分中文，支持按相关度排序
+-- 已有数据库请执行 database/upgrade_fulltext_search.sql
+-- @mysql-only
+CREATE FULLTEXT INDEX ft_books_search ON books (book_name, author, publisher, description, pinyin_keys) WITH PARSER ngram;
+
 -- ============================================
 -- 表2: 用户信息表 (users)
 -- 功能: 存储读者和管理员的账号信息
@@ -52,6 +65,7 @@ CREATE TABLE IF NOT EXISTS users (
     user_type ENUM('管理员', '读者') NOT NULL DEFAULT '读者' COMMENT '用户类型',
     status ENUM('正常', '禁用') NOT NULL DEFAULT '正常' COMMENT '账号状态',
     max_borrow_count INT DEFAULT 5 COMMENT '最大可借数量',
+    open_loans INT NOT NULL DEFAULT 0 COMMENT '未归还的借阅数量，借书和还书时在同一事务中维护',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '注册时间',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     
@@ -116,6 +130,7 @@ INSERT INTO books (book_name, author, publisher, isbn, category, total_quantity,
 -- ============================================
 -- 创建视图：当前借阅情况统计
 -- ============================================
+-- @mysql-only
 CREATE OR REPLACE VIEW v_current_borrows AS
 SELECT 
     br.record_id,
@@ -136,6 +151,7 @@ ORDER BY br.borrow_date DESC;
 -- ============================================
 -- 创建存储过程：更新逾期状态
 -- ============================================
+-- @mysql-only
 DELIMITER $$
 CREATE PROCEDURE update_overdue_status()
 BEGIN
@@ -0,0 +1,15 @@
+-- ============================================
+-- 升级脚本：为用户信息表添加未归还借阅数量
+-- 适用于在启用最大可借数量限制之前用 schema.sql 创建的 MySQL 数据库，升级程序前必须执行
+-- 借书时按该列检查 max_borrow_count，不再统计借阅记录；借书和还书在同一事务中维护该列
+-- ============================================
+
+USE library_system;
+
+ALTER TABLE users ADD COLUMN open_loans INT NOT NULL DEFAULT 0 COMMENT '未归还的借阅数量，借书和还书时在同一事务中维护' AFTER max_borrow_count;
+
+-- 按已有的借阅记录初始化（执行期间应停止借还书操作）
+UPDATE users u SET open_loans = (
+    SELECT COUNT(*) FROM borrow_records br
+    WHERE br.user_id = u.user_id AND (br.status = '借阅中' OR br.status = '已逾期')
+);
@@ -0,0 +1,10 @@
+-- ============================================
+-- 升级脚本：为图书信息表的更新时间添加索引
+-- 适用于在添加缓存一致性检查之前用 schema.sql 创建的 MySQL 数据库
+-- 多个终端共用数据库时，各终端定期按 updated_at 增量查询其他终端修改过的图书（cache.book.coherence.pollSeconds），
+-- 没有该索引时每次检查都要扫描整张图书表
+-- ============================================
+
+USE library_system;
+
+ALTER TABLE books ADD INDEX idx_updated_at (updated_at);
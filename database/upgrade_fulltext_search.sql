@@ -0,0 +1,15 @@
+-- ============================================
+-- 升级脚本：为图书信息表添加全文索引
+-- 适用于在添加全文检索之前用 schema.sql 创建的 MySQL 数据库（需要 MySQL 5.7.6 及以上版本）
+-- 需要先执行 upgrade_pinyin_search.sql 添加 pinyin_keys 列
+-- 执行后在 db.properties 中设置 search.fulltext.enabled=true 启用全文检索
+-- ============================================
+
+USE library_system;
+
+-- 书名、作者、出版社、简介和拼音检索键的全文索引，ngram 分词器支持中文检索
+-- 建索引期间表仍可读写，数据量较大时需要几分钟
+CREATE FULLTEXT INDEX ft_books_search ON books (book_name, author, publisher, description, pinyin_keys) WITH PARSER ngram;
+
+-- 检查索引是否创建成功
+SHOW INDEX FROM books WHERE Key_name = 'ft_books_search';
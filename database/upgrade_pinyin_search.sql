@@ -0,0 +1,14 @@
+-- ============================================
+-- 升级脚本：为图书信息表添加拼音检索键
+-- 适用于在添加拼音检索之前用 schema.sql 创建的 MySQL 数据库，升级程序前必须执行
+-- 已有图书的检索键由程序启动后在后台补全（search.pinyin.backfill=true）
+-- ============================================
+
+USE library_system;
+
+-- 书名和作者的全拼及首字母，如“三体 / 刘慈欣”为 "santi st liucixin lcx"
+ALTER TABLE books ADD COLUMN pinyin_keys VARCHAR(2000) COMMENT '拼音检索键：书名和作者的全拼及首字母，以空格分隔' AFTER description;
+
+-- 如果已经执行过 upgrade_fulltext_search.sql，需要把拼音检索键加入全文索引（未执行过则跳过以下语句）
+-- ALTER TABLE books DROP INDEX ft_books_search;
+-- CREATE FULLTEXT INDEX ft_books_search ON books (book_name, author, publisher, description, pinyin_keys) WITH PARSER ngram;
@@ -1,123 +1,928 @@
 package dev.ganziyan.library.dao;
 
+import dev.ganziyan.library.dto.BookFacets;
+import dev.ganziyan.library.dto.Page;
 import dev.ganziyan.library.entity.Book;
 import dev.ganziyan.library.util.DBUtil;
+import dev.ganziyan.library.util.PinyinUtil;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 图书数据访问对象
  * 负责图书信息的数据库CRUD操作
+ * 列表、搜索、分页查询只读取表格显示的列（LIST_COLUMNS），返回的图书对象不包含简介等字段，
+ * 需要完整信息（查看简介、编辑图书）时通过 findById 重新读取
  */
 public class BookDao {
     
+    private static final BookRowMapper BOOK_MAPPER = new BookRowMapper();
+    
+    /**
+     * 单条 IN 查询最多包含的ID数量
+     */
+    private static final int MAX_IN_SIZE = 500;
+    
+    /**
+     * 列表查询读取的列（图书表格显示的列），不包含简介、拼音检索键等大字段；
+     * 完整的图书信息通过 findById / findByIsbn 读取
+     */
+    private static final String LIST_COLUMNS =
+        "book_id, book_name, author, publisher, isbn, category, total_quantity, available_quantity, publish_date, price";
+    
+    /**
+     * 全文检索条件，对应 ft_books_search 全文索引（ngram 分词，仅 MySQL）
+     */
+    private static final String FULL_TEXT_MATCH =
+        "MATCH(book_name, author, publisher, description, pinyin_keys) AGAINST(? IN BOOLEAN MODE)";
+    
+    /**
+     * 分面统计查询：按分类、出版社、是否可借分组计数，后接 WHERE 条件和 FACET_GROUP_BY
+     */
+    private static final String FACET_SELECT =
+        "SELECT category, publisher, available_quantity > 0 AS available, COUNT(*) AS book_count FROM books";
+    
+    private static final String FACET_GROUP_BY = " GROUP BY category, publisher, available_quantity > 0";
+    
+    /**
+     * 逐行处理图书的回调
+     */
+    public interface BookHandler {
+        
+        /**
+         * 处理一本图书
+         * 
+         * @param book 图书对象
+         */
+        void handle(Book book);
+    }
+    
+    /**
+     * 查询所有图书
+     * 
+     * @return 图书列表
+     */
+    public List<Book> findAll() {
+        List<Book> books = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT " + LIST_COLUMNS + " FROM books ORDER BY book_id DESC";
+            preparedStatement = connection.prepareStatement(sql);
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                Book book = BOOK_MAPPER.mapRow(resultSet, columns);
+                books.add(book);
+            }
+        } catch (SQLException e) {
+            System.err.println("查询所有图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return books;
+    }
+    
+    /**
+     * 根据ID查询图书
+     * 
+     * @param bookId 图书ID
+     * @return 图书对象，如果不存在则返回null
+     */
+    public Book findById(Integer bookId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT * FROM books WHERE book_id = ?";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, bookId);
+            resultSet = preparedStatement.executeQuery();
+            
+            if (resultSet.next()) {
+                return BOOK_MAPPER.mapRow(resultSet);
+            }
+        } catch (SQLException e) {
+            System.err.println("根据ID查询图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * 根据ISBN查询图书
+     * 
+     * @param isbn ISBN编号
+     * @return 图书对象，如果不存在则返回null
+     */
+    public Book findByIsbn(String isbn) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT * FROM books WHERE isbn = ?";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setString(1, isbn);
+            resultSet = preparedStatement.executeQuery();
+            
+            if (resultSet.next()) {
+                return BOOK_MAPPER.mapRow(resultSet);
+            }
+        } catch (SQLException e) {
+            System.err.println("根据ISBN查询图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * 根据关键词搜索图书（模糊查询书名、作者、出版社）
+     * 
+     * @param keyword 搜索关键词
+     * @return 符合条件的图书列表
+     */
+    public List<Book> searchBooks(String keyword) {
+        List<Book> books = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT " + LIST_COLUMNS + " FROM books WHERE book_name LIKE ? OR author LIKE ? " +
+                        "OR publisher LIKE ? OR category LIKE ? OR pinyin_keys LIKE ? ORDER BY book_id DESC";
+            preparedStatement = connection.prepareStatement(sql);
+            String searchPattern = "%" + keyword + "%";
+            preparedStatement.setString(1, searchPattern);
+            preparedStatement.setString(2, searchPattern);
+            preparedStatement.setString(3, searchPattern);
+            preparedStatement.setString(4, searchPattern);
+            preparedStatement.setString(5, pinyinPattern(keyword));
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                Book book = BOOK_MAPPER.mapRow(resultSet, columns);
+                books.add(book);
+            }
+        } catch (SQLException e) {
+            System.err.println("搜索图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return books;
+    }
+    
+    /**
+     * 根据ID列表批量查询图书（按图书ID倒序）
+     * 
+     * @param bookIds 图书ID列表
+     * @return 图书列表，不存在的ID会被忽略
+     */
+    public List<Book> findByIds(List<Integer> bookIds) {
+        List<Book> books = new ArrayList<>();
+        if (bookIds.isEmpty()) {
+            return books;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            // IN 列表过长时分批查询
+            for (int from = 0; from < bookIds.size(); from += MAX_IN_SIZE) {
+                List<Integer> batch = bookIds.subList(from, Math.min(from + MAX_IN_SIZE, bookIds.size()));
+                StringBuilder sql = new StringBuilder("SELECT " + LIST_COLUMNS + " FROM books WHERE book_id IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+                preparedStatement = connection.prepareStatement(sql.toString());
+                for (int i = 0; i < batch.size(); i++) {
+                    preparedStatement.setInt(i + 1, batch.get(i));
+                }
+                resultSet = preparedStatement.executeQuery();
+                
+                int[] columns = BOOK_MAPPER.resolve(resultSet);
+                while (resultSet.next()) {
+                    books.add(BOOK_MAPPER.mapRow(resultSet, columns));
+                }
+                DBUtil.closeResultSet(resultSet);
+                DBUtil.closePreparedStatement(preparedStatement);
+                resultSet = null;
+                preparedStatement = null;
+            }
+        } catch (SQLException e) {
+            System.err.println("批量查询图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        books.sort(new Comparator<Book>() {
+            @Override
+            public int compare(Book a, Book b) {
+                return Integer.compare(b.getBookId(), a.getBookId());
+            }
+        });
+        return books;
+    }
+    
+    /**
+     * 查询指定的图书中仍然存在的图书ID，用于确认其他终端删除的图书
+     * 
+     * @param bookIds 图书ID列表
+     * @return 仍然存在的图书ID；查询失败时返回null
+     */
+    public Set<Integer> findExistingIds(List<Integer> bookIds) {
+        Set<Integer> existing = new HashSet<>();
+        if (bookIds.isEmpty()) {
+            return existing;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            // IN 列表过长时分批查询
+            for (int from = 0; from < bookIds.size(); from += MAX_IN_SIZE) {
+                List<Integer> batch = bookIds.subList(from, Math.min(from + MAX_IN_SIZE, bookIds.size()));
+                StringBuilder sql = new StringBuilder("SELECT book_id FROM books WHERE book_id IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+                preparedStatement = connection.prepareStatement(sql.toString());
+                for (int i = 0; i < batch.size(); i++) {
+                    preparedStatement.setInt(i + 1, batch.get(i));
+                }
+                resultSet = preparedStatement.executeQuery();
+                
+                while (resultSet.next()) {
+                    existing.add(resultSet.getInt(1));
+                }
+                DBUtil.closeResultSet(resultSet);
+                DBUtil.closePreparedStatement(preparedStatement);
+                resultSet = null;
+                preparedStatement = null;
+            }
+            return existing;
+        } catch (SQLException e) {
+            System.err.println("查询图书是否存在失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
+    /**
+     * 逐行扫描所有图书的检索字段（书名、作者、出版社、分类、ISBN），用于构建内存检索索引
+     * 结果集以流式方式读取，不会把整张表加载到内存
+     * 
+     * @param handler 每行图书的处理器，传入的图书对象只填充了ID和检索字段
+     * @return true表示扫描完成，false表示查询失败
+     */
+    public boolean scanSearchFields(BookHandler handler) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT book_id, book_name, author, publisher, category, isbn, pinyin_keys, " +
+                        "available_quantity FROM books";
+            preparedStatement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取
+            preparedStatement.setFetchSize(DBUtil.getStorageBackend().isMySql() ? Integer.MIN_VALUE : 1000);
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                handler.handle(BOOK_MAPPER.mapRow(resultSet, columns));
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("扫描图书失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
+    /**
+     * 查询图书表中最新的更新时间，作为增量检查修改的起点
+     * 
+     * @return 最新的 updated_at，没有图书或查询失败时返回null
+     */
+    public Timestamp findLatestUpdateTime() {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT MAX(updated_at) FROM books";
+            preparedStatement = connection.prepareStatement(sql);
+            resultSet = preparedStatement.executeQuery();
+            
+            if (resultSet.next()) {
+                return resultSet.getTimestamp(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("查询图书最新更新时间失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return null;
+    }
+    
+    /**
+     * 查询指定时间之后修改过的图书（按 updated_at 升序），用于发现其他终端的修改
+     * 借助 updated_at 索引只读取变化的行
+     * 
+     * @param since 起始时间（包含）
+     * @param limit 最多返回的数量
+     * @return 图书列表，图书对象只填充了ID、检索字段（书名、作者、出版社、分类、ISBN、拼音检索键）、可借数量和更新时间；
+     *         查询失败时返回null
+     */
+    public List<Book> findChangedSince(Timestamp since, int limit) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT book_id, book_name, author, publisher, category, isbn, pinyin_keys, " +
+                        "available_quantity, updated_at FROM books " +
+                        "WHERE updated_at >= ? ORDER BY updated_at LIMIT ?";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setTimestamp(1, since);
+            preparedStatement.setInt(2, limit);
+            resultSet = preparedStatement.executeQuery();
+            
+            List<Book> books = new ArrayList<>();
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                books.add(BOOK_MAPPER.mapRow(resultSet, columns));
+            }
+            return books;
+        } catch (SQLException e) {
+            System.err.println("查询修改过的图书失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
+    /**
+     * 分页查询图书（键集分页，按图书ID倒序）
+     * 通过 book_id < 游标 定位下一页，利用主键索引直接跳到起始位置，深分页不会变慢
+     * 
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量
+     * @return 分页结果
+     */
+    public Page<Book> findPage(Integer cursor, int pageSize) {
+        List<Book> books = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT " + LIST_COLUMNS + " FROM books " +
+                        (cursor != null ? "WHERE book_id < ? " : "") +
+                        "ORDER BY book_id DESC LIMIT ?";
+            preparedStatement = connection.prepareStatement(sql);
+            int index = 1;
+            if (cursor != null) {
+                preparedStatement.setInt(index++, cursor);
+            }
+            // 多取一行用于判断是否还有下一页
+            preparedStatement.setInt(index, pageSize + 1);
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                books.add(BOOK_MAPPER.mapRow(resultSet, columns));
+            }
+        } catch (SQLException e) {
+            System.err.println("分页查询图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return toPage(books, pageSize);
+    }
+    
+    /**
+     * 分页搜索图书（键集分页，按图书ID倒序）
+     * 
+     * @param keyword 搜索关键词
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量
+     * @return 分页结果
+     */
+    public Page<Book> searchBooksPage(String keyword, Integer cursor, int pageSize) {
+        return searchBooksPage(keyword, null, cursor, pageSize);
+    }
+    
+    /**
+     * 按关键词和分类分页搜索图书（键集分页，按图书ID倒序）
+     * 分类使用等值条件，可以利用 idx_category 索引（索引项按 分类、图书ID 有序，只按分类筛选时无需排序）
+     * 
+     * @param keyword 搜索关键词，为null时不按关键词筛选
+     * @param category 图书分类，为null时不按分类筛选
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量
+     * @return 分页结果
+     */
+    public Page<Book> searchBooksPage(String keyword, String category, Integer cursor, int pageSize) {
+        List<Book> books = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            StringBuilder sql = new StringBuilder("SELECT " + LIST_COLUMNS + " FROM books WHERE 1 = 1");
+            appendSearchCondition(sql, keyword, category);
+            if (cursor != null) {
+                sql.append(" AND book_id < ?");
+            }
+            sql.append(" ORDER BY book_id DESC LIMIT ?");
+            preparedStatement = connection.prepareStatement(sql.toString());
+            int index = setSearchParameters(preparedStatement, 1, keyword, category);
+            if (cursor != null) {
+                preparedStatement.setInt(index++, cursor);
+            }
+            preparedStatement.setInt(index, pageSize + 1);
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                books.add(BOOK_MAPPER.mapRow(resultSet, columns));
+            }
+        } catch (SQLException e) {
+            System.err.println("分页搜索图书失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return toPage(books, pageSize);
+    }
+    
+    /**
+     * 统计图书数量
+     * 
+     * @param keyword 搜索关键词，为null时统计所有图书
+     * @return 图书数量
+     */
+    public int count(String keyword) {
+        return count(keyword, null);
+    }
+    
+    /**
+     * 按关键词和分类统计图书数量
+     * 
+     * @param keyword 搜索关键词，为null时不按关键词筛选
+     * @param category 图书分类，为null时不按分类筛选
+     * @return 图书数量
+     */
+    public int count(String keyword, String category) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM books WHERE 1 = 1");
+            appendSearchCondition(sql, keyword, category);
+            preparedStatement = connection.prepareStatement(sql.toString());
+            setSearchParameters(preparedStatement, 1, keyword, category);
+            resultSet = preparedStatement.executeQuery();
+            
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("统计图书数量失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * 从游标处向后跳过若干行，返回新的游标
+     * 
+     * @param keyword 搜索关键词，为null时在所有图书中定位
+     * @param cursor 起始游标，为null时从第一行开始
+     * @param skip 跳过的行数（大于0）
+     * @return 跳过后的游标，超出范围时返回null
+     */
+    public Integer findSeekCursor(String keyword, Integer cursor, int skip) {
+        return findSeekCursor(keyword, null, cursor, skip);
+    }
+    
+    /**
+     * 从游标处向后跳过若干行，返回新的游标
+     * 用于表格直接拖动到远处时定位页面起点：只读取 book_id（主键索引即可覆盖），
+     * 且从最近的已知游标开始跳过，跳过的行数只取决于跳转距离
+     * 
+     * @param keyword 搜索关键词，为null时不按关键词筛选
+     * @param category 图书分类，为null时不按分类筛选
+     * @param cursor 起始游标，为null时从第一行开始
+     * @param skip 跳过的行数（大于0）
+     * @return 跳过后的游标，超出范围时返回null
+     */
+    public Integer findSeekCursor(String keyword, String category, Integer cursor, int skip) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            StringBuilder sql = new StringBuilder("SELECT book_id FROM books WHERE 1 = 1");
+            appendSearchCondition(sql, keyword, category);
+            if (cursor != null) {
+                sql.append(" AND book_id < ?");
+            }
+            sql.append(" ORDER BY book_id DESC LIMIT 1 OFFSET ?");
+            preparedStatement = connection.prepareStatement(sql.toString());
+            int index = setSearchParameters(preparedStatement, 1, keyword, category);
+            if (cursor != null) {
+                preparedStatement.setInt(index++, cursor);
+            }
+            preparedStatement.setInt(index, skip - 1);
+            resultSet = preparedStatement.executeQuery();
+            
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("定位分页游标失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return null;
+    }
+    
     /**
-     * 查询所有图书
+     * 全文检索图书（仅 MySQL）
+     * 使用 ft_books_search 全文索引检索书名、作者、出版社和简介，结果按相关度从高到低排序
      * 
-     * @return 图书列表
+     * @param keyword 搜索关键词，以空白分隔的每个词都必须出现
+     * @return 符合条件的图书列表
      */
-    public List<Book> findAll() {
-        List<Book> books = new ArrayList<>();
+    public List<Book> searchBooksFullText(String keyword) {
+        return searchBooksFullText(keyword, null, 0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * 分页全文检索图书（仅 MySQL）
+     * 按相关度排序的结果没有可用作键集的排序键，因此游标为下一页的起始行号
+     * 
+     * @param keyword 搜索关键词，以空白分隔的每个词都必须出现
+     * @param category 图书分类，为null时不按分类筛选
+     * @param offset 本页的起始行号（从0开始）
+     * @param pageSize 每页数量
+     * @return 分页结果
+     */
+    public Page<Book> searchBooksFullTextPage(String keyword, String category, int offset, int pageSize) {
+        List<Book> books = searchBooksFullText(keyword, category, offset, pageSize + 1);
+        if (books.size() <= pageSize) {
+            return new Page<>(books, null);
+        }
+        return new Page<>(new ArrayList<>(books.subList(0, pageSize)), offset + pageSize);
+    }
+    
+    /**
+     * 统计全文检索结果数量（仅 MySQL）
+     * 
+     * @param keyword 搜索关键词
+     * @param category 图书分类，为null时不按分类筛选
+     * @return 图书数量
+     */
+    public int countFullText(String keyword, String category) {
+        String query = toBooleanQuery(keyword);
+        if (query == null) {
+            return 0;
+        }
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT * FROM books ORDER BY book_id DESC";
+            String sql = "SELECT COUNT(*) FROM books WHERE " + FULL_TEXT_MATCH +
+                        (category != null ? " AND category = ?" : "");
             preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setString(1, query);
+            if (category != null) {
+                preparedStatement.setString(2, category);
+            }
             resultSet = preparedStatement.executeQuery();
             
-            while (resultSet.next()) {
-                Book book = extractBookFromResultSet(resultSet);
-                books.add(book);
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
             }
         } catch (SQLException e) {
-            System.err.println("查询所有图书失败：" + e.getMessage());
+            System.err.println("统计全文检索结果失败：" + e.getMessage());
             e.printStackTrace();
         } finally {
             DBUtil.closeAll(connection, preparedStatement, resultSet);
         }
         
-        return books;
+        return 0;
     }
     
     /**
-     * 根据ID查询图书
+     * 按相关度排序执行全文检索
      * 
-     * @param bookId 图书ID
-     * @return 图书对象，如果不存在则返回null
+     * @param keyword 搜索关键词
+     * @param category 图书分类，为null时不按分类筛选
+     * @param offset 跳过的行数
+     * @param limit 最多返回的行数
+     * @return 符合条件的图书列表
      */
-    public Book findById(Integer bookId) {
+    private List<Book> searchBooksFullText(String keyword, String category, int offset, int limit) {
+        List<Book> books = new ArrayList<>();
+        String query = toBooleanQuery(keyword);
+        if (query == null) {
+            return books;
+        }
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT * FROM books WHERE book_id = ?";
+            String sql = "SELECT " + LIST_COLUMNS + ", " + FULL_TEXT_MATCH + " AS relevance FROM books " +
+                        "WHERE " + FULL_TEXT_MATCH + " " +
+                        (category != null ? "AND category = ? " : "") +
+                        "ORDER BY relevance DESC, book_id DESC LIMIT ? OFFSET ?";
             preparedStatement = connection.prepareStatement(sql);
-            preparedStatement.setInt(1, bookId);
+            int index = 1;
+            preparedStatement.setString(index++, query);
+            preparedStatement.setString(index++, query);
+            if (category != null) {
+                preparedStatement.setString(index++, category);
+            }
+            preparedStatement.setInt(index++, limit);
+            preparedStatement.setInt(index, offset);
             resultSet = preparedStatement.executeQuery();
             
-            if (resultSet.next()) {
-                return extractBookFromResultSet(resultSet);
+            int[] columns = BOOK_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                books.add(BOOK_MAPPER.mapRow(resultSet, columns));
             }
         } catch (SQLException e) {
-            System.err.println("根据ID查询图书失败：" + e.getMessage());
+            System.err.println("全文检索图书失败：" + e.getMessage());
             e.printStackTrace();
         } finally {
             DBUtil.closeAll(connection, preparedStatement, resultSet);
         }
         
-        return null;
+        return books;
     }
     
     /**
-     * 根据关键词搜索图书（模糊查询书名、作者、出版社）
+     * 统计分面：各分类、各出版社以及可借/已借完的图书数量
+     * 只执行一次按（分类、出版社、是否可借）分组的查询，三种统计都由分组结果汇总得到。
+     * 分类统计不受分类筛选影响（用于显示切换到其他分类后的数量），出版社和可借统计只包含所选分类
+     * 
+     * @param keyword 搜索关键词，为null时统计所有图书
+     * @param category 所选分类，为null时不按分类筛选
+     * @return 分面统计，查询失败时返回null
+     */
+    public BookFacets countFacets(String keyword, String category) {
+        BookFacets facets = new BookFacets();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            StringBuilder sql = new StringBuilder(FACET_SELECT).append(" WHERE 1 = 1");
+            appendSearchCondition(sql, keyword, null);
+            sql.append(FACET_GROUP_BY);
+            preparedStatement = connection.prepareStatement(sql.toString());
+            setSearchParameters(preparedStatement, 1, keyword, null);
+            resultSet = preparedStatement.executeQuery();
+            collectFacets(resultSet, category, facets);
+        } catch (SQLException e) {
+            System.err.println("统计图书分面失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        facets.sortByCount();
+        return facets;
+    }
+    
+    /**
+     * 统计全文检索结果的分面（仅 MySQL），统计规则同 countFacets
      * 
      * @param keyword 搜索关键词
-     * @return 符合条件的图书列表
+     * @param category 所选分类，为null时不按分类筛选
+     * @return 分面统计，查询失败时返回null
      */
-    public List<Book> searchBooks(String keyword) {
-        List<Book> books = new ArrayList<>();
+    public BookFacets countFacetsFullText(String keyword, String category) {
+        BookFacets facets = new BookFacets();
+        String query = toBooleanQuery(keyword);
+        if (query == null) {
+            return facets;
+        }
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT * FROM books WHERE book_name LIKE ? OR author LIKE ? " +
-                        "OR publisher LIKE ? OR category LIKE ? ORDER BY book_id DESC";
+            String sql = FACET_SELECT + " WHERE " + FULL_TEXT_MATCH + FACET_GROUP_BY;
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setString(1, query);
+            resultSet = preparedStatement.executeQuery();
+            collectFacets(resultSet, category, facets);
+        } catch (SQLException e) {
+            System.err.println("统计图书分面失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        facets.sortByCount();
+        return facets;
+    }
+    
+    /**
+     * 查询所有图书分类（去重、按名称排序）
+     * 只读取 idx_category 索引，不访问表数据
+     * 
+     * @return 分类列表
+     */
+    public List<String> findCategories() {
+        List<String> categories = new ArrayList<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT DISTINCT category FROM books " +
+                        "WHERE category IS NOT NULL AND category <> '' ORDER BY category";
             preparedStatement = connection.prepareStatement(sql);
-            String searchPattern = "%" + keyword + "%";
-            preparedStatement.setString(1, searchPattern);
-            preparedStatement.setString(2, searchPattern);
-            preparedStatement.setString(3, searchPattern);
-            preparedStatement.setString(4, searchPattern);
             resultSet = preparedStatement.executeQuery();
             
             while (resultSet.next()) {
-                Book book = extractBookFromResultSet(resultSet);
-                books.add(book);
+                categories.add(resultSet.getString("category"));
             }
         } catch (SQLException e) {
-            System.err.println("搜索图书失败：" + e.getMessage());
+            System.err.println("查询图书分类失败：" + e.getMessage());
             e.printStackTrace();
         } finally {
             DBUtil.closeAll(connection, preparedStatement, resultSet);
         }
         
-        return books;
+        return categories;
+    }
+    
+    /**
+     * 把用户输入的关键词转换为布尔模式全文检索表达式
+     * 每个以空白分隔的词都作为必须出现的短语（+"词"），用户输入的双引号会被去掉；
+     * 单个字符短于 ngram 分词长度，改用前缀匹配（+字*）
+     * 
+     * @param keyword 搜索关键词
+     * @return 检索表达式，没有有效的词时返回null
+     */
+    private static String toBooleanQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : keyword.replace("\"", " ").trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            if (term.codePointCount(0, term.length()) == 1 && Character.isLetterOrDigit(term.codePointAt(0))) {
+                query.append('+').append(term).append('*');
+            } else {
+                query.append("+\"").append(term).append('"');
+            }
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+    
+    /**
+     * 为缺少拼音检索键的图书补全检索键（如升级前已有的图书、直接用SQL导入的图书）
+     * 每次处理一批，逐批提交，可以在系统运行期间执行
+     * 
+     * @param batchSize 每批处理的图书数量
+     * @return 补全的图书数量，出错时返回已补全的数量
+     */
+    public int fillMissingPinyinKeys(int batchSize) {
+        int filled = 0;
+        Connection connection = null;
+        PreparedStatement selectStatement = null;
+        PreparedStatement updateStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            selectStatement = connection.prepareStatement(
+                "SELECT book_id, book_name, author FROM books WHERE pinyin_keys IS NULL " +
+                "AND book_id > ? ORDER BY book_id LIMIT ?");
+            updateStatement = connection.prepareStatement(
+                "UPDATE books SET pinyin_keys = ? WHERE book_id = ? AND pinyin_keys IS NULL");
+            int lastId = 0;
+            while (true) {
+                selectStatement.setInt(1, lastId);
+                selectStatement.setInt(2, batchSize);
+                resultSet = selectStatement.executeQuery();
+                int count = 0;
+                while (resultSet.next()) {
+                    lastId = resultSet.getInt("book_id");
+                    updateStatement.setString(1, PinyinUtil.toSearchKeys(
+                        resultSet.getString("book_name"), resultSet.getString("author")));
+                    updateStatement.setInt(2, lastId);
+                    updateStatement.addBatch();
+                    count++;
+                }
+                resultSet.close();
+                resultSet = null;
+                if (count == 0) {
+                    break;
+                }
+                updateStatement.executeBatch();
+                filled += count;
+            }
+        } catch (SQLException e) {
+            System.err.println("补全拼音检索键失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(null, updateStatement, null);
+            DBUtil.closeAll(connection, selectStatement, resultSet);
+        }
+        
+        return filled;
     }
     
     /**
      * 添加图书
+     * 添加成功后把数据库生成的图书ID回填到 book 中
      * 
      * @param book 图书对象
      * @return true表示添加成功，false表示添加失败
@@ -125,13 +930,15 @@ public class BookDao {
     public boolean add(Book book) {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
         
         try {
             connection = DBUtil.getConnection();
             String sql = "INSERT INTO books (book_name, author, publisher, isbn, category, " +
-                        "total_quantity, available_quantity, publish_date, price, description) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            preparedStatement = connection.prepareStatement(sql);
+                        "total_quantity, available_quantity, publish_date, price, description, pinyin_keys) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            book.setPinyinKeys(PinyinUtil.toSearchKeys(book.getBookName(), book.getAuthor()));
+            preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
             preparedStatement.setString(1, book.getBookName());
             preparedStatement.setString(2, book.getAuthor());
             preparedStatement.setString(3, book.getPublisher());
@@ -142,18 +949,165 @@ public class BookDao {
             preparedStatement.setDate(8, book.getPublishDate());
             preparedStatement.setBigDecimal(9, book.getPrice());
             preparedStatement.setString(10, book.getDescription());
+            preparedStatement.setString(11, book.getPinyinKeys());
             
             int rows = preparedStatement.executeUpdate();
+            resultSet = preparedStatement.getGeneratedKeys();
+            if (resultSet.next()) {
+                book.setBookId(resultSet.getInt(1));
+            }
             return rows > 0;
         } catch (SQLException e) {
             System.err.println("添加图书失败：" + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
+    /**
+     * 批量添加图书（JDBC 批处理，MySQL 需在连接参数中开启 rewriteBatchedStatements 合并为多行插入）
+     * 应在事务中调用，由调用方决定提交或回滚；不回填图书ID
+     * 
+     * @param books 图书列表，可借数量为null时等于总数量
+     * @return true表示添加成功，false表示添加失败（任意一本失败时整批失败）
+     */
+    public boolean addBatch(List<Book> books) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "INSERT INTO books (book_name, author, publisher, isbn, category, " +
+                        "total_quantity, available_quantity, publish_date, price, description, pinyin_keys) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            preparedStatement = connection.prepareStatement(sql);
+            for (Book book : books) {
+                book.setPinyinKeys(PinyinUtil.toSearchKeys(book.getBookName(), book.getAuthor()));
+                preparedStatement.setString(1, book.getBookName());
+                preparedStatement.setString(2, book.getAuthor());
+                preparedStatement.setString(3, book.getPublisher());
+                preparedStatement.setString(4, book.getIsbn());
+                preparedStatement.setString(5, book.getCategory());
+                preparedStatement.setInt(6, book.getTotalQuantity());
+                preparedStatement.setInt(7, book.getAvailableQuantity() != null
+                    ? book.getAvailableQuantity() : book.getTotalQuantity());
+                preparedStatement.setDate(8, book.getPublishDate());
+                preparedStatement.setBigDecimal(9, book.getPrice());
+                preparedStatement.setString(10, book.getDescription());
+                preparedStatement.setString(11, book.getPinyinKeys());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("批量添加图书失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
+    }
+    
+    /**
+     * 按ISBN批量更新图书信息（JDBC 批处理），用于批量导入时覆盖已有图书
+     * 出版社、分类、出版日期、价格、简介、总数量为null时保留原值；
+     * 修改总数量时可借数量随之增减，已借出的数量超过新的总数量时不更新该图书
+     * 应在事务中调用，由调用方决定提交或回滚
+     * 
+     * @param books 图书列表（按ISBN匹配）
+     * @return 每本图书更新的行数（0表示未更新），执行失败时返回null
+     */
+    public int[] updateByIsbnBatch(List<Book> books) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            // 可借数量必须在总数量之前赋值：MySQL 按顺序赋值，后面的表达式会读到前面已修改的值
+            String sql = "UPDATE books SET book_name = ?, author = ?, publisher = COALESCE(?, publisher), " +
+                        "category = COALESCE(?, category), publish_date = COALESCE(?, publish_date), " +
+                        "price = COALESCE(?, price), description = COALESCE(?, description), pinyin_keys = ?, " +
+                        "available_quantity = available_quantity + COALESCE(?, total_quantity) - total_quantity, " +
+                        "total_quantity = COALESCE(?, total_quantity) " +
+                        "WHERE isbn = ? AND available_quantity + COALESCE(?, total_quantity) - total_quantity >= 0";
+            preparedStatement = connection.prepareStatement(sql);
+            for (Book book : books) {
+                book.setPinyinKeys(PinyinUtil.toSearchKeys(book.getBookName(), book.getAuthor()));
+                preparedStatement.setString(1, book.getBookName());
+                preparedStatement.setString(2, book.getAuthor());
+                preparedStatement.setString(3, book.getPublisher());
+                preparedStatement.setString(4, book.getCategory());
+                preparedStatement.setDate(5, book.getPublishDate());
+                preparedStatement.setBigDecimal(6, book.getPrice());
+                preparedStatement.setString(7, book.getDescription());
+                preparedStatement.setString(8, book.getPinyinKeys());
+                preparedStatement.setObject(9, book.getTotalQuantity(), Types.INTEGER);
+                preparedStatement.setObject(10, book.getTotalQuantity(), Types.INTEGER);
+                preparedStatement.setString(11, book.getIsbn());
+                preparedStatement.setObject(12, book.getTotalQuantity(), Types.INTEGER);
+                preparedStatement.addBatch();
+            }
+            return preparedStatement.executeBatch();
+        } catch (SQLException e) {
+            System.err.println("批量更新图书失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
         } finally {
             DBUtil.closeAll(connection, preparedStatement, null);
         }
     }
     
+    /**
+     * 按ISBN批量查询图书ID
+     * 
+     * @param isbns ISBN列表
+     * @return ISBN -> 图书ID，不存在的ISBN不包含在内；查询失败时返回null
+     */
+    public Map<String, Integer> findIdsByIsbns(List<String> isbns) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (isbns.isEmpty()) {
+            return ids;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            // IN 列表过长时分批查询
+            for (int from = 0; from < isbns.size(); from += MAX_IN_SIZE) {
+                List<String> batch = isbns.subList(from, Math.min(from + MAX_IN_SIZE, isbns.size()));
+                StringBuilder sql = new StringBuilder("SELECT book_id, isbn FROM books WHERE isbn IN (");
+                for (int i = 0; i < batch.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(")");
+                preparedStatement = connection.prepareStatement(sql.toString());
+                for (int i = 0; i < batch.size(); i++) {
+                    preparedStatement.setString(i + 1, batch.get(i));
+                }
+                resultSet = preparedStatement.executeQuery();
+                
+                while (resultSet.next()) {
+                    ids.put(resultSet.getString(2), resultSet.getInt(1));
+                }
+                DBUtil.closeResultSet(resultSet);
+                DBUtil.closePreparedStatement(preparedStatement);
+                resultSet = null;
+                preparedStatement = null;
+            }
+            return ids;
+        } catch (SQLException e) {
+            System.err.println("按ISBN批量查询图书失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
     /**
      * 更新图书信息
      * 
@@ -168,7 +1122,8 @@ public class BookDao {
             connection = DBUtil.getConnection();
             String sql = "UPDATE books SET book_name = ?, author = ?, publisher = ?, " +
                         "isbn = ?, category = ?, total_quantity = ?, available_quantity = ?, " +
-                        "publish_date = ?, price = ?, description = ? WHERE book_id = ?";
+                        "publish_date = ?, price = ?, description = ?, pinyin_keys = ? WHERE book_id = ?";
+            book.setPinyinKeys(PinyinUtil.toSearchKeys(book.getBookName(), book.getAuthor()));
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setString(1, book.getBookName());
             preparedStatement.setString(2, book.getAuthor());
@@ -180,7 +1135,8 @@ public class BookDao {
             preparedStatement.setDate(8, book.getPublishDate());
             preparedStatement.setBigDecimal(9, book.getPrice());
             preparedStatement.setString(10, book.getDescription());
-            preparedStatement.setInt(11, book.getBookId());
+            preparedStatement.setString(11, book.getPinyinKeys());
+            preparedStatement.setInt(12, book.getBookId());
             
             int rows = preparedStatement.executeUpdate();
             return rows > 0;
@@ -222,6 +1178,64 @@ public class BookDao {
         }
     }
     
+    /**
+     * 原子地减少一本可借数量（借书）
+     * 库存检查与扣减在同一条SQL中完成，避免并发借书时出现超借
+     * 
+     * @param bookId 图书ID
+     * @return true表示扣减成功，false表示图书不存在或库存不足
+     */
+    public boolean decreaseAvailableQuantity(Integer bookId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "UPDATE books SET available_quantity = available_quantity - 1 " +
+                        "WHERE book_id = ? AND available_quantity > 0";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, bookId);
+            
+            int rows = preparedStatement.executeUpdate();
+            return rows > 0;
+        } catch (SQLException e) {
+            System.err.println("减少图书可借数量失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
+    }
+    
+    /**
+     * 原子地增加一本可借数量（还书）
+     * 可借数量不会超过图书总数量
+     * 
+     * @param bookId 图书ID
+     * @return true表示增加成功，false表示图书不存在或库存已满
+     */
+    public boolean increaseAvailableQuantity(Integer bookId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "UPDATE books SET available_quantity = available_quantity + 1 " +
+                        "WHERE book_id = ? AND available_quantity < total_quantity";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, bookId);
+            
+            int rows = preparedStatement.executeUpdate();
+            return rows > 0;
+        } catch (SQLException e) {
+            System.err.println("增加图书可借数量失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
+    }
+    
     /**
      * 删除图书
      * 
@@ -250,27 +1264,90 @@ public class BookDao {
     }
     
     /**
-     * 从ResultSet中提取图书对象
+     * 追加关键词和分类筛选条件
+     * 
+     * @param sql 以 WHERE 条件结尾的SQL
+     * @param keyword 搜索关键词，为null时不追加
+     * @param category 图书分类，为null时不追加
+     */
+    private void appendSearchCondition(StringBuilder sql, String keyword, String category) {
+        if (category != null) {
+            sql.append(" AND category = ?");
+        }
+        if (keyword != null) {
+            sql.append(" AND (book_name LIKE ? OR author LIKE ? OR publisher LIKE ? OR category LIKE ?" +
+                       " OR pinyin_keys LIKE ?)");
+        }
+    }
+    
+    /**
+     * 设置 appendSearchCondition 追加的条件参数
+     * 
+     * @param preparedStatement 预编译语句
+     * @param index 第一个参数的位置
+     * @param keyword 搜索关键词
+     * @param category 图书分类
+     * @return 下一个参数的位置
+     * @throws SQLException SQL异常
+     */
+    private int setSearchParameters(PreparedStatement preparedStatement, int index,
+                                    String keyword, String category) throws SQLException {
+        if (category != null) {
+            preparedStatement.setString(index++, category);
+        }
+        if (keyword != null) {
+            String searchPattern = "%" + keyword + "%";
+            for (int i = 0; i < 4; i++) {
+                preparedStatement.setString(index++, searchPattern);
+            }
+            preparedStatement.setString(index++, pinyinPattern(keyword));
+        }
+        return index;
+    }
+    
+    /**
+     * 汇总分面分组查询的结果
      * 
-     * @param resultSet 结果集
-     * @return 图书对象
+     * @param resultSet FACET_SELECT 查询结果
+     * @param category 所选分类，为null时不按分类筛选
+     * @param facets 累加结果的分面统计
      * @throws SQLException SQL异常
      */
-    private Book extractBookFromResultSet(ResultSet resultSet) throws SQLException {
-        Book book = new Book();
-        book.setBookId(resultSet.getInt("book_id"));
-        book.setBookName(resultSet.getString("book_name"));
-        book.setAuthor(resultSet.getString("author"));
-        book.setPublisher(resultSet.getString("publisher"));
-        book.setIsbn(resultSet.getString("isbn"));
-        book.setCategory(resultSet.getString("category"));
-        book.setTotalQuantity(resultSet.getInt("total_quantity"));
-        book.setAvailableQuantity(resultSet.getInt("available_quantity"));
-        book.setPublishDate(resultSet.getDate("publish_date"));
-        book.setPrice(resultSet.getBigDecimal("price"));
-        book.setDescription(resultSet.getString("description"));
-        book.setCreatedAt(resultSet.getTimestamp("created_at"));
-        book.setUpdatedAt(resultSet.getTimestamp("updated_at"));
-        return book;
+    private void collectFacets(ResultSet resultSet, String category, BookFacets facets) throws SQLException {
+        while (resultSet.next()) {
+            String rowCategory = resultSet.getString("category");
+            int count = resultSet.getInt("book_count");
+            facets.addCategory(rowCategory, count);
+            if (category == null || category.equalsIgnoreCase(rowCategory)) {
+                facets.addPublisher(resultSet.getString("publisher"), count);
+                facets.addAvailability(resultSet.getBoolean("available"), count);
+            }
+        }
+    }
+    
+    /**
+     * 拼音检索键的匹配模式，检索键都是小写字母
+     * 
+     * @param keyword 搜索关键词
+     * @return LIKE 匹配模式
+     */
+    private String pinyinPattern(String keyword) {
+        return "%" + keyword.toLowerCase(Locale.ROOT) + "%";
+    }
+    
+    /**
+     * 把多取一行的查询结果转换为分页结果
+     * 
+     * @param books 查询结果（最多 pageSize + 1 行）
+     * @param pageSize 每页数量
+     * @return 分页结果
+     */
+    private Page<Book> toPage(List<Book> books, int pageSize) {
+        if (books.size() <= pageSize) {
+            return new Page<>(books, null);
+        }
+        List<Book> items = new ArrayList<>(books.subList(0, pageSize));
+        return new Page<>(items, items.get(pageSize - 1).getBookId());
     }
+    
 }
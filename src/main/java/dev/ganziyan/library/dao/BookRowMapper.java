@@ -0,0 +1,53 @@
+package dev.ganziyan.library.dao;
+
+import dev.ganziyan.library.entity.Book;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 图书表的行映射器
+ */
+public class BookRowMapper extends RowMapper<Book> {
+
+    // 列编号，与构造方法中的列名顺序一致
+    private static final int BOOK_ID = 0;
+    private static final int BOOK_NAME = 1;
+    private static final int AUTHOR = 2;
+    private static final int PUBLISHER = 3;
+    private static final int ISBN = 4;
+    private static final int CATEGORY = 5;
+    private static final int TOTAL_QUANTITY = 6;
+    private static final int AVAILABLE_QUANTITY = 7;
+    private static final int PUBLISH_DATE = 8;
+    private static final int PRICE = 9;
+    private static final int DESCRIPTION = 10;
+    private static final int PINYIN_KEYS = 11;
+    private static final int CREATED_AT = 12;
+    private static final int UPDATED_AT = 13;
+
+    public BookRowMapper() {
+        super("book_id", "book_name", "author", "publisher", "isbn", "category", "total_quantity",
+            "available_quantity", "publish_date", "price", "description", "pinyin_keys", "created_at", "updated_at");
+    }
+
+    @Override
+    public Book mapRow(ResultSet resultSet, int[] positions) throws SQLException {
+        Book book = new Book();
+        book.setBookId(getInt(resultSet, positions[BOOK_ID]));
+        book.setBookName(getString(resultSet, positions[BOOK_NAME]));
+        book.setAuthor(getString(resultSet, positions[AUTHOR]));
+        book.setPublisher(getString(resultSet, positions[PUBLISHER]));
+        book.setIsbn(getString(resultSet, positions[ISBN]));
+        book.setCategory(getString(resultSet, positions[CATEGORY]));
+        book.setTotalQuantity(getInt(resultSet, positions[TOTAL_QUANTITY]));
+        book.setAvailableQuantity(getInt(resultSet, positions[AVAILABLE_QUANTITY]));
+        book.setPublishDate(getDate(resultSet, positions[PUBLISH_DATE]));
+        book.setPrice(getBigDecimal(resultSet, positions[PRICE]));
+        book.setDescription(getString(resultSet, positions[DESCRIPTION]));
+        book.setPinyinKeys(getString(resultSet, positions[PINYIN_KEYS]));
+        book.setCreatedAt(getTimestamp(resultSet, positions[CREATED_AT]));
+        book.setUpdatedAt(getTimestamp(resultSet, positions[UPDATED_AT]));
+        return book;
+    }
+}
@@ -4,11 +4,14 @@ import dev.ganziyan.library.entity.BorrowRecord;
 import dev.ganziyan.library.util.DBUtil;
 
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 借阅记录数据访问对象
@@ -16,6 +19,39 @@ import java.util.List;
  */
 public class BorrowRecordDao {
     
+    private static final BorrowRecordRowMapper RECORD_MAPPER = new BorrowRecordRowMapper();
+    
+    // 关联用户和图书信息的表
+    private static final String DETAILS_FROM = "FROM borrow_records br " +
+        "JOIN users u ON br.user_id = u.user_id " +
+        "JOIN books b ON br.book_id = b.book_id ";
+    
+    // 列表查询的列（借阅记录表格显示的列），不包含备注
+    private static final String SELECT_WITH_DETAILS = "SELECT br.record_id, br.user_id, br.book_id, br.borrow_date, " +
+        "br.due_date, br.return_date, br.status, br.created_at, u.username, u.real_name, b.book_name, b.author " +
+        DETAILS_FROM;
+    
+    // 查询单条记录时读取全部列
+    private static final String SELECT_ALL_WITH_DETAILS = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
+        DETAILS_FROM;
+    
+    // 非流式读取时每次从数据库取回的行数
+    private static final int SCAN_FETCH_SIZE = 1000;
+    
+    /**
+     * 逐条处理借阅记录的回调
+     */
+    public interface BorrowRecordHandler {
+        
+        /**
+         * 处理一条借阅记录（在扫描线程中调用，期间不要访问数据库）
+         * 
+         * @param record 借阅记录
+         * @return true继续扫描，false提前结束
+         */
+        boolean handle(BorrowRecord record);
+    }
+    
     /**
      * 查询所有借阅记录（包含关联的用户和图书信息）
      * 
@@ -29,16 +65,14 @@ public class BorrowRecordDao {
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
-                        "FROM borrow_records br " +
-                        "JOIN users u ON br.user_id = u.user_id " +
-                        "JOIN books b ON br.book_id = b.book_id " +
+            String sql = SELECT_WITH_DETAILS +
                         "ORDER BY br.record_id DESC";
             preparedStatement = connection.prepareStatement(sql);
             resultSet = preparedStatement.executeQuery();
             
+            int[] columns = RECORD_MAPPER.resolve(resultSet);
             while (resultSet.next()) {
-                BorrowRecord record = extractBorrowRecordFromResultSet(resultSet);
+                BorrowRecord record = RECORD_MAPPER.mapRow(resultSet, columns);
                 records.add(record);
             }
         } catch (SQLException e) {
@@ -51,6 +85,62 @@ public class BorrowRecordDao {
         return records;
     }
     
+    /**
+     * 流式扫描借阅记录（包含关联的用户和图书信息，按记录ID倒序）
+     * 结果集只向前读取：MySQL 上逐行流式读取（fetchSize 为 Integer.MIN_VALUE），其他数据库每次取回 SCAN_FETCH_SIZE 行，
+     * 内存占用与记录总数无关；方法返回前关闭结果集并归还连接。
+     * 流式结果集关闭时会读完剩余的行，剩余的行可能很多时（未限制行数或限制较大），提前结束会先取消查询。
+     * 流式读取期间连接被独占，handler 中不能访问数据库，也不应在事务中调用
+     * 
+     * @param userId 用户 ID，为null时扫描所有用户的记录
+     * @param maxRows 最多读取的记录数（由数据库限制），0表示不限制
+     * @param handler 每条记录的处理器，返回false时提前结束
+     * @return true表示扫描完成（包括提前结束），false表示查询失败
+     */
+    public boolean scan(Integer userId, int maxRows, BorrowRecordHandler handler) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        boolean streaming = DBUtil.getStorageBackend().isMySql();
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = SELECT_WITH_DETAILS +
+                        (userId != null ? "WHERE br.user_id = ? " : "") +
+                        "ORDER BY br.record_id DESC";
+            preparedStatement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取
+            preparedStatement.setFetchSize(streaming ? Integer.MIN_VALUE : SCAN_FETCH_SIZE);
+            if (maxRows > 0) {
+                // 由数据库限制行数，提前结束时不必再读取（流式结果集关闭时会读完剩余的行）
+                preparedStatement.setMaxRows(maxRows);
+            }
+            if (userId != null) {
+                preparedStatement.setInt(1, userId);
+            }
+            resultSet = preparedStatement.executeQuery();
+            
+            int[] columns = RECORD_MAPPER.resolve(resultSet);
+            while (resultSet.next()) {
+                if (!handler.handle(RECORD_MAPPER.mapRow(resultSet, columns))) {
+                    // 取消查询需要另建连接，剩余的行不多时直接读完更快
+                    if (streaming && (maxRows == 0 || maxRows > SCAN_FETCH_SIZE)) {
+                        cancelQuietly(preparedStatement);
+                    }
+                    break;
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("扫描借阅记录失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
     /**
      * 根据用户 ID查询借阅记录
      * 
@@ -65,18 +155,16 @@ public class BorrowRecordDao {
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
-                        "FROM borrow_records br " +
-                        "JOIN users u ON br.user_id = u.user_id " +
-                        "JOIN books b ON br.book_id = b.book_id " +
+            String sql = SELECT_WITH_DETAILS +
                         "WHERE br.user_id = ? " +
                         "ORDER BY br.record_id DESC";
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setInt(1, userId);
             resultSet = preparedStatement.executeQuery();
             
+            int[] columns = RECORD_MAPPER.resolve(resultSet);
             while (resultSet.next()) {
-                BorrowRecord record = extractBorrowRecordFromResultSet(resultSet);
+                BorrowRecord record = RECORD_MAPPER.mapRow(resultSet, columns);
                 records.add(record);
             }
         } catch (SQLException e) {
@@ -103,18 +191,16 @@ public class BorrowRecordDao {
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
-                        "FROM borrow_records br " +
-                        "JOIN users u ON br.user_id = u.user_id " +
-                        "JOIN books b ON br.book_id = b.book_id " +
+            String sql = SELECT_WITH_DETAILS +
                         "WHERE br.user_id = ? AND (br.status = '借阅中' OR br.status = '已逾期') " +
                         "ORDER BY br.record_id DESC";
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setInt(1, userId);
             resultSet = preparedStatement.executeQuery();
             
+            int[] columns = RECORD_MAPPER.resolve(resultSet);
             while (resultSet.next()) {
-                BorrowRecord record = extractBorrowRecordFromResultSet(resultSet);
+                BorrowRecord record = RECORD_MAPPER.mapRow(resultSet, columns);
                 records.add(record);
             }
         } catch (SQLException e) {
@@ -127,6 +213,39 @@ public class BorrowRecordDao {
         return records;
     }
     
+    /**
+     * 查询用户未归还的借阅（只读取借阅记录表，不关联用户和图书）
+     * 
+     * @param userId 用户 ID
+     * @return 图书 ID -> 应还日期；查询失败时返回null
+     */
+    public Map<Integer, Date> findOpenLoans(Integer userId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT book_id, due_date FROM borrow_records " +
+                        "WHERE user_id = ? AND (status = '借阅中' OR status = '已逾期')";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, userId);
+            resultSet = preparedStatement.executeQuery();
+            
+            Map<Integer, Date> loans = new HashMap<>();
+            while (resultSet.next()) {
+                loans.put(resultSet.getInt("book_id"), resultSet.getDate("due_date"));
+            }
+            return loans;
+        } catch (SQLException e) {
+            System.err.println("查询用户未归还的借阅失败：" + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+    
     /**
      * 根据图书 ID查询借阅记录
      * 
@@ -141,18 +260,16 @@ public class BorrowRecordDao {
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
-                        "FROM borrow_records br " +
-                        "JOIN users u ON br.user_id = u.user_id " +
-                        "JOIN books b ON br.book_id = b.book_id " +
+            String sql = SELECT_WITH_DETAILS +
                         "WHERE br.book_id = ? " +
                         "ORDER BY br.record_id DESC";
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setInt(1, bookId);
             resultSet = preparedStatement.executeQuery();
             
+            int[] columns = RECORD_MAPPER.resolve(resultSet);
             while (resultSet.next()) {
-                BorrowRecord record = extractBorrowRecordFromResultSet(resultSet);
+                BorrowRecord record = RECORD_MAPPER.mapRow(resultSet, columns);
                 records.add(record);
             }
         } catch (SQLException e) {
@@ -165,6 +282,36 @@ public class BorrowRecordDao {
         return records;
     }
     
+    /**
+     * 统计每本图书的累计借阅次数（用于热门度排序）
+     * 
+     * @return 图书ID -> 借阅次数，没有借阅记录的图书不在结果中
+     */
+    public Map<Integer, Integer> countByBook() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "SELECT book_id, COUNT(*) AS borrow_count FROM borrow_records GROUP BY book_id";
+            preparedStatement = connection.prepareStatement(sql);
+            resultSet = preparedStatement.executeQuery();
+            
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt("book_id"), resultSet.getInt("borrow_count"));
+            }
+        } catch (SQLException e) {
+            System.err.println("统计图书借阅次数失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+        
+        return counts;
+    }
+    
     /**
      * 添加借阅记录
      * 
@@ -197,11 +344,49 @@ public class BorrowRecordDao {
         }
     }
     
+    /**
+     * 添加借阅记录，用户正在借阅同一本书时不添加
+     * 检查和插入在同一条SQL中完成，借书时不必先单独查询借阅记录
+     * 
+     * @param record 借阅记录对象
+     * @return true表示添加成功，false表示用户正在借阅该图书或添加失败
+     */
+    public boolean addIfNotBorrowing(BorrowRecord record) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "INSERT INTO borrow_records (user_id, book_id, due_date, status, remarks) " +
+                        "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (" +
+                        "SELECT 1 FROM borrow_records WHERE user_id = ? AND book_id = ? " +
+                        "AND (status = '借阅中' OR status = '已逾期'))";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, record.getUserId());
+            preparedStatement.setInt(2, record.getBookId());
+            preparedStatement.setDate(3, record.getDueDate());
+            preparedStatement.setString(4, record.getStatus());
+            preparedStatement.setString(5, record.getRemarks());
+            preparedStatement.setInt(6, record.getUserId());
+            preparedStatement.setInt(7, record.getBookId());
+            
+            int rows = preparedStatement.executeUpdate();
+            return rows > 0;
+        } catch (SQLException e) {
+            System.err.println("添加借阅记录失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
+    }
+    
     /**
      * 更新借阅记录（归还图书）
+     * 只更新未归还的记录，避免同一记录被重复归还
      * 
      * @param recordId 记录 ID
-     * @return true表示更新成功，false表示更新失败
+     * @return true表示更新成功，false表示记录不存在或已归还
      */
     public boolean returnBook(Integer recordId) {
         Connection connection = null;
@@ -210,7 +395,7 @@ public class BorrowRecordDao {
         try {
             connection = DBUtil.getConnection();
             String sql = "UPDATE borrow_records SET return_date = NOW(), status = '已归还' " +
-                        "WHERE record_id = ?";
+                        "WHERE record_id = ? AND status <> '已归还'";
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setInt(1, recordId);
             
@@ -239,10 +424,7 @@ public class BorrowRecordDao {
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "SELECT br.*, u.username, u.real_name, b.book_name, b.author " +
-                        "FROM borrow_records br " +
-                        "JOIN users u ON br.user_id = u.user_id " +
-                        "JOIN books b ON br.book_id = b.book_id " +
+            String sql = SELECT_ALL_WITH_DETAILS +
                         "WHERE br.user_id = ? AND br.book_id = ? " +
                         "AND (br.status = '借阅中' OR br.status = '已逾期') " +
                         "ORDER BY br.record_id DESC LIMIT 1";
@@ -252,7 +434,7 @@ public class BorrowRecordDao {
             resultSet = preparedStatement.executeQuery();
             
             if (resultSet.next()) {
-                return extractBorrowRecordFromResultSet(resultSet);
+                return RECORD_MAPPER.mapRow(resultSet);
             }
         } catch (SQLException e) {
             System.err.println("查找正在借阅的记录失败：" + e.getMessage());
@@ -264,35 +446,11 @@ public class BorrowRecordDao {
         return null;
     }
     
-    /**
-     * 从 ResultSet 中提取借阅记录对象
-     * 
-     * @param resultSet 结果集
-     * @return 借阅记录对象
-     * @throws SQLException SQL 异常
-     */
-    private BorrowRecord extractBorrowRecordFromResultSet(ResultSet resultSet) throws SQLException {
-        BorrowRecord record = new BorrowRecord();
-        record.setRecordId(resultSet.getInt("record_id"));
-        record.setUserId(resultSet.getInt("user_id"));
-        record.setBookId(resultSet.getInt("book_id"));
-        record.setBorrowDate(resultSet.getTimestamp("borrow_date"));
-        record.setDueDate(resultSet.getDate("due_date"));
-        record.setReturnDate(resultSet.getTimestamp("return_date"));
-        record.setStatus(resultSet.getString("status"));
-        record.setRemarks(resultSet.getString("remarks"));
-        record.setCreatedAt(resultSet.getTimestamp("created_at"));
-        
-        // 设置关联信息（如果存在）
+    private static void cancelQuietly(PreparedStatement preparedStatement) {
         try {
-            record.setUsername(resultSet.getString("username"));
-            record.setRealName(resultSet.getString("real_name"));
-            record.setBookName(resultSet.getString("book_name"));
-            record.setAuthor(resultSet.getString("author"));
+            preparedStatement.cancel();
         } catch (SQLException e) {
-            // 如果关联字段不存在，忽略异常
+            System.err.println("取消借阅记录查询失败：" + e.getMessage());
         }
-        
-        return record;
     }
 }
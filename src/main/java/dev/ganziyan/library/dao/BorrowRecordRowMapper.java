@@ -0,0 +1,52 @@
+package dev.ganziyan.library.dao;
+
+import dev.ganziyan.library.entity.BorrowRecord;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 借阅记录表的行映射器
+ * 关联查询中的用户名、真实姓名、书名、作者一并读取，查询中没有这些列时保持为null
+ */
+public class BorrowRecordRowMapper extends RowMapper<BorrowRecord> {
+
+    // 列编号，与构造方法中的列名顺序一致
+    private static final int RECORD_ID = 0;
+    private static final int USER_ID = 1;
+    private static final int BOOK_ID = 2;
+    private static final int BORROW_DATE = 3;
+    private static final int DUE_DATE = 4;
+    private static final int RETURN_DATE = 5;
+    private static final int STATUS = 6;
+    private static final int REMARKS = 7;
+    private static final int CREATED_AT = 8;
+    private static final int USERNAME = 9;
+    private static final int REAL_NAME = 10;
+    private static final int BOOK_NAME = 11;
+    private static final int AUTHOR = 12;
+
+    public BorrowRecordRowMapper() {
+        super("record_id", "user_id", "book_id", "borrow_date", "due_date", "return_date", "status", "remarks",
+            "created_at", "username", "real_name", "book_name", "author");
+    }
+
+    @Override
+    public BorrowRecord mapRow(ResultSet resultSet, int[] positions) throws SQLException {
+        BorrowRecord record = new BorrowRecord();
+        record.setRecordId(getInt(resultSet, positions[RECORD_ID]));
+        record.setUserId(getInt(resultSet, positions[USER_ID]));
+        record.setBookId(getInt(resultSet, positions[BOOK_ID]));
+        record.setBorrowDate(getTimestamp(resultSet, positions[BORROW_DATE]));
+        record.setDueDate(getDate(resultSet, positions[DUE_DATE]));
+        record.setReturnDate(getTimestamp(resultSet, positions[RETURN_DATE]));
+        record.setStatus(getString(resultSet, positions[STATUS]));
+        record.setRemarks(getString(resultSet, positions[REMARKS]));
+        record.setCreatedAt(getTimestamp(resultSet, positions[CREATED_AT]));
+        record.setUsername(getString(resultSet, positions[USERNAME]));
+        record.setRealName(getString(resultSet, positions[REAL_NAME]));
+        record.setBookName(getString(resultSet, positions[BOOK_NAME]));
+        record.setAuthor(getString(resultSet, positions[AUTHOR]));
+        return record;
+    }
+}
@@ -0,0 +1,200 @@
+package dev.ganziyan.library.dao;
+
+import dev.ganziyan.library.util.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 数据导出数据访问对象
+ * 按主键顺序流式读取整张表，每行以列值数组交给回调处理，不创建实体对象，也不在内存中保留已读取的行。
+ * 单条查询在 InnoDB 中读取的是一致性快照，导出期间的借还书不会造成前后不一致
+ */
+public class ExportDao {
+
+    // 非流式读取时每次从数据库取回的行数
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    /**
+     * 可以导出的表
+     */
+    public enum Table {
+
+        /**
+         * 图书（不含拼音检索键），列名与批量导入一致，导出的文件可以直接重新导入
+         */
+        BOOKS("books", "图书",
+            "SELECT book_id, book_name, author, publisher, isbn, category, total_quantity, available_quantity, " +
+            "publish_date, price, description, created_at, updated_at FROM books ORDER BY book_id"),
+
+        /**
+         * 用户（不含密码）
+         */
+        USERS("users", "用户",
+            "SELECT user_id, username, real_name, gender, phone, email, user_type, status, max_borrow_count, " +
+            "open_loans, created_at, updated_at FROM users ORDER BY user_id"),
+
+        /**
+         * 借阅记录（包含关联的用户名、姓名、书名和ISBN）
+         */
+        BORROW_RECORDS("borrow_records", "借阅记录",
+            "SELECT br.record_id, br.user_id, u.username, u.real_name, br.book_id, b.book_name, b.isbn, " +
+            "br.borrow_date, br.due_date, br.return_date, br.status, br.remarks, br.created_at " +
+            "FROM borrow_records br " +
+            "JOIN users u ON br.user_id = u.user_id " +
+            "JOIN books b ON br.book_id = b.book_id " +
+            "ORDER BY br.record_id");
+
+        private final String tableName;
+        private final String displayName;
+        private final String sql;
+
+        Table(String tableName, String displayName, String sql) {
+            this.tableName = tableName;
+            this.displayName = displayName;
+            this.sql = sql;
+        }
+
+        /**
+         * 获取表名，也用作命令行参数和默认文件名
+         *
+         * @return 表名
+         */
+        public String getTableName() {
+            return tableName;
+        }
+
+        /**
+         * 获取显示名称
+         *
+         * @return 显示名称
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 逐行处理导出数据的回调
+     */
+    public interface RowHandler {
+
+        /**
+         * 读取第一行之前调用一次
+         *
+         * @param columnNames 列名
+         */
+        void start(String[] columnNames);
+
+        /**
+         * 处理一行（在扫描线程中调用，期间不要访问数据库）
+         *
+         * @param values 列值：Integer、Long、BigDecimal、java.sql.Date、Timestamp 或 String，空值为null；
+         *               数组在各行之间复用，不能保留引用
+         * @return true继续扫描，false提前结束
+         */
+        boolean handle(Object[] values);
+    }
+
+    /**
+     * 流式扫描整张表
+     * 结果集只向前读取：MySQL 上逐行流式读取（fetchSize 为 Integer.MIN_VALUE），其他数据库每次取回 SCAN_FETCH_SIZE 行，
+     * 内存占用与表的大小无关；方法返回前关闭结果集并归还连接。
+     * 流式读取期间连接被独占，不应在事务中调用
+     *
+     * @param table 要导出的表
+     * @param handler 每行的处理器，返回false时提前结束
+     * @return true表示扫描完成（包括提前结束），false表示查询失败
+     */
+    public boolean scan(Table table, RowHandler handler) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        boolean streaming = DBUtil.getStorageBackend().isMySql();
+
+        try {
+            connection = DBUtil.getConnection();
+            preparedStatement = connection.prepareStatement(table.sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL 驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才逐行流式读取
+            preparedStatement.setFetchSize(streaming ? Integer.MIN_VALUE : SCAN_FETCH_SIZE);
+            resultSet = preparedStatement.executeQuery();
+
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            String[] columnNames = new String[columnCount];
+            int[] columnTypes = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columnNames[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+                columnTypes[i] = metaData.getColumnType(i + 1);
+            }
+            handler.start(columnNames);
+
+            Object[] values = new Object[columnCount];
+            while (resultSet.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = readValue(resultSet, i + 1, columnTypes[i]);
+                }
+                if (!handler.handle(values)) {
+                    if (streaming) {
+                        // 流式结果集关闭时会读完剩余的行，提前结束时先取消查询
+                        cancelQuietly(preparedStatement);
+                    }
+                    break;
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("导出" + table.getDisplayName() + "失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, resultSet);
+        }
+    }
+
+    /**
+     * 按列类型读取一个值
+     */
+    private static Object readValue(ResultSet resultSet, int column, int type) throws SQLException {
+        Object value;
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                value = resultSet.getInt(column);
+                break;
+            case Types.BIGINT:
+                value = resultSet.getLong(column);
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return resultSet.getBigDecimal(column);
+            case Types.DATE:
+                return resultSet.getDate(column);
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return resultSet.getTimestamp(column);
+            default:
+                return resultSet.getString(column);
+        }
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static void cancelQuietly(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.cancel();
+        } catch (SQLException e) {
+            System.err.println("取消导出查询失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package dev.ganziyan.library.dao;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 结果集行映射器
+ * 每个结果集只通过 ResultSetMetaData 解析一次各列的位置，之后逐行按列序号读取，
+ * 不再为每一行的每一列按列名查找。
+ * 查询中不存在的列位置为0，读取时返回null（实体对应字段保持为空），
+ * 所以同一个映射器可以用于 SELECT *、只选部分列的列表查询以及带关联字段的查询。
+ * 映射器没有状态，可以在多个线程间共享
+ *
+ * @param <T> 实体类型
+ */
+public abstract class RowMapper<T> {
+
+    /**
+     * 映射器读取的列名（小写），下标即 mapRow 中使用的列编号
+     */
+    private final String[] columns;
+
+    /**
+     * 构造方法
+     *
+     * @param columns 映射器读取的列名
+     */
+    protected RowMapper(String... columns) {
+        this.columns = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            this.columns[i] = columns[i].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 解析结果集中各列的位置，同一个结果集只需解析一次
+     * 列名相同时取第一个，与 ResultSet.findColumn 一致
+     *
+     * @param resultSet 结果集
+     * @return 列位置数组，下标与构造方法中的列顺序一致，结果集中不存在的列为0
+     * @throws SQLException SQL异常
+     */
+    public final int[] resolve(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            labels.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        int[] positions = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer position = labels.get(columns[i]);
+            positions[i] = position != null ? position : 0;
+        }
+        return positions;
+    }
+
+    /**
+     * 映射结果集的当前行（只读取一行时使用）
+     *
+     * @param resultSet 结果集
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    public final T mapRow(ResultSet resultSet) throws SQLException {
+        return mapRow(resultSet, resolve(resultSet));
+    }
+
+    /**
+     * 按已解析的列位置映射结果集的当前行
+     *
+     * @param resultSet 结果集
+     * @param positions resolve() 返回的列位置
+     * @return 实体对象
+     * @throws SQLException SQL异常
+     */
+    public abstract T mapRow(ResultSet resultSet, int[] positions) throws SQLException;
+
+    /**
+     * 读取整数列，SQL NULL 读取为0
+     *
+     * @param resultSet 结果集
+     * @param position 列位置
+     * @return 列的值，列不存在时返回null
+     * @throws SQLException SQL异常
+     */
+    protected static Integer getInt(ResultSet resultSet, int position) throws SQLException {
+        return position != 0 ? resultSet.getInt(position) : null;
+    }
+
+    /**
+     * 读取字符串列
+     *
+     * @param resultSet 结果集
+     * @param position 列位置
+     * @return 列的值，列不存在时返回null
+     * @throws SQLException SQL异常
+     */
+    protected static String getString(ResultSet resultSet, int position) throws SQLException {
+        return position != 0 ? resultSet.getString(position) : null;
+    }
+
+    /**
+     * 读取日期列
+     *
+     * @param resultSet 结果集
+     * @param position 列位置
+     * @return 列的值，列不存在时返回null
+     * @throws SQLException SQL异常
+     */
+    protected static Date getDate(ResultSet resultSet, int position) throws SQLException {
+        return position != 0 ? resultSet.getDate(position) : null;
+    }
+
+    /**
+     * 读取时间戳列
+     *
+     * @param resultSet 结果集
+     * @param position 列位置
+     * @return 列的值，列不存在时返回null
+     * @throws SQLException SQL异常
+     */
+    protected static Timestamp getTimestamp(ResultSet resultSet, int position) throws SQLException {
+        return position != 0 ? resultSet.getTimestamp(position) : null;
+    }
+
+    /**
+     * 读取小数列
+     *
+     * @param resultSet 结果集
+     * @param position 列位置
+     * @return 列的值，列不存在时返回null
+     * @throws SQLException SQL异常
+     */
+    protected static BigDecimal getBigDecimal(ResultSet resultSet, int position) throws SQLException {
+        return position != 0 ? resultSet.getBigDecimal(position) : null;
+    }
+}
@@ -16,6 +16,8 @@ import java.util.List;
  */
 public class UserDao {
     
+    private static final UserRowMapper USER_MAPPER = new UserRowMapper();
+    
     /**
      * 用户登录验证
      * 
@@ -37,7 +39,7 @@ public class UserDao {
             resultSet = preparedStatement.executeQuery();
             
             if (resultSet.next()) {
-                return extractUserFromResultSet(resultSet);
+                return USER_MAPPER.mapRow(resultSet);
             }
         } catch (SQLException e) {
             System.err.println("用户登录验证失败：" + e.getMessage());
@@ -66,8 +68,9 @@ public class UserDao {
             preparedStatement = connection.prepareStatement(sql);
             resultSet = preparedStatement.executeQuery();
             
+            int[] columns = USER_MAPPER.resolve(resultSet);
             while (resultSet.next()) {
-                User user = extractUserFromResultSet(resultSet);
+                User user = USER_MAPPER.mapRow(resultSet, columns);
                 users.add(user);
             }
         } catch (SQLException e) {
@@ -99,7 +102,7 @@ public class UserDao {
             resultSet = preparedStatement.executeQuery();
             
             if (resultSet.next()) {
-                return extractUserFromResultSet(resultSet);
+                return USER_MAPPER.mapRow(resultSet);
             }
         } catch (SQLException e) {
             System.err.println("根据ID查询用户失败：" + e.getMessage());
@@ -130,7 +133,7 @@ public class UserDao {
             resultSet = preparedStatement.executeQuery();
             
             if (resultSet.next()) {
-                return extractUserFromResultSet(resultSet);
+                return USER_MAPPER.mapRow(resultSet);
             }
         } catch (SQLException e) {
             System.err.println("根据用户名查询用户失败：" + e.getMessage());
@@ -218,25 +221,27 @@ public class UserDao {
     }
     
     /**
-     * 删除用户
+     * 借书时增加用户未归还的借阅数量，已达到最大可借数量时不增加
+     * 检查和增加在同一条SQL中完成，同一用户并发借书时由行锁保证不会超出上限
      * 
      * @param userId 用户ID
-     * @return true表示删除成功，false表示删除失败
+     * @return true表示增加成功，false表示已达到上限或用户不存在
      */
-    public boolean delete(Integer userId) {
+    public boolean increaseOpenLoans(Integer userId) {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         
         try {
             connection = DBUtil.getConnection();
-            String sql = "DELETE FROM users WHERE user_id = ?";
+            String sql = "UPDATE users SET open_loans = open_loans + 1 " +
+                        "WHERE user_id = ? AND (max_borrow_count IS NULL OR open_loans < max_borrow_count)";
             preparedStatement = connection.prepareStatement(sql);
             preparedStatement.setInt(1, userId);
             
             int rows = preparedStatement.executeUpdate();
             return rows > 0;
         } catch (SQLException e) {
-            System.err.println("删除用户失败：" + e.getMessage());
+            System.err.println("增加用户借阅数量失败：" + e.getMessage());
             e.printStackTrace();
             return false;
         } finally {
@@ -245,26 +250,58 @@ public class UserDao {
     }
     
     /**
-     * 从ResultSet中提取用户对象
+     * 还书时减少用户未归还的借阅数量
+     * 返回值区分"数量已为0"和数据库出错：前者不影响还书，后者（如锁等待超时）必须回滚还书事务，
+     * 否则用户的未归还数量会永久多出一本
      * 
-     * @param resultSet 结果集
-     * @return 用户对象
-     * @throws SQLException SQL异常
+     * @param userId 用户ID
+     * @return 1表示减少成功，0表示用户不存在或数量已为0，-1表示数据库出错
      */
-    private User extractUserFromResultSet(ResultSet resultSet) throws SQLException {
-        User user = new User();
-        user.setUserId(resultSet.getInt("user_id"));
-        user.setUsername(resultSet.getString("username"));
-        user.setPassword(resultSet.getString("password"));
-        user.setRealName(resultSet.getString("real_name"));
-        user.setGender(resultSet.getString("gender"));
-        user.setPhone(resultSet.getString("phone"));
-        user.setEmail(resultSet.getString("email"));
-        user.setUserType(resultSet.getString("user_type"));
-        user.setStatus(resultSet.getString("status"));
-        user.setMaxBorrowCount(resultSet.getInt("max_borrow_count"));
-        user.setCreatedAt(resultSet.getTimestamp("created_at"));
-        user.setUpdatedAt(resultSet.getTimestamp("updated_at"));
-        return user;
+    public int decreaseOpenLoans(Integer userId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "UPDATE users SET open_loans = open_loans - 1 " +
+                        "WHERE user_id = ? AND open_loans > 0";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, userId);
+            
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("减少用户借阅数量失败：" + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
+    }
+    
+    /**
+     * 删除用户
+     * 
+     * @param userId 用户ID
+     * @return true表示删除成功，false表示删除失败
+     */
+    public boolean delete(Integer userId) {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        
+        try {
+            connection = DBUtil.getConnection();
+            String sql = "DELETE FROM users WHERE user_id = ?";
+            preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setInt(1, userId);
+            
+            int rows = preparedStatement.executeUpdate();
+            return rows > 0;
+        } catch (SQLException e) {
+            System.err.println("删除用户失败：" + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DBUtil.closeAll(connection, preparedStatement, null);
+        }
     }
 }
@@ -0,0 +1,51 @@
+package dev.ganziyan.library.dao;
+
+import dev.ganziyan.library.entity.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 用户表的行映射器
+ */
+public class UserRowMapper extends RowMapper<User> {
+
+    // 列编号，与构造方法中的列名顺序一致
+    private static final int USER_ID = 0;
+    private static final int USERNAME = 1;
+    private static final int PASSWORD = 2;
+    private static final int REAL_NAME = 3;
+    private static final int GENDER = 4;
+    private static final int PHONE = 5;
+    private static final int EMAIL = 6;
+    private static final int USER_TYPE = 7;
+    private static final int STATUS = 8;
+    private static final int MAX_BORROW_COUNT = 9;
+    private static final int OPEN_LOANS = 10;
+    private static final int CREATED_AT = 11;
+    private static final int UPDATED_AT = 12;
+
+    public UserRowMapper() {
+        super("user_id", "username", "password", "real_name", "gender", "phone", "email", "user_type", "status",
+            "max_borrow_count", "open_loans", "created_at", "updated_at");
+    }
+
+    @Override
+    public User mapRow(ResultSet resultSet, int[] positions) throws SQLException {
+        User user = new User();
+        user.setUserId(getInt(resultSet, positions[USER_ID]));
+        user.setUsername(getString(resultSet, positions[USERNAME]));
+        user.setPassword(getString(resultSet, positions[PASSWORD]));
+        user.setRealName(getString(resultSet, positions[REAL_NAME]));
+        user.setGender(getString(resultSet, positions[GENDER]));
+        user.setPhone(getString(resultSet, positions[PHONE]));
+        user.setEmail(getString(resultSet, positions[EMAIL]));
+        user.setUserType(getString(resultSet, positions[USER_TYPE]));
+        user.setStatus(getString(resultSet, positions[STATUS]));
+        user.setMaxBorrowCount(getInt(resultSet, positions[MAX_BORROW_COUNT]));
+        user.setOpenLoans(getInt(resultSet, positions[OPEN_LOANS]));
+        user.setCreatedAt(getTimestamp(resultSet, positions[CREATED_AT]));
+        user.setUpdatedAt(getTimestamp(resultSet, positions[UPDATED_AT]));
+        return user;
+    }
+}
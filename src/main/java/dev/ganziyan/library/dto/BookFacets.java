@@ -0,0 +1,112 @@
+package dev.ganziyan.library.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图书搜索结果的分面统计
+ * 分类统计不受分类筛选影响，出版社和可借统计只包含所选分类的图书
+ */
+@Data
+public class BookFacets {
+
+    /**
+     * 各分类的图书数量（按数量从多到少排列）
+     */
+    private Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+
+    /**
+     * 各出版社的图书数量（按数量从多到少排列）
+     */
+    private Map<String, Integer> publisherCounts = new LinkedHashMap<>();
+
+    /**
+     * 可借（可借数量大于0）的图书数量
+     */
+    private int availableCount;
+
+    /**
+     * 已借完的图书数量
+     */
+    private int unavailableCount;
+
+    /**
+     * 符合条件的图书总数
+     *
+     * @return 可借与已借完数量之和
+     */
+    public int getTotal() {
+        return availableCount + unavailableCount;
+    }
+
+    /**
+     * 累加分类数量，分类为空的图书不计入
+     *
+     * @param category 分类
+     * @param count 数量
+     */
+    public void addCategory(String category, int count) {
+        add(categoryCounts, category, count);
+    }
+
+    /**
+     * 累加出版社数量，出版社为空的图书不计入
+     *
+     * @param publisher 出版社
+     * @param count 数量
+     */
+    public void addPublisher(String publisher, int count) {
+        add(publisherCounts, publisher, count);
+    }
+
+    /**
+     * 累加可借/已借完数量
+     *
+     * @param available 是否可借
+     * @param count 数量
+     */
+    public void addAvailability(boolean available, int count) {
+        if (available) {
+            availableCount += count;
+        } else {
+            unavailableCount += count;
+        }
+    }
+
+    /**
+     * 把分类和出版社统计按数量从多到少重新排列
+     */
+    public void sortByCount() {
+        categoryCounts = sorted(categoryCounts);
+        publisherCounts = sorted(publisherCounts);
+    }
+
+    private static void add(Map<String, Integer> counts, String name, int count) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        Integer current = counts.get(name);
+        counts.put(name, current == null ? count : current + count);
+    }
+
+    private static Map<String, Integer> sorted(Map<String, Integer> counts) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b) {
+                return Integer.compare(b.getValue(), a.getValue());
+            }
+        });
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
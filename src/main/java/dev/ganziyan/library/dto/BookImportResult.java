@@ -0,0 +1,47 @@
+package dev.ganziyan.library.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图书批量导入结果（导入过程中也用于报告进度）
+ */
+@Data
+@NoArgsConstructor
+public class BookImportResult {
+
+    /**
+     * 已读取的数据行数（不含表头和空行）
+     */
+    private int totalRows;
+
+    /**
+     * 新增的图书数量
+     */
+    private int insertedCount;
+
+    /**
+     * 按ISBN更新的已有图书数量
+     */
+    private int updatedCount;
+
+    /**
+     * 被拒绝的行数
+     */
+    private int rejectedCount;
+
+    /**
+     * 拒绝文件的路径，没有被拒绝的行时为null
+     */
+    private String rejectFile;
+
+    /**
+     * 是否被中途取消（已提交的批次不会撤销）
+     */
+    private boolean cancelled;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
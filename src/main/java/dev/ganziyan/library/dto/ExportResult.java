@@ -0,0 +1,37 @@
+package dev.ganziyan.library.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 数据导出结果
+ */
+@Data
+@NoArgsConstructor
+public class ExportResult {
+
+    /**
+     * 已导出的行数（不含表头）
+     */
+    private long rowCount;
+
+    /**
+     * 导出文件的路径，取消时为null
+     */
+    private String file;
+
+    /**
+     * 导出文件的大小（字节，压缩后）
+     */
+    private long fileSize;
+
+    /**
+     * 是否被中途取消（取消后不生成文件）
+     */
+    private boolean cancelled;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,25 @@
+package dev.ganziyan.library.dto;
+
+import dev.ganziyan.library.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分面搜索结果：一页图书以及整个搜索结果的分面统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedSearchResult {
+
+    /**
+     * 本页图书
+     */
+    private Page<Book> page;
+
+    /**
+     * 分面统计，统计失败时为null
+     */
+    private BookFacets facets;
+}
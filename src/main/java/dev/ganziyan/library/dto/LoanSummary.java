@@ -0,0 +1,72 @@
+package dev.ganziyan.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户当前借阅情况摘要（未归还的借阅）
+ * 由 LoanSummaryCache 创建，缓存中的实例不会再被修改
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSummary {
+
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+
+    /**
+     * 正在借阅的图书ID -> 应还日期（只读）
+     */
+    private Map<Integer, Date> dueDates;
+
+    /**
+     * 正在借阅的图书ID
+     *
+     * @return 图书ID集合（只读）
+     */
+    public Set<Integer> getBookIds() {
+        return dueDates.keySet();
+    }
+
+    /**
+     * 未归还的借阅数量
+     *
+     * @return 借阅数量
+     */
+    public int getOpenLoanCount() {
+        return dueDates.size();
+    }
+
+    /**
+     * 判断是否正在借阅指定图书
+     *
+     * @param bookId 图书ID
+     * @return true表示正在借阅
+     */
+    public boolean isBorrowing(Integer bookId) {
+        return dueDates.containsKey(bookId);
+    }
+
+    /**
+     * 最早的应还日期
+     *
+     * @return 应还日期，没有借阅时返回null
+     */
+    public Date getEarliestDueDate() {
+        Date earliest = null;
+        for (Date dueDate : dueDates.values()) {
+            if (dueDate != null && (earliest == null || dueDate.before(earliest))) {
+                earliest = dueDate;
+            }
+        }
+        return earliest;
+    }
+}
@@ -0,0 +1,39 @@
+package dev.ganziyan.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分页结果（键集分页）
+ * 不使用 OFFSET，而是记录本页最后一行的排序键作为游标，下一页从游标之后继续查询，
+ * 因此翻到再深的页面也只需扫描一页的数据
+ *
+ * @param <T> 数据类型
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Page<T> {
+
+    /**
+     * 本页数据
+     */
+    private List<T> items;
+
+    /**
+     * 下一页的游标（本页最后一行的排序键），没有下一页时为null
+     */
+    private Integer nextCursor;
+
+    /**
+     * 判断是否还有下一页
+     *
+     * @return true表示还有下一页
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.ganziyan.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 搜索框自动补全的候选项
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+    /**
+     * 候选项类型：书名
+     */
+    public static final String TYPE_TITLE = "书名";
+
+    /**
+     * 候选项类型：作者
+     */
+    public static final String TYPE_AUTHOR = "作者";
+
+    /**
+     * 候选项类型：ISBN
+     */
+    public static final String TYPE_ISBN = "ISBN";
+
+    /**
+     * 补全文本
+     */
+    private String text;
+
+    /**
+     * 候选项类型（书名/作者/ISBN）
+     */
+    private String type;
+
+    /**
+     * 对应的图书ID（作者候选项对应多本图书，为null）
+     */
+    private Integer bookId;
+
+    /**
+     * 热门度（累计借阅次数）
+     */
+    private int popularity;
+
+    @Override
+    public String toString() {
+        return text + "（" + type + "）";
+    }
+}
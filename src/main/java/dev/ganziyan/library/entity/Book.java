@@ -72,6 +72,11 @@ public class Book {
      */
     private String description;
     
+    /**
+     * 拼音检索键（书名和作者的全拼及首字母，由 BookDao 在新增和修改时生成）
+     */
+    private String pinyinKeys;
+    
     /**
      * 创建时间
      */
@@ -65,6 +65,11 @@ public class User {
      */
     private Integer maxBorrowCount;
     
+    /**
+     * 未归还的借阅数量（由借书、还书在同一事务中维护）
+     */
+    private Integer openLoans;
+    
     /**
      * 注册时间
      */
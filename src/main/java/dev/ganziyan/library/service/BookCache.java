@@ -0,0 +1,485 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.util.DBUtil;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 图书读穿透缓存
+ * 按图书ID和ISBN缓存单本图书的查询结果，未命中时查询数据库并放入缓存：
+ * 1. 按估算的内存占用（而不是条目数）限制容量，超出时淘汰最久未访问的图书（LRU）
+ * 2. 条目写入 cache.book.ttlSeconds 秒后过期，兜底其他途径（如直接执行SQL）对数据的修改
+ * 3. 图书增删改、借还书改变库存后由调用方按图书ID清除对应条目，借还书在事务提交后才清除
+ * 4. 每次清除都会递增版本号，查询数据库期间发生过清除的结果不放入缓存，避免旧数据覆盖刚清除的条目
+ * 缓存中保存的是副本，调用方修改返回的图书对象不会影响缓存。
+ *
+ * 多个终端共用数据库时，本进程的清除只覆盖本终端的修改。startCoherencePolling() 启动后台检查，
+ * 按 updated_at 水位线增量查询其他终端修改过的图书，更新时间或可借数量与缓存不一致的条目会被清除，
+ * 缓存数据落后于数据库的时间不超过检查间隔；其他终端删除的图书在条目过期前仍可能查到。
+ * 检查到的修改同时通知 ChangeListener（BookService 用它更新内存检索索引和自动补全索引），
+ * 因此缓存关闭时也会检查。
+ * 命中率等统计信息可在 JConsole 中查看 MBean dev.ganziyan.library:type=BookCache
+ */
+public class BookCache implements BookCacheMXBean {
+
+    private static final BookCache INSTANCE = new BookCache(new BookDao(),
+        Boolean.parseBoolean(DBUtil.getProperty("cache.book.enabled", "true")),
+        DBUtil.getIntProperty("cache.book.maxKilobytes", 8192) * 1024L,
+        DBUtil.getIntProperty("cache.book.ttlSeconds", 300) * 1000L);
+
+    // 每个条目的固定开销估算（图书对象、数值和日期字段、两个哈希表的节点）
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+
+    // 每个字符串对象的固定开销估算
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    // 每次检查最多读取的修改行数，超过时（如批量导入）直接清空缓存
+    private static final int MAX_CHANGES_PER_POLL = 1000;
+
+    // 检查窗口向前重叠的时间（毫秒）：updated_at 在语句执行时取值、事务提交后才可见，
+    // 提交较慢的修改可能落在上次的水位线之前
+    private static final long POLL_OVERLAP_MILLIS = 10000;
+
+    static {
+        registerMBean();
+    }
+
+    private final BookDao bookDao;
+    private final boolean enabled;
+    private final long maxWeightBytes;
+    private final long ttlMillis;
+
+    // 图书ID -> 缓存条目，按访问顺序排列（最久未访问的在前）
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // ISBN -> 图书ID，只包含已缓存的图书
+    private final Map<String, Integer> isbnIndex = new HashMap<>();
+
+    private long weightBytes;
+
+    // 清除版本号，每次清除时递增
+    private long version;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expiredCount;
+    private long invalidationCount;
+    private long remoteInvalidationCount;
+
+    private final AtomicBoolean pollingStarted = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    // 修改通知，没有时为null
+    private volatile ChangeListener changeListener;
+
+    // 已检查到的最新 updated_at（仅在检查线程中访问）
+    private Timestamp watermark;
+
+    /**
+     * 其他终端修改图书的通知（在检查线程中调用）
+     */
+    public interface ChangeListener {
+
+        /**
+         * 发现修改过的图书（也包括本终端的修改；检查窗口前后重叠，同一修改可能通知多次）
+         *
+         * @param books 修改过的图书，只填充了ID、检索字段（书名、作者、出版社、分类、ISBN、拼音检索键）、可借数量和更新时间
+         */
+        void booksChanged(List<Book> books);
+
+        /**
+         * 一次检查到的修改过多（如其他终端批量导入），没有逐本通知，需要全量刷新
+         */
+        void tooManyChanges();
+    }
+
+    BookCache(BookDao bookDao, boolean enabled, long maxWeightBytes, long ttlMillis) {
+        this.bookDao = bookDao;
+        this.enabled = enabled;
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 获取全局缓存实例
+     *
+     * @return 缓存实例
+     */
+    public static BookCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 根据ID查询图书，优先从缓存读取
+     *
+     * @param bookId 图书ID
+     * @return 图书对象（副本），不存在时返回null
+     */
+    public Book getById(Integer bookId) {
+        if (!enabled || bookId == null) {
+            return bookDao.findById(bookId);
+        }
+        long loadVersion;
+        synchronized (this) {
+            Book cached = lookup(bookId);
+            if (cached != null) {
+                return cached;
+            }
+            loadVersion = version;
+        }
+        Book book = bookDao.findById(bookId);
+        if (book != null) {
+            put(book, loadVersion);
+        }
+        return book;
+    }
+
+    /**
+     * 根据ISBN查询图书，优先从缓存读取
+     *
+     * @param isbn ISBN编号
+     * @return 图书对象（副本），不存在时返回null
+     */
+    public Book getByIsbn(String isbn) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            return null;
+        }
+        if (!enabled) {
+            return bookDao.findByIsbn(isbn);
+        }
+        long loadVersion;
+        synchronized (this) {
+            Integer bookId = isbnIndex.get(isbn);
+            Book cached = bookId == null ? null : lookup(bookId);
+            if (cached != null) {
+                return cached;
+            }
+            if (bookId == null) {
+                missCount++;
+            }
+            loadVersion = version;
+        }
+        Book book = bookDao.findByIsbn(isbn);
+        if (book != null) {
+            put(book, loadVersion);
+        }
+        return book;
+    }
+
+    /**
+     * 清除指定图书的缓存条目（图书被修改、删除或库存变化后调用）
+     *
+     * @param bookId 图书ID
+     */
+    public synchronized void invalidate(Integer bookId) {
+        version++;
+        if (removeEntry(bookId)) {
+            invalidationCount++;
+        }
+    }
+
+    /**
+     * 在后台按固定间隔检查其他终端修改过的图书，重复调用只会启动一次
+     *
+     * @param intervalSeconds 检查间隔（秒），即缓存数据最多落后于数据库的时间
+     * @param listener 修改通知，可以为null
+     */
+    public void startCoherencePolling(long intervalSeconds, ChangeListener listener) {
+        if (!pollingStarted.compareAndSet(false, true)) {
+            return;
+        }
+        changeListener = listener;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "book-cache-coherence");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pollChanges();
+                } catch (RuntimeException e) {
+                    // 异常会终止定时任务，记录后等待下次检查
+                    System.err.println("检查图书修改失败：" + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }, 0, Math.max(1, intervalSeconds), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 检查一次水位线之后修改过的图书，清除与数据库不一致的条目，并通知 ChangeListener
+     * 第一次调用只记录水位线（此前缓存中的数据都是刚从数据库读取的）
+     *
+     * @return 清除的条目数
+     */
+    int pollChanges() {
+        if (watermark == null) {
+            Timestamp latest = bookDao.findLatestUpdateTime();
+            watermark = latest != null ? latest : new Timestamp(0);
+            return 0;
+        }
+        List<Book> changes = bookDao.findChangedSince(
+            new Timestamp(watermark.getTime() - POLL_OVERLAP_MILLIS), MAX_CHANGES_PER_POLL);
+        if (changes == null || changes.isEmpty()) {
+            return 0;
+        }
+
+        ChangeListener listener = changeListener;
+        if (changes.size() >= MAX_CHANGES_PER_POLL) {
+            // 先取最新的更新时间，再清空和全量刷新，之后的修改由下次检查发现；
+            // 检查窗口向前重叠，批量修改后的 POLL_OVERLAP_MILLIS 内可能再次全量刷新
+            Timestamp latest = bookDao.findLatestUpdateTime();
+            int invalidated;
+            synchronized (this) {
+                invalidated = entries.size();
+                remoteInvalidationCount += invalidated;
+                clear();
+            }
+            if (listener != null) {
+                listener.tooManyChanges();
+            }
+            if (latest != null && latest.after(watermark)) {
+                watermark = latest;
+            }
+            return invalidated;
+        }
+
+        int invalidated = 0;
+        synchronized (this) {
+            // 正在查询数据库的线程可能读到了修改前的数据，递增版本号使其结果不放入缓存
+            version++;
+            for (Book change : changes) {
+                Entry entry = entries.get(change.getBookId());
+                if (entry != null && !isSameVersion(entry.book, change)) {
+                    removeEntry(change.getBookId());
+                    invalidated++;
+                }
+            }
+            invalidationCount += invalidated;
+            remoteInvalidationCount += invalidated;
+        }
+        if (listener != null) {
+            listener.booksChanged(changes);
+        }
+        Timestamp latest = changes.get(changes.size() - 1).getUpdatedAt();
+        if (latest != null && latest.after(watermark)) {
+            watermark = latest;
+        }
+        return invalidated;
+    }
+
+    /**
+     * 缓存的图书与数据库中的更新时间和可借数量是否一致
+     * updated_at 只精确到秒，同一秒内的多次修改需要靠可借数量区分
+     */
+    private static boolean isSameVersion(Book cached, Book current) {
+        return current.getUpdatedAt() != null && current.getUpdatedAt().equals(cached.getUpdatedAt())
+            && current.getAvailableQuantity().equals(cached.getAvailableQuantity());
+    }
+
+    @Override
+    public synchronized void clear() {
+        version++;
+        invalidationCount += entries.size();
+        entries.clear();
+        isbnIndex.clear();
+        weightBytes = 0;
+    }
+
+    /**
+     * 查找未过期的条目并统计命中（调用方持有锁）
+     *
+     * @return 图书副本，未命中时返回null
+     */
+    private Book lookup(Integer bookId) {
+        Entry entry = entries.get(bookId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+            removeEntry(bookId);
+            expiredCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return copyOf(entry.book);
+    }
+
+    /**
+     * 放入缓存，查询数据库期间发生过清除时放弃
+     */
+    private synchronized void put(Book book, long loadVersion) {
+        if (loadVersion != version) {
+            return;
+        }
+        int weight = estimateWeight(book);
+        if (weight > maxWeightBytes) {
+            return;
+        }
+        removeEntry(book.getBookId());
+        if (book.getIsbn() != null) {
+            Integer previous = isbnIndex.get(book.getIsbn());
+            if (previous != null) {
+                removeEntry(previous);
+            }
+            isbnIndex.put(book.getIsbn(), book.getBookId());
+        }
+        entries.put(book.getBookId(), new Entry(copyOf(book), weight, System.currentTimeMillis()));
+        weightBytes += weight;
+
+        Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+        while (weightBytes > maxWeightBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            forget(eldest);
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 移除条目（调用方持有锁）
+     *
+     * @return true表示条目存在
+     */
+    private boolean removeEntry(Integer bookId) {
+        Entry entry = entries.remove(bookId);
+        if (entry == null) {
+            return false;
+        }
+        forget(entry);
+        return true;
+    }
+
+    /**
+     * 条目从 entries 中移除后，同步更新ISBN索引和占用大小
+     */
+    private void forget(Entry entry) {
+        String isbn = entry.book.getIsbn();
+        if (isbn != null && entry.book.getBookId().equals(isbnIndex.get(isbn))) {
+            isbnIndex.remove(isbn);
+        }
+        weightBytes -= entry.weight;
+    }
+
+    /**
+     * 估算图书对象的内存占用（字符串按每字符2字节计算）
+     */
+    private static int estimateWeight(Book book) {
+        return ENTRY_OVERHEAD_BYTES
+            + weightOf(book.getBookName()) + weightOf(book.getAuthor()) + weightOf(book.getPublisher())
+            + weightOf(book.getIsbn()) + weightOf(book.getCategory()) + weightOf(book.getDescription())
+            + weightOf(book.getPinyinKeys());
+    }
+
+    private static int weightOf(String text) {
+        return text == null ? 0 : STRING_OVERHEAD_BYTES + text.length() * 2;
+    }
+
+    private static Book copyOf(Book book) {
+        return new Book(book.getBookId(), book.getBookName(), book.getAuthor(), book.getPublisher(),
+            book.getIsbn(), book.getCategory(), book.getTotalQuantity(), book.getAvailableQuantity(),
+            book.getPublishDate(), book.getPrice(), book.getDescription(), book.getPinyinKeys(),
+            book.getCreatedAt(), book.getUpdatedAt());
+    }
+
+    @Override
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    @Override
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    @Override
+    public synchronized long getRemoteInvalidationCount() {
+        return remoteInvalidationCount;
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    @Override
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    /**
+     * 将缓存注册到 JMX，可通过 JConsole 等工具查看
+     */
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                new ObjectName("dev.ganziyan.library:type=BookCache"));
+        } catch (JMException e) {
+            System.err.println("注册图书缓存监控失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        private final Book book;
+        private final int weight;
+        private final long loadedAt;
+
+        private Entry(Book book, int weight, long loadedAt) {
+            this.book = book;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.ganziyan.library.service;
+
+/**
+ * 图书缓存监控接口
+ * 通过 JMX 暴露缓存的命中率和容量（ObjectName：dev.ganziyan.library:type=BookCache）
+ */
+public interface BookCacheMXBean {
+
+    /**
+     * 获取累计命中次数
+     */
+    long getHitCount();
+
+    /**
+     * 获取累计未命中次数（包括已过期的条目）
+     */
+    long getMissCount();
+
+    /**
+     * 获取命中率（0 ~ 1），尚无查询时为0
+     */
+    double getHitRate();
+
+    /**
+     * 获取因容量不足被淘汰的条目数
+     */
+    long getEvictionCount();
+
+    /**
+     * 获取因过期被移除的条目数
+     */
+    long getExpiredCount();
+
+    /**
+     * 获取因图书修改被清除的条目数
+     */
+    long getInvalidationCount();
+
+    /**
+     * 获取因其他终端修改图书被清除的条目数（已计入 getInvalidationCount()）
+     */
+    long getRemoteInvalidationCount();
+
+    /**
+     * 获取当前缓存的图书数量
+     */
+    int getSize();
+
+    /**
+     * 获取当前缓存内容的估算大小（字节）
+     */
+    long getWeightBytes();
+
+    /**
+     * 获取缓存容量（字节）
+     */
+    long getMaxWeightBytes();
+
+    /**
+     * 清空缓存（如直接修改数据库后）
+     */
+    void clear();
+}
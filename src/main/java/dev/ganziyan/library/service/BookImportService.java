@@ -0,0 +1,613 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.dto.BookImportResult;
+import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.util.CsvReader;
+import dev.ganziyan.library.util.CsvWriter;
+import dev.ganziyan.library.util.DBUtil;
+import dev.ganziyan.library.util.TransactionManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 图书批量导入服务
+ * 从 CSV 文件（第一行为表头）流式读取图书，逐行校验后分批写入数据库：
+ * 1. 每批 import.book.chunkSize 行在一个事务中用 JDBC 批处理插入新图书、按ISBN处理已有图书
+ * 2. 一批写入失败时（如其他终端同时添加了相同ISBN的图书）回滚该批，再逐行重试，只拒绝无法写入的行
+ * 3. 校验失败、ISBN冲突（拒绝模式）和写入失败的行连同行号、原因写入拒绝文件（原文件名.rejects.csv）
+ * 4. 每批提交后报告进度，可以中途取消，已提交的批次保留
+ * 导入结束后重建已启用的内存检索索引和自动补全索引，并清除被更新图书的缓存。
+ * 表头可以使用列名或中文名称：book_name/书名、author/作者（必需），publisher/出版社、isbn/ISBN、
+ * category/分类、total_quantity/总数量（新增图书未填写时为1）、publish_date/出版日期（yyyy-MM-dd）、
+ * price/价格、description/简介；其他列忽略
+ * 也可以在命令行中运行（见 main 方法），不需要启动图形界面
+ */
+public class BookImportService {
+
+    /**
+     * 每批写入的行数
+     */
+    private static final int CHUNK_SIZE = Math.max(1, DBUtil.getIntProperty("import.book.chunkSize", 1000));
+
+    // 列编号，与 COLUMN_NAMES 的顺序一致
+    private static final int BOOK_NAME = 0;
+    private static final int AUTHOR = 1;
+    private static final int PUBLISHER = 2;
+    private static final int ISBN = 3;
+    private static final int CATEGORY = 4;
+    private static final int TOTAL_QUANTITY = 5;
+    private static final int PUBLISH_DATE = 6;
+    private static final int PRICE = 7;
+    private static final int DESCRIPTION = 8;
+
+    // 每列的列名和中文名称
+    private static final String[][] COLUMN_NAMES = {
+        {"book_name", "书名"}, {"author", "作者"}, {"publisher", "出版社"}, {"isbn", "ISBN"}, {"category", "分类"},
+        {"total_quantity", "总数量"}, {"publish_date", "出版日期"}, {"price", "价格"}, {"description", "简介"}
+    };
+
+    // 文本列的最大长度，与 books 表一致（0表示不检查）
+    private static final int[] MAX_LENGTHS = {200, 100, 100, 0, 50, 0, 0, 0, 0};
+
+    // DECIMAL(10, 2) 能保存的最大价格
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    /**
+     * ISBN 已存在时的处理方式
+     */
+    public enum ConflictMode {
+
+        /**
+         * 用文件中的内容更新已有图书（文件中为空的可选列保留原值）
+         */
+        UPSERT,
+
+        /**
+         * 拒绝该行，写入拒绝文件
+         */
+        REJECT
+    }
+
+    /**
+     * 导入进度回调，每批提交后调用
+     */
+    public interface ProgressListener {
+
+        /**
+         * 报告进度
+         *
+         * @param progress 目前为止的导入结果
+         * @param bytesRead 已读取的文件字节数
+         * @return true表示继续，false表示取消剩余的行
+         */
+        boolean progress(BookImportResult progress, long bytesRead);
+    }
+
+    private final BookDao bookDao = new BookDao();
+
+    /**
+     * 从 CSV 文件导入图书
+     *
+     * @param file CSV 文件
+     * @param charset 文件编码
+     * @param mode ISBN 已存在时的处理方式
+     * @param listener 进度回调，可以为null
+     * @return 导入结果
+     * @throws IOException 读取文件或写入拒绝文件失败，或表头缺少必需的列（此前已提交的批次保留）
+     * @throws SQLException 无法获取数据库连接（此前已提交的批次保留）
+     */
+    public BookImportResult importBooks(File file, Charset charset, ConflictMode mode, ProgressListener listener)
+            throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        BookImportResult result = new BookImportResult();
+        CountingInputStream input = new CountingInputStream(new FileInputStream(file));
+        CsvReader reader = new CsvReader(new InputStreamReader(input, charset));
+        RejectFile rejects = null;
+        try {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IOException("文件为空");
+            }
+            int[] columns = resolveColumns(header);
+            rejects = new RejectFile(rejectFileOf(file), charset, header);
+
+            // ISBN -> 首次出现的行号，用于发现文件内重复的ISBN
+            Map<String, Long> isbnLines = new HashMap<>();
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            List<String> fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (isBlankRecord(fields)) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+                ImportRow row = new ImportRow(reader.getRecordLineNumber(), fields);
+                String reason = parse(row, columns);
+                if (reason == null && row.book.getIsbn() != null) {
+                    Long firstLine = isbnLines.get(row.book.getIsbn());
+                    if (firstLine != null) {
+                        reason = "ISBN与第 " + firstLine + " 行重复";
+                    } else {
+                        isbnLines.put(row.book.getIsbn(), row.lineNumber);
+                    }
+                }
+                if (reason != null) {
+                    row.reason = reason;
+                    rejects.write(row);
+                    result.setRejectedCount(result.getRejectedCount() + 1);
+                    continue;
+                }
+
+                chunk.add(row);
+                if (chunk.size() >= CHUNK_SIZE) {
+                    writeChunk(chunk, mode, result, rejects);
+                    chunk.clear();
+                    if (listener != null && !listener.progress(result, input.getCount())) {
+                        result.setCancelled(true);
+                        break;
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, mode, result, rejects);
+                if (listener != null) {
+                    listener.progress(result, input.getCount());
+                }
+            }
+        } finally {
+            reader.close();
+            if (rejects != null) {
+                rejects.close();
+                result.setRejectFile(rejects.path());
+            }
+            if (result.getInsertedCount() + result.getUpdatedCount() > 0) {
+                refreshIndexes();
+            }
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+
+    /**
+     * 写入一批图书并累计结果
+     */
+    private void writeChunk(List<ImportRow> rows, ConflictMode mode, BookImportResult result, RejectFile rejects)
+            throws IOException, SQLException {
+        ChunkOutcome outcome = writeInTransaction(rows, mode);
+        if (outcome == null) {
+            // 整批回滚后逐行重试，找出无法写入的行
+            outcome = new ChunkOutcome();
+            for (ImportRow row : rows) {
+                ChunkOutcome single = writeInTransaction(Collections.singletonList(row), mode);
+                if (single != null) {
+                    outcome.add(single);
+                } else {
+                    row.reason = "写入数据库失败";
+                    outcome.rejected.add(row);
+                }
+            }
+        }
+
+        for (Integer bookId : outcome.updatedIds) {
+            BookCache.getInstance().invalidate(bookId);
+        }
+        for (ImportRow row : outcome.rejected) {
+            rejects.write(row);
+        }
+        result.setInsertedCount(result.getInsertedCount() + outcome.inserted);
+        result.setUpdatedCount(result.getUpdatedCount() + outcome.updatedIds.size());
+        result.setRejectedCount(result.getRejectedCount() + outcome.rejected.size());
+    }
+
+    /**
+     * 在一个事务中写入若干行
+     *
+     * @return 写入结果，写入失败（事务已回滚）时返回null
+     */
+    private ChunkOutcome writeInTransaction(final List<ImportRow> rows, final ConflictMode mode) throws SQLException {
+        final ChunkOutcome outcome = new ChunkOutcome();
+        boolean written = TransactionManager.execute(() -> {
+            if (!writeRows(rows, mode, outcome)) {
+                TransactionManager.setRollbackOnly();
+                return false;
+            }
+            return true;
+        });
+        return written ? outcome : null;
+    }
+
+    /**
+     * 查询已存在的ISBN，批量插入新图书，按冲突处理方式更新或拒绝已有图书
+     *
+     * @return true表示写入成功，false表示数据库操作失败
+     */
+    private boolean writeRows(List<ImportRow> rows, ConflictMode mode, ChunkOutcome outcome) {
+        List<String> isbns = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (row.book.getIsbn() != null) {
+                isbns.add(row.book.getIsbn());
+            }
+        }
+        Map<String, Integer> existingIds = bookDao.findIdsByIsbns(isbns);
+        if (existingIds == null) {
+            return false;
+        }
+
+        List<Book> inserts = new ArrayList<>();
+        List<ImportRow> updates = new ArrayList<>();
+        for (ImportRow row : rows) {
+            Integer existingId = row.book.getIsbn() != null ? existingIds.get(row.book.getIsbn()) : null;
+            if (existingId == null) {
+                if (row.book.getTotalQuantity() == null) {
+                    row.book.setTotalQuantity(1);
+                }
+                inserts.add(row.book);
+            } else if (mode == ConflictMode.UPSERT) {
+                row.book.setBookId(existingId);
+                updates.add(row);
+            } else {
+                row.reason = "ISBN已存在（图书ID " + existingId + "）";
+                outcome.rejected.add(row);
+            }
+        }
+
+        if (!inserts.isEmpty() && !bookDao.addBatch(inserts)) {
+            return false;
+        }
+        outcome.inserted = inserts.size();
+
+        if (!updates.isEmpty()) {
+            List<Book> books = new ArrayList<>(updates.size());
+            for (ImportRow row : updates) {
+                books.add(row.book);
+            }
+            int[] counts = bookDao.updateByIsbnBatch(books);
+            if (counts == null) {
+                return false;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                ImportRow row = updates.get(i);
+                if (counts[i] == 0) {
+                    row.reason = "总数量少于已借出的数量";
+                    outcome.rejected.add(row);
+                } else {
+                    outcome.updatedIds.add(row.book.getBookId());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析表头，找出各列的位置
+     *
+     * @return 各列在记录中的位置，文件中没有的列为-1
+     * @throws IOException 缺少书名或作者列
+     */
+    private int[] resolveColumns(List<String> header) throws IOException {
+        int[] columns = new int[COLUMN_NAMES.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            for (int column = 0; column < COLUMN_NAMES.length; column++) {
+                if (columns[column] < 0 && (name.equalsIgnoreCase(COLUMN_NAMES[column][0])
+                        || name.equalsIgnoreCase(COLUMN_NAMES[column][1]))) {
+                    columns[column] = i;
+                }
+            }
+        }
+        for (int column : new int[] {BOOK_NAME, AUTHOR}) {
+            if (columns[column] < 0) {
+                throw new IOException("表头缺少必需的列：" + COLUMN_NAMES[column][0] + "（" + COLUMN_NAMES[column][1] + "）");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 校验一行并转换为图书对象
+     *
+     * @return 拒绝原因，校验通过时返回null
+     */
+    private String parse(ImportRow row, int[] columns) {
+        String[] values = new String[COLUMN_NAMES.length];
+        for (int column = 0; column < values.length; column++) {
+            values[column] = valueOf(row.fields, columns[column]);
+            if (values[column] != null && MAX_LENGTHS[column] > 0 && values[column].length() > MAX_LENGTHS[column]) {
+                return COLUMN_NAMES[column][1] + "超过 " + MAX_LENGTHS[column] + " 个字符";
+            }
+        }
+        if (values[BOOK_NAME] == null) {
+            return "书名为空";
+        }
+        if (values[AUTHOR] == null) {
+            return "作者为空";
+        }
+
+        Book book = new Book();
+        book.setBookName(values[BOOK_NAME]);
+        book.setAuthor(values[AUTHOR]);
+        book.setPublisher(values[PUBLISHER]);
+        book.setCategory(values[CATEGORY]);
+        book.setDescription(values[DESCRIPTION]);
+
+        if (values[ISBN] != null) {
+            String isbn = values[ISBN].replace("-", "").replace(" ", "").toUpperCase(Locale.ROOT);
+            if (!isbn.matches("\\d{9}[\\dX]|\\d{13}")) {
+                return "ISBN格式不正确：" + values[ISBN];
+            }
+            book.setIsbn(isbn);
+        }
+        if (values[TOTAL_QUANTITY] != null) {
+            try {
+                book.setTotalQuantity(Integer.parseInt(values[TOTAL_QUANTITY]));
+            } catch (NumberFormatException e) {
+                book.setTotalQuantity(-1);
+            }
+            if (book.getTotalQuantity() < 0) {
+                return "总数量不是非负整数：" + values[TOTAL_QUANTITY];
+            }
+        }
+        if (values[PUBLISH_DATE] != null) {
+            try {
+                book.setPublishDate(Date.valueOf(values[PUBLISH_DATE]));
+            } catch (IllegalArgumentException e) {
+                return "出版日期应为 yyyy-MM-dd 格式：" + values[PUBLISH_DATE];
+            }
+        }
+        if (values[PRICE] != null) {
+            try {
+                book.setPrice(new BigDecimal(values[PRICE]));
+            } catch (NumberFormatException e) {
+                return "价格不是有效的金额：" + values[PRICE];
+            }
+            if (book.getPrice().signum() < 0 || book.getPrice().compareTo(MAX_PRICE) > 0) {
+                return "价格超出范围：" + values[PRICE];
+            }
+        }
+        row.book = book;
+        return null;
+    }
+
+    /**
+     * 导入后重建已启用的检索索引，使新图书可以被搜索到
+     */
+    private void refreshIndexes() {
+        if (BookSearchIndex.getInstance().isReady()) {
+            BookSearchIndex.getInstance().build();
+        }
+        if (BookSuggestIndex.getInstance().isReady()) {
+            BookSuggestIndex.getInstance().rebuild();
+        }
+    }
+
+    /**
+     * 拒绝文件的路径：与导入文件同目录，文件名加 .rejects.csv 后缀
+     */
+    private static File rejectFileOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return new File(file.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".rejects.csv");
+    }
+
+    /**
+     * 读取字段值，去除首尾空白，空值返回null
+     */
+    private static String valueOf(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean isBlankRecord(List<String> fields) {
+        for (String field : fields) {
+            if (!field.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 命令行导入：
+     * java -cp library-management-system-jar-with-dependencies.jar dev.ganziyan.library.service.BookImportService
+     *     图书.csv [--upsert] [--charset GBK]
+     * 默认拒绝ISBN已存在的行，--upsert 改为更新已有图书；文件编码默认为 UTF-8
+     * 退出码：0 全部导入，1 有被拒绝的行，2 参数错误或导入失败
+     */
+    public static void main(String[] args) {
+        File file = null;
+        ConflictMode mode = ConflictMode.REJECT;
+        Charset charset = StandardCharsets.UTF_8;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("--upsert".equals(args[i])) {
+                    mode = ConflictMode.UPSERT;
+                } else if ("--charset".equals(args[i]) && i + 1 < args.length) {
+                    charset = Charset.forName(args[++i]);
+                } else if (file == null && !args[i].startsWith("--")) {
+                    file = new File(args[i]);
+                } else {
+                    file = null;
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("不支持的文件编码：" + e.getMessage());
+            System.exit(2);
+        }
+        if (file == null) {
+            System.err.println("用法：BookImportService <CSV文件> [--upsert] [--charset 编码]");
+            System.exit(2);
+        }
+
+        final long fileLength = Math.max(1, file.length());
+        int status = 0;
+        try {
+            BookImportResult result = new BookImportService().importBooks(file, charset, mode, new ProgressListener() {
+                private long lastReport;
+
+                @Override
+                public boolean progress(BookImportResult progress, long bytesRead) {
+                    long now = System.currentTimeMillis();
+                    if (now - lastReport >= 1000) {
+                        lastReport = now;
+                        System.out.println("已处理 " + progress.getTotalRows() + " 行（" +
+                            Math.min(100, bytesRead * 100 / fileLength) + "%）");
+                    }
+                    return true;
+                }
+            });
+            System.out.println("导入完成：共 " + result.getTotalRows() + " 行，新增 " + result.getInsertedCount() +
+                " 本，更新 " + result.getUpdatedCount() + " 本，拒绝 " + result.getRejectedCount() + " 行，耗时 " +
+                result.getElapsedMillis() + " ms");
+            if (result.getRejectFile() != null) {
+                System.out.println("被拒绝的行已写入：" + result.getRejectFile());
+                status = 1;
+            }
+        } catch (IOException | SQLException e) {
+            System.err.println("导入失败：" + e.getMessage());
+            status = 2;
+        } finally {
+            DBUtil.shutdown();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * 待导入的一行
+     */
+    private static final class ImportRow {
+
+        private final long lineNumber;
+        private final List<String> fields;
+        private Book book;
+        private String reason;
+
+        private ImportRow(long lineNumber, List<String> fields) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * 一批（或一行）提交后的结果
+     */
+    private static final class ChunkOutcome {
+
+        private int inserted;
+        private final List<Integer> updatedIds = new ArrayList<>();
+        private final List<ImportRow> rejected = new ArrayList<>();
+
+        private void add(ChunkOutcome other) {
+            inserted += other.inserted;
+            updatedIds.addAll(other.updatedIds);
+            rejected.addAll(other.rejected);
+        }
+    }
+
+    /**
+     * 拒绝文件：行号、原因加上原始的各列，第一次拒绝时才创建
+     */
+    private static final class RejectFile {
+
+        private final File file;
+        private final Charset charset;
+        private final List<String> header;
+        private CsvWriter writer;
+
+        private RejectFile(File file, Charset charset, List<String> header) {
+            this.file = file;
+            this.charset = charset;
+            this.header = header;
+        }
+
+        private void write(ImportRow row) throws IOException {
+            if (writer == null) {
+                writer = new CsvWriter(new OutputStreamWriter(new FileOutputStream(file), charset));
+                List<String> fields = new ArrayList<>();
+                fields.add("行号");
+                fields.add("原因");
+                fields.addAll(header);
+                writer.writeRecord(fields);
+            }
+            List<String> fields = new ArrayList<>();
+            fields.add(String.valueOf(row.lineNumber));
+            fields.add(row.reason);
+            fields.addAll(row.fields);
+            writer.writeRecord(fields);
+        }
+
+        private String path() {
+            return writer != null ? file.getPath() : null;
+        }
+
+        private void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * 统计已读取字节数的输入流，用于计算进度
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,1250 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.dto.BookFacets;
+import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.util.PinyinUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书内存检索索引
+ * 对书名、作者、出版社、分类建立倒排索引，代替数据库中无法使用索引的 LIKE '%关键词%' 全表扫描。
+ * 分词规则：
+ * 1. 中日韩文字没有空格分隔，按单字和相邻两字（二元组）建索引，如“虚拟机”产生 虚、拟、机、虚拟、拟机；
+ * 2. 其他字母和数字按连续的单词建索引（统一转为小写），查询中的单词匹配所有包含它的索引单词（如“ava”匹配 java）。
+ * 查询时先求各词项倒排列表的交集得到候选图书，再用原关键词做子串校验，保证结果与 LIKE '%关键词%' 一致。
+ * 书名和作者的拼音检索键（全拼和首字母，见 {@link PinyinUtil}）单独按字母二元组、三元组建索引，
+ * 只含字母数字的关键词（如 santi、rljs）同时在拼音检索键中查找，结果与文本匹配的结果合并。
+ * searchFuzzy() 提供容错搜索：英文单词允许少量拼写错误，中文词语可以匹配同音字。
+ *
+ * 每本图书还保存分类、出版社和可借数量，搜索结果的分面统计直接在内存中完成（见 facets）。
+ *
+ * 索引在后台线程中从数据库构建，构建完成前 isReady() 返回false，调用方应退回数据库查询；
+ * 图书增删改后由 BookService 增量更新索引；其他终端新增和修改的图书由图书缓存的修改检查发现后更新（最多落后一个检查间隔），
+ * 其他终端删除的图书在搜索时发现并移除
+ */
+public class BookSearchIndex {
+
+    private static final BookSearchIndex INSTANCE = new BookSearchIndex(new BookDao());
+
+    private static final int[] EMPTY = new int[0];
+
+    // 后台构建失败后第一次重试的等待时间（毫秒），之后每次加倍
+    private static final long BUILD_RETRY_INITIAL_MILLIS = 5000;
+
+    // 后台构建重试的最长等待时间（毫秒）
+    private static final long BUILD_RETRY_MAX_MILLIS = 300000;
+
+    // 单词 n 元组索引中子串的最大长度
+    private static final int MAX_WORD_GRAM_LENGTH = 3;
+
+    // 容错搜索中单词长度达到该值才允许1处拼写错误
+    private static final int FUZZY_ONE_EDIT_LENGTH = 4;
+
+    // 容错搜索中单词长度达到该值才允许2处拼写错误
+    private static final int FUZZY_TWO_EDITS_LENGTH = 8;
+
+    private final BookDao bookDao;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 中日韩单字/二元组 -> 包含该词项的图书ID（升序）
+    private final Map<String, IntList> grams = new HashMap<>();
+
+    // 英文单词 -> 单词编号和包含该单词的图书ID
+    private final Map<String, Word> words = new HashMap<>();
+
+    // 单词编号 -> 单词，删除的单词位置为null（编号不复用，重新构建时清空）
+    private final List<Word> wordList = new ArrayList<>();
+
+    // 单词中出现的单字、二元组、三元组 -> 单词编号（升序），查询片段由此找到包含它的单词，不需要遍历所有单词
+    private final Map<String, IntList> wordGrams = new HashMap<>();
+
+    // 字母单词两端补位后的二元组 -> 单词编号（升序），用于容错搜索筛选候选单词
+    private final Map<String, IntList> fuzzyWordGrams = new HashMap<>();
+
+    // 图书ID -> 已索引的图书
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    // 分类、出版社名称的共享实例，大量图书属于同一分类或出版社
+    private final Map<String, String> facetValues = new HashMap<>();
+
+    // 拼音检索键的字母二元组/三元组 -> 图书ID（升序）
+    private final Map<String, IntList> pinyinGrams = new HashMap<>();
+
+    // 图书ID -> 拼音检索键，用于子串校验和删除时找回词项
+    private final Map<Integer, String> pinyinDocuments = new HashMap<>();
+
+    // 构建期间被增量更新过的图书ID，扫描到这些图书时跳过，避免用旧数据覆盖新数据
+    private Set<Integer> touchedDuringBuild;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    // 后台构建线程是否已启动（构建失败时 started 会被重置，该标志保证只有一个重试线程）
+    private final AtomicBoolean asyncBuildStarted = new AtomicBoolean();
+    private volatile boolean ready;
+
+    BookSearchIndex(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    /**
+     * 获取全局索引实例
+     *
+     * @return 索引实例
+     */
+    public static BookSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 在后台线程中从数据库构建索引，重复调用只会构建一次
+     * 构建失败（如启动时数据库暂时不可用）时按 5 秒起、每次加倍、最长 5 分钟的间隔重试，期间搜索直接查询数据库
+     */
+    public void buildAsync() {
+        if (started.get() || !asyncBuildStarted.compareAndSet(false, true)) {
+            return;
+        }
+        started.set(true);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long delay = BUILD_RETRY_INITIAL_MILLIS;
+                while (!build()) {
+                    System.err.println("图书检索索引构建失败，" + delay / 1000 + " 秒后重试，在此之前搜索直接查询数据库");
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    delay = Math.min(delay * 2, BUILD_RETRY_MAX_MILLIS);
+                }
+            }
+        }, "book-search-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 判断索引是否已构建完成
+     *
+     * @return true表示可以使用索引查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 已索引的图书数量
+     *
+     * @return 图书数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在当前线程中从数据库全量构建索引
+     *
+     * @return true表示构建完成，false表示读取数据库失败（索引保持未就绪）
+     */
+    public boolean build() {
+        started.set(true);
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            grams.clear();
+            clearWords();
+            documents.clear();
+            facetValues.clear();
+            pinyinGrams.clear();
+            pinyinDocuments.clear();
+            touchedDuringBuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean success = bookDao.scanSearchFields(new BookDao.BookHandler() {
+            @Override
+            public void handle(Book book) {
+                lock.writeLock().lock();
+                try {
+                    if (!touchedDuringBuild.contains(book.getBookId())) {
+                        addDocument(book, documentOf(book), pinyinKeysOf(book));
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = null;
+            if (success) {
+                for (IntList list : grams.values()) {
+                    list.trim();
+                }
+                for (Word word : words.values()) {
+                    word.postings.trim();
+                }
+                for (IntList list : wordGrams.values()) {
+                    list.trim();
+                }
+                for (IntList list : fuzzyWordGrams.values()) {
+                    list.trim();
+                }
+                for (IntList list : pinyinGrams.values()) {
+                    list.trim();
+                }
+                ready = true;
+                System.out.println("图书检索索引构建完成：" + documents.size() + " 本图书，" +
+                    (grams.size() + words.size() + pinyinGrams.size()) + " 个词项，耗时 " +
+                    (System.currentTimeMillis() - start) + " ms");
+            } else {
+                // 构建失败时允许稍后重试
+                grams.clear();
+                clearWords();
+                documents.clear();
+                facetValues.clear();
+                pinyinGrams.clear();
+                pinyinDocuments.clear();
+                started.set(false);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return success;
+    }
+
+    /**
+     * 添加或更新图书
+     * 检索字段（书名、作者、出版社、分类、拼音检索键）与索引中的相同时只更新分面统计字段：
+     * 借书还书只改变库存，修改检查会把这些图书全部送来，没有必要逐本重建词项
+     *
+     * @param book 图书对象（需包含图书ID）
+     */
+    public void put(Book book) {
+        if (!started.get() || book.getBookId() == null) {
+            return;
+        }
+        String document = documentOf(book);
+        String keys = pinyinKeysOf(book);
+        lock.writeLock().lock();
+        try {
+            Document indexed = documents.get(book.getBookId());
+            String indexedKeys = pinyinDocuments.get(book.getBookId());
+            if (indexed != null && document.equals(indexed.text)
+                && (keys.isEmpty() ? indexedKeys == null : keys.equals(indexedKeys))) {
+                setFacetFields(indexed, book);
+                return;
+            }
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(book.getBookId());
+            }
+            int availableQuantity = indexed != null ? indexed.availableQuantity : 0;
+            removeDocument(book.getBookId());
+            addDocument(book, document, keys);
+            if (book.getAvailableQuantity() == null) {
+                documents.get(book.getBookId()).availableQuantity = availableQuantity;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图书
+     *
+     * @param bookId 图书ID
+     */
+    public void remove(Integer bookId) {
+        if (!started.get() || bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(bookId);
+            }
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 调整图书的可借数量（本终端借书还书提交后调用），其他终端的借还由修改检查同步
+     *
+     * @param bookId 图书ID
+     * @param delta 变化量，借书为-1，还书为1
+     */
+    public void adjustAvailableQuantity(Integer bookId, int delta) {
+        if (!started.get() || bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Document document = documents.get(bookId);
+            if (document != null) {
+                document.availableQuantity = Math.max(0, document.availableQuantity + delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 统计搜索结果的分面：遍历一次结果中的图书，累加分类、出版社和可借数量，不查询数据库
+     * 分类统计不受分类筛选影响，出版社和可借统计只包含所选分类的图书（与 BookDao.countFacets 一致）
+     *
+     * @param bookIds 搜索结果的图书ID（不按分类筛选）
+     * @param category 所选分类（不区分大小写），为null时不按分类筛选
+     * @return 分面统计；索引正在重建时返回null，调用方应退回数据库查询
+     */
+    public BookFacets facets(int[] bookIds, String category) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            BookFacets facets = new BookFacets();
+            for (int bookId : bookIds) {
+                Document document = documents.get(bookId);
+                if (document == null) {
+                    continue;
+                }
+                facets.addCategory(document.category, 1);
+                if (category == null || category.equalsIgnoreCase(document.category)) {
+                    facets.addPublisher(document.publisher, 1);
+                    facets.addAvailability(document.availableQuantity > 0, 1);
+                }
+            }
+            facets.sortByCount();
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索图书
+     *
+     * @param keyword 搜索关键词
+     * @return 书名、作者、出版社、分类或拼音检索键中包含关键词的图书ID（升序）；
+     *         关键词中没有可索引的字符（如只有标点）时返回null，调用方应退回数据库查询
+     */
+    public int[] search(String keyword) {
+        String query = normalize(keyword.trim());
+        List<String> queryGrams = new ArrayList<>();
+        List<String> queryWords = new ArrayList<>();
+        tokenizeQuery(query, queryGrams, queryWords);
+        if (queryGrams.isEmpty() && queryWords.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] result = searchText(query, queryGrams, queryWords);
+            if (isPinyinQuery(query)) {
+                result = union(result, searchPinyin(query));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 容错搜索
+     * 关键词按中文词语和英文单词拆分，每一部分都必须匹配：
+     * 英文单词允许与索引单词有少量差异（编辑距离，相邻字母颠倒算一处，长度4~7允许1处、8及以上允许2处），
+     * 先用字母二元组计数筛选候选单词，再逐个计算编辑距离；中文词语除原文外还按全拼匹配同音字（如“刘磁欣”匹配“刘慈欣”）。
+     * 精确匹配的图书排在前面。超出时间预算时，单个单词的候选可能不完整，
+     * 但返回的图书都匹配了关键词的每一部分；还有部分没有处理时只返回精确匹配的结果
+     *
+     * @param keyword 搜索关键词
+     * @param maxResults 最多返回的数量
+     * @param timeBudgetMillis 时间预算（毫秒）
+     * @return 图书ID（精确匹配在前，两部分内部按ID倒序）；关键词中没有可索引的字符时返回null
+     */
+    public int[] searchFuzzy(String keyword, int maxResults, long timeBudgetMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        int[] exact = search(keyword);
+        if (exact == null) {
+            return null;
+        }
+        if (exact.length >= maxResults) {
+            return ranked(exact, EMPTY, maxResults);
+        }
+
+        List<String> terms = new ArrayList<>();
+        splitTerms(normalize(keyword.trim()), terms);
+        lock.readLock().lock();
+        try {
+            int[] fuzzy = null;
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                int[] matched = isCjk(term.charAt(0)) ? matchCjkTerm(term) : matchWordTerm(term, deadline);
+                fuzzy = fuzzy == null ? matched : intersect(fuzzy, new IntList(matched, matched.length));
+                if (fuzzy.length == 0) {
+                    break;
+                }
+                if (i < terms.size() - 1 && System.nanoTime() > deadline) {
+                    // 还有部分没有校验，候选图书不一定匹配整个关键词，只返回精确匹配的结果
+                    fuzzy = EMPTY;
+                    break;
+                }
+            }
+            return ranked(exact, fuzzy == null ? EMPTY : fuzzy, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 从搜索结果中筛选指定分类的图书
+     *
+     * @param bookIds 图书ID（升序）
+     * @param category 图书分类（不区分大小写）
+     * @return 属于该分类的图书ID（升序）
+     */
+    public int[] filterByCategory(int[] bookIds, String category) {
+        // 检索文本的最后一个字段就是分类
+        String suffix = "\n" + normalize(category.trim());
+        lock.readLock().lock();
+        try {
+            int[] result = new int[bookIds.length];
+            int count = 0;
+            for (int bookId : bookIds) {
+                Document document = documents.get(bookId);
+                if (document != null && document.text.endsWith(suffix)) {
+                    result[count++] = bookId;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在书名、作者、出版社、分类中查找（调用方持有读锁）
+     */
+    private int[] searchText(String query, List<String> queryGrams, List<String> queryWords) {
+        List<IntList> lists = new ArrayList<>();
+        for (String gram : queryGrams) {
+            IntList list = grams.get(gram);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+        for (String word : queryWords) {
+            IntList list = unionWordsContaining(word);
+            if (list.size == 0) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+
+        // 从最短的列表开始求交集
+        lists.sort(new Comparator<IntList>() {
+            @Override
+            public int compare(IntList a, IntList b) {
+                return Integer.compare(a.size, b.size);
+            }
+        });
+        int[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        // 关键词本身就是一个词项（单字、二元组或单词片段）时，倒排列表即为精确结果，无需校验
+        if (lists.size() == 1 && isSingleTerm(query, queryGrams, queryWords)) {
+            return candidates;
+        }
+
+        // 子串校验，排除词项都出现但不相邻的图书
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int bookId : candidates) {
+            Document document = documents.get(bookId);
+            if (document != null && document.text.contains(query)) {
+                result[count++] = bookId;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 中文词语的容错匹配：原文匹配或全拼匹配（调用方持有读锁）
+     */
+    private int[] matchCjkTerm(String term) {
+        List<String> termGrams = new ArrayList<>();
+        tokenizeQuery(term, termGrams, new ArrayList<String>());
+        int[] result = searchText(term, termGrams, new ArrayList<String>());
+        // 首字母检索键与原文等长，全拼检索键更长
+        for (String key : PinyinUtil.toSearchKeys(term).split(" ")) {
+            if (key.length() > term.length()) {
+                result = union(result, searchPinyin(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 英文单词的容错匹配：包含该单词，或与之编辑距离在允许范围内的索引单词（调用方持有读锁）
+     */
+    private int[] matchWordTerm(String word, long deadline) {
+        List<IntList> lists = new ArrayList<>();
+        IntList exactList = unionWordsContaining(word);
+        if (exactList.size > 0) {
+            lists.add(exactList);
+        }
+        int maxEdits = word.length() >= FUZZY_TWO_EDITS_LENGTH ? 2 : word.length() >= FUZZY_ONE_EDIT_LENGTH ? 1 : 0;
+        if (maxEdits > 0 && isAlphabetic(word)) {
+            // q-gram 引理：每处编辑（含相邻颠倒）最多破坏3个二元组，共享二元组少于下限的单词不可能匹配
+            List<String> queryGrams = paddedBigrams(word);
+            int minShared = queryGrams.size() - 3 * maxEdits;
+            int[] shared = new int[wordList.size()];
+            IntList touched = new IntList();
+            for (String gram : queryGrams) {
+                IntList ordinals = fuzzyWordGrams.get(gram);
+                if (ordinals == null) {
+                    continue;
+                }
+                for (int i = 0; i < ordinals.size; i++) {
+                    int ordinal = ordinals.data[i];
+                    if (shared[ordinal]++ == 0) {
+                        touched.add(ordinal);
+                    }
+                }
+            }
+            for (int i = 0; i < touched.size; i++) {
+                if ((i & 0xFF) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                int ordinal = touched.data[i];
+                Word candidate = wordList.get(ordinal);
+                if (shared[ordinal] >= minShared
+                    && Math.abs(candidate.text.length() - word.length()) <= maxEdits
+                    && editDistance(word, candidate.text, maxEdits) <= maxEdits) {
+                    lists.add(candidate.postings);
+                }
+            }
+        }
+        return unionAll(lists).toArray();
+    }
+
+    /**
+     * 在拼音检索键中查找（调用方持有读锁）
+     * 两个字母直接取二元组的倒排列表，更长的关键词求各三元组的交集后做子串校验
+     */
+    private int[] searchPinyin(String query) {
+        if (query.length() == 2) {
+            IntList list = pinyinGrams.get(query);
+            return list == null ? EMPTY : list.toArray();
+        }
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            IntList list = pinyinGrams.get(query.substring(i, i + 3));
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+        lists.sort(new Comparator<IntList>() {
+            @Override
+            public int compare(IntList a, IntList b) {
+                return Integer.compare(a.size, b.size);
+            }
+        });
+        int[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+        if (query.length() == 3) {
+            return candidates;
+        }
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int bookId : candidates) {
+            String keys = pinyinDocuments.get(bookId);
+            if (keys != null && keys.contains(query)) {
+                result[count++] = bookId;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 把图书加入索引（调用方持有写锁）
+     *
+     * @param document 归一化后的检索文本（见 documentOf）
+     * @param keys 拼音检索键（见 pinyinKeysOf）
+     */
+    private void addDocument(Book book, String document, String keys) {
+        int bookId = book.getBookId();
+        Set<String> documentGrams = new HashSet<>();
+        Set<String> documentWords = new HashSet<>();
+        tokenizeDocument(document, documentGrams, documentWords);
+        addPostings(grams, documentGrams, bookId);
+        for (String word : documentWords) {
+            addWord(word, bookId);
+        }
+        Document indexed = new Document(document);
+        setFacetFields(indexed, book);
+        documents.put(bookId, indexed);
+
+        if (!keys.isEmpty()) {
+            addPostings(pinyinGrams, tokenizePinyin(keys), bookId);
+            pinyinDocuments.put(bookId, keys);
+        }
+    }
+
+    /**
+     * 图书的检索文本：书名、作者、出版社、分类转为小写后用换行符连接
+     */
+    private static String documentOf(Book book) {
+        return normalize(join(book.getBookName(), book.getAuthor(), book.getPublisher(), book.getCategory()));
+    }
+
+    /**
+     * 图书的拼音检索键，数据库中还没有时现场计算
+     */
+    private static String pinyinKeysOf(Book book) {
+        return book.getPinyinKeys() != null ? book.getPinyinKeys()
+            : PinyinUtil.toSearchKeys(book.getBookName(), book.getAuthor());
+    }
+
+    /**
+     * 更新分面统计字段（调用方持有写锁），图书对象中没有可借数量时保留原值
+     */
+    private void setFacetFields(Document document, Book book) {
+        document.category = sharedFacetValue(book.getCategory());
+        document.publisher = sharedFacetValue(book.getPublisher());
+        if (book.getAvailableQuantity() != null) {
+            document.availableQuantity = book.getAvailableQuantity();
+        }
+    }
+
+    private String sharedFacetValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = facetValues.get(value);
+        if (shared == null) {
+            facetValues.put(value, value);
+            shared = value;
+        }
+        return shared;
+    }
+
+    /**
+     * 把图书移出索引（调用方持有写锁）
+     */
+    private void removeDocument(Integer bookId) {
+        Document document = documents.remove(bookId);
+        if (document == null) {
+            return;
+        }
+        Set<String> documentGrams = new HashSet<>();
+        Set<String> documentWords = new HashSet<>();
+        tokenizeDocument(document.text, documentGrams, documentWords);
+        removePostings(grams, documentGrams, bookId);
+        for (String word : documentWords) {
+            removeWord(word, bookId);
+        }
+
+        String keys = pinyinDocuments.remove(bookId);
+        if (keys != null) {
+            removePostings(pinyinGrams, tokenizePinyin(keys), bookId);
+        }
+    }
+
+    private static void addPostings(Map<String, IntList> postings, Set<String> terms, int bookId) {
+        for (String term : terms) {
+            IntList list = postings.get(term);
+            if (list == null) {
+                list = new IntList();
+                postings.put(term, list);
+            }
+            list.add(bookId);
+        }
+    }
+
+    private static void removePostings(Map<String, IntList> postings, Set<String> terms, int bookId) {
+        for (String term : terms) {
+            IntList list = postings.get(term);
+            if (list != null && list.remove(bookId) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * 记录图书包含的英文单词，第一次出现的单词同时加入 n 元组索引（调用方持有写锁）
+     */
+    private void addWord(String text, int bookId) {
+        Word word = words.get(text);
+        if (word == null) {
+            word = new Word(wordList.size(), text);
+            words.put(text, word);
+            wordList.add(word);
+            for (String gram : substringGrams(text)) {
+                addOrdinal(wordGrams, gram, word.id);
+            }
+            if (isFuzzyCandidate(text)) {
+                for (String gram : paddedBigrams(text)) {
+                    addOrdinal(fuzzyWordGrams, gram, word.id);
+                }
+            }
+        }
+        word.postings.add(bookId);
+    }
+
+    /**
+     * 移除图书包含的英文单词，单词不再出现在任何图书中时从 n 元组索引中删除（调用方持有写锁）
+     */
+    private void removeWord(String text, int bookId) {
+        Word word = words.get(text);
+        if (word == null || !word.postings.remove(bookId) || word.postings.size > 0) {
+            return;
+        }
+        words.remove(text);
+        wordList.set(word.id, null);
+        for (String gram : substringGrams(text)) {
+            removeOrdinal(wordGrams, gram, word.id);
+        }
+        if (isFuzzyCandidate(text)) {
+            for (String gram : paddedBigrams(text)) {
+                removeOrdinal(fuzzyWordGrams, gram, word.id);
+            }
+        }
+    }
+
+    private void clearWords() {
+        words.clear();
+        wordList.clear();
+        wordGrams.clear();
+        fuzzyWordGrams.clear();
+    }
+
+    private static void addOrdinal(Map<String, IntList> index, String gram, int ordinal) {
+        IntList ordinals = index.get(gram);
+        if (ordinals == null) {
+            ordinals = new IntList();
+            index.put(gram, ordinals);
+        }
+        // 同一单词中重复的 n 元组只记录一次（IntList 不保存重复值）
+        ordinals.add(ordinal);
+    }
+
+    private static void removeOrdinal(Map<String, IntList> index, String gram, int ordinal) {
+        IntList ordinals = index.get(gram);
+        if (ordinals != null && ordinals.remove(ordinal) && ordinals.size == 0) {
+            index.remove(gram);
+        }
+    }
+
+    /**
+     * 单词中所有长度为 1 ~ MAX_WORD_GRAM_LENGTH 的子串
+     */
+    private static List<String> substringGrams(String word) {
+        List<String> result = new ArrayList<>(word.length() * MAX_WORD_GRAM_LENGTH);
+        for (int n = 1; n <= MAX_WORD_GRAM_LENGTH; n++) {
+            for (int k = 0; k + n <= word.length(); k++) {
+                result.add(word.substring(k, k + n));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 只有字母单词参与容错匹配，短于 FUZZY_ONE_EDIT_LENGTH - 1 的单词不可能在允许范围内
+     */
+    private static boolean isFuzzyCandidate(String word) {
+        return word.length() >= FUZZY_ONE_EDIT_LENGTH - 1 && isAlphabetic(word);
+    }
+
+    /**
+     * 合并所有包含指定片段的英文单词的倒排列表（调用方持有读锁）
+     * 在 n 元组索引中求片段各三元组（片段不足3个字符时取整个片段）的交集得到候选单词，
+     * 片段长于3个字符时再逐个校验候选单词是否包含该片段，不需要遍历所有单词
+     */
+    private IntList unionWordsContaining(String fragment) {
+        int n = Math.min(fragment.length(), MAX_WORD_GRAM_LENGTH);
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + n <= fragment.length(); i++) {
+            IntList ordinals = wordGrams.get(fragment.substring(i, i + n));
+            if (ordinals == null) {
+                return new IntList(EMPTY, 0);
+            }
+            lists.add(ordinals);
+        }
+        lists.sort(new Comparator<IntList>() {
+            @Override
+            public int compare(IntList a, IntList b) {
+                return Integer.compare(a.size, b.size);
+            }
+        });
+        int[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        List<IntList> postings = new ArrayList<>(candidates.length);
+        for (int ordinal : candidates) {
+            Word word = wordList.get(ordinal);
+            if (fragment.length() <= MAX_WORD_GRAM_LENGTH || word.text.contains(fragment)) {
+                postings.add(word.postings);
+            }
+        }
+        return unionAll(postings);
+    }
+
+    /**
+     * 合并多个倒排列表
+     */
+    private static IntList unionAll(List<IntList> lists) {
+        if (lists.isEmpty()) {
+            return new IntList(EMPTY, 0);
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (IntList list : lists) {
+            total += list.size;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (IntList list : lists) {
+            System.arraycopy(list.data, 0, merged, offset, list.size);
+            offset += list.size;
+        }
+        Arrays.sort(merged);
+        // 去重
+        int count = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (count == 0 || merged[count - 1] != merged[i]) {
+                merged[count++] = merged[i];
+            }
+        }
+        return new IntList(merged, count);
+    }
+
+    /**
+     * 两端补 $ 后的字母二元组（如 java 产生 $j、ja、av、va、a$），补位使短单词的首尾字母也能参与筛选
+     */
+    private static List<String> paddedBigrams(String word) {
+        String padded = "$" + word + "$";
+        List<String> bigrams = new ArrayList<>(padded.length() - 1);
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            bigrams.add(padded.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    /**
+     * 受限编辑距离（插入、删除、替换、相邻字符颠倒各算一次）
+     *
+     * @return 编辑距离，超过 max 时返回 max + 1
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * 精确匹配在前、仅容错匹配在后，各自按ID倒序，最多取 maxResults 个
+     */
+    private static int[] ranked(int[] exact, int[] fuzzy, int maxResults) {
+        int[] result = new int[Math.min(maxResults, exact.length + fuzzy.length)];
+        int count = 0;
+        for (int i = exact.length - 1; i >= 0 && count < result.length; i--) {
+            result[count++] = exact[i];
+        }
+        for (int i = fuzzy.length - 1; i >= 0 && count < result.length; i--) {
+            if (Arrays.binarySearch(exact, fuzzy[i]) < 0) {
+                result[count++] = fuzzy[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 求升序数组与倒排列表的交集
+     * 列表远长于候选数组时逐个二分查找，否则顺序归并
+     */
+    private static int[] intersect(int[] candidates, IntList list) {
+        int[] result = new int[candidates.length];
+        int count = 0;
+        if (list.size > candidates.length * 16) {
+            int from = 0;
+            for (int value : candidates) {
+                int index = Arrays.binarySearch(list.data, from, list.size, value);
+                if (index >= 0) {
+                    result[count++] = value;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < candidates.length && j < list.size) {
+                if (candidates[i] < list.data[j]) {
+                    i++;
+                } else if (candidates[i] > list.data[j]) {
+                    j++;
+                } else {
+                    result[count++] = candidates[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 文档分词：中日韩文字产生单字和二元组，其他字母数字产生完整单词
+     */
+    static void tokenizeDocument(String text, Set<String> grams, Set<String> words) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int end = i;
+                while (end < length && isCjk(text.charAt(end))) {
+                    end++;
+                }
+                for (int k = i; k < end; k++) {
+                    grams.add(String.valueOf(text.charAt(k)));
+                    if (k + 1 < end) {
+                        grams.add(text.substring(k, k + 2));
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < length && isWordChar(text.charAt(end))) {
+                    end++;
+                }
+                words.add(text.substring(i, end));
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 查询分词：中日韩文字连续两字以上时只取二元组（单字时取单字），其他字母数字作为单词片段
+     */
+    static void tokenizeQuery(String text, List<String> grams, List<String> words) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int end = i;
+                while (end < length && isCjk(text.charAt(end))) {
+                    end++;
+                }
+                if (end - i == 1) {
+                    grams.add(String.valueOf(c));
+                } else {
+                    for (int k = i; k + 1 < end; k++) {
+                        grams.add(text.substring(k, k + 2));
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < length && isWordChar(text.charAt(end))) {
+                    end++;
+                }
+                words.add(text.substring(i, end));
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 把关键词拆成连续的中日韩文字片段和英文单词（容错搜索按片段匹配）
+     */
+    static void splitTerms(String text, List<String> terms) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c) || Character.isLetterOrDigit(c)) {
+                boolean cjk = isCjk(c);
+                int end = i;
+                while (end < length && (cjk ? isCjk(text.charAt(end)) : isWordChar(text.charAt(end)))) {
+                    end++;
+                }
+                terms.add(text.substring(i, end));
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 拼音检索键分词：每个检索键产生所有字母二元组和三元组（不跨越检索键）
+     */
+    static Set<String> tokenizePinyin(String keys) {
+        Set<String> terms = new HashSet<>();
+        for (String key : keys.split(" ")) {
+            for (int i = 0; i + 2 <= key.length(); i++) {
+                terms.add(key.substring(i, i + 2));
+                if (i + 3 <= key.length()) {
+                    terms.add(key.substring(i, i + 3));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 只由小写字母和数字组成（至少包含一个字母、长度不少于2）的关键词才在拼音检索键中查找
+     */
+    private static boolean isPinyinQuery(String query) {
+        if (query.length() < 2) {
+            return false;
+        }
+        boolean hasLetter = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                hasLetter = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return hasLetter;
+    }
+
+    /**
+     * 合并两个升序数组
+     */
+    private static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean isSingleTerm(String query, List<String> queryGrams, List<String> queryWords) {
+        if (queryGrams.size() + queryWords.size() != 1) {
+            return false;
+        }
+        String term = queryGrams.isEmpty() ? queryWords.get(0) : queryGrams.get(0);
+        return term.length() == query.length();
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) && !isCjk(c);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 用换行符连接各字段，避免关键词跨字段匹配
+     */
+    private static String join(String... fields) {
+        StringBuilder builder = new StringBuilder();
+        for (String field : fields) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            if (field != null) {
+                builder.append(field);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 已索引的图书
+     */
+    private static final class Document {
+
+        // 归一化后的检索文本，用于子串校验和删除时找回词项
+        private final String text;
+
+        // 分面统计字段（保持原样，不做归一化）
+        private String category;
+        private String publisher;
+        private int availableQuantity;
+
+        Document(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * 索引中的英文单词
+     */
+    private static final class Word {
+
+        private final int id;
+        private final String text;
+
+        // 包含该单词的图书ID（升序）
+        private final IntList postings = new IntList();
+
+        Word(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 升序整数列表
+     */
+    private static final class IntList {
+
+        private int[] data;
+        private int size;
+
+        IntList() {
+            this(new int[4], 0);
+        }
+
+        IntList(int[] data, int size) {
+            this.data = data;
+            this.size = size;
+        }
+
+        void add(int value) {
+            if (size > 0 && data[size - 1] >= value) {
+                int index = Arrays.binarySearch(data, 0, size, value);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, value);
+                return;
+            }
+            insertAt(size, value);
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(data, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(data, index + 1, data, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        void trim() {
+            if (data.length > size) {
+                data = Arrays.copyOf(data, Math.max(size, 1));
+            }
+        }
+
+        private void insertAt(int index, int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size + (size >> 1) + 1);
+            }
+            System.arraycopy(data, index, data, index + 1, size - index);
+            data[index] = value;
+            size++;
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package dev.ganziyan.library.service;
 
 import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.dto.BookFacets;
+import dev.ganziyan.library.dto.FacetedSearchResult;
+import dev.ganziyan.library.dto.Page;
+import dev.ganziyan.library.dto.Suggestion;
 import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.util.DBUtil;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 图书服务类
@@ -12,6 +23,88 @@ import java.util.List;
  */
 public class BookService {
     
+    /**
+     * 每页最大数量
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+    
+    /**
+     * 自动补全最多返回的候选项数量
+     */
+    public static final int MAX_SUGGESTIONS = 20;
+    
+    /**
+     * 内存检索索引，构建完成前搜索直接查询数据库
+     */
+    private static final BookSearchIndex SEARCH_INDEX = BookSearchIndex.getInstance();
+    
+    /**
+     * 自动补全索引
+     */
+    private static final BookSuggestIndex SUGGEST_INDEX = BookSuggestIndex.getInstance();
+    
+    /**
+     * 单本图书的读穿透缓存
+     */
+    private static final BookCache BOOK_CACHE = BookCache.getInstance();
+    
+    /**
+     * 是否使用 MySQL 全文索引检索（结果按相关度排序，并且可以检索简介）
+     */
+    private static final boolean FULL_TEXT_SEARCH = isFullTextSearchEnabled();
+    
+    /**
+     * 是否启用容错搜索（精确搜索没有结果时提示相近的图书）
+     */
+    private static final boolean FUZZY_SEARCH = Boolean.parseBoolean(DBUtil.getProperty("search.fuzzy.enabled", "false"));
+    
+    /**
+     * 容错搜索的时间预算（毫秒），超时后返回已找到的结果
+     */
+    private static final int FUZZY_TIME_BUDGET_MILLIS = DBUtil.getIntProperty("search.fuzzy.timeBudgetMillis", 50);
+    
+    /**
+     * 容错搜索最多返回的数量
+     */
+    private static final int FUZZY_MAX_RESULTS = DBUtil.getIntProperty("search.fuzzy.maxResults", 100);
+    
+    static {
+        // 全文检索模式下关键词搜索由数据库完成，不再需要内存检索索引
+        if (!FULL_TEXT_SEARCH && Boolean.parseBoolean(DBUtil.getProperty("search.index.enabled", "true"))) {
+            SEARCH_INDEX.buildAsync();
+        }
+        if (Boolean.parseBoolean(DBUtil.getProperty("search.suggest.enabled", "true"))) {
+            SUGGEST_INDEX.start(DBUtil.getIntProperty("search.suggest.refreshMinutes", 30));
+        }
+        if (Boolean.parseBoolean(DBUtil.getProperty("search.pinyin.backfill", "true"))) {
+            startPinyinBackfill();
+        }
+        // 多个终端共用数据库时，定期检查其他终端修改过的图书，同步到图书缓存和内存索引
+        int coherencePollSeconds = DBUtil.getIntProperty("cache.book.coherence.pollSeconds", 5);
+        if (coherencePollSeconds > 0) {
+            BOOK_CACHE.startCoherencePolling(coherencePollSeconds, new BookCache.ChangeListener() {
+                @Override
+                public void booksChanged(List<Book> books) {
+                    // 借书还书只改变库存，这类图书的检索字段没有变化，两个索引会直接忽略
+                    for (Book book : books) {
+                        SEARCH_INDEX.put(book);
+                        SUGGEST_INDEX.put(book);
+                    }
+                }
+                
+                @Override
+                public void tooManyChanges() {
+                    if (SEARCH_INDEX.isReady()) {
+                        SEARCH_INDEX.build();
+                    }
+                    if (SUGGEST_INDEX.isReady()) {
+                        SUGGEST_INDEX.rebuild();
+                    }
+                }
+            });
+        }
+    }
+    
     private BookDao bookDao = new BookDao();
     
     /**
@@ -30,7 +123,26 @@ public class BookService {
      * @return 图书对象
      */
     public Book getBookById(Integer bookId) {
-        return bookDao.findById(bookId);
+        return BOOK_CACHE.getById(bookId);
+    }
+    
+    /**
+     * 根据ISBN查询图书
+     * 
+     * @param isbn ISBN编号
+     * @return 图书对象，不存在时返回null
+     */
+    public Book getBookByIsbn(String isbn) {
+        return BOOK_CACHE.getByIsbn(isbn == null ? null : isbn.trim());
+    }
+    
+    /**
+     * 获取图书缓存（可查询命中率等统计信息）
+     * 
+     * @return 图书缓存
+     */
+    public BookCache getBookCache() {
+        return BOOK_CACHE;
     }
     
     /**
@@ -43,7 +155,242 @@ public class BookService {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllBooks();
         }
-        return bookDao.searchBooks(keyword.trim());
+        if (FULL_TEXT_SEARCH) {
+            return bookDao.searchBooksFullText(keyword.trim());
+        }
+        int[] bookIds = searchIndex(keyword, null);
+        if (bookIds == null) {
+            return bookDao.searchBooks(keyword.trim());
+        }
+        return findIndexedBooks(idsBefore(bookIds, bookIds.length, bookIds.length));
+    }
+    
+    /**
+     * 是否启用了容错搜索
+     * 
+     * @return 启用时返回true
+     */
+    public boolean isFuzzySearchEnabled() {
+        return FUZZY_SEARCH;
+    }
+    
+    /**
+     * 容错搜索图书
+     * 允许英文单词有少量拼写错误（如 Bruce Eckle 找到 Bruce Eckel 的书）、中文词语使用同音字；
+     * 依赖内存检索索引，索引未就绪或未启用时退回普通搜索
+     * 
+     * @param keyword 搜索关键词
+     * @return 图书列表，精确匹配在前，最多 search.fuzzy.maxResults 本
+     */
+    public List<Book> searchBooksFuzzy(String keyword) {
+        String normalized = normalizeKeyword(keyword);
+        if (normalized == null) {
+            return new ArrayList<>();
+        }
+        int[] bookIds = SEARCH_INDEX.isReady()
+            ? SEARCH_INDEX.searchFuzzy(normalized, FUZZY_MAX_RESULTS, FUZZY_TIME_BUDGET_MILLIS)
+            : null;
+        if (bookIds == null) {
+            List<Book> books = searchBooks(normalized);
+            return books.size() > FUZZY_MAX_RESULTS ? new ArrayList<>(books.subList(0, FUZZY_MAX_RESULTS)) : books;
+        }
+        
+        // findByIds 按ID倒序返回，恢复为相关度顺序
+        List<Integer> ids = new ArrayList<>(bookIds.length);
+        for (int bookId : bookIds) {
+            ids.add(bookId);
+        }
+        Map<Integer, Book> booksById = new HashMap<>();
+        for (Book book : findIndexedBooks(ids)) {
+            booksById.put(book.getBookId(), book);
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Integer bookId : ids) {
+            Book book = booksById.get(bookId);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+    
+    /**
+     * 搜索框自动补全
+     * 只查询内存索引，不访问数据库
+     * 
+     * @param prefix 已输入的前缀
+     * @param limit 最多返回的数量（1 ~ MAX_SUGGESTIONS）
+     * @return 按热门度排序的书名、作者、ISBN 候选项
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return SUGGEST_INDEX.suggest(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+    
+    /**
+     * 分页查询图书
+     * 
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量（1 ~ MAX_PAGE_SIZE）
+     * @return 分页结果
+     */
+    public Page<Book> getBooksPage(Integer cursor, int pageSize) {
+        return bookDao.findPage(cursor, normalizePageSize(pageSize));
+    }
+    
+    /**
+     * 分页搜索图书
+     * 
+     * @param keyword 搜索关键词，为空时等同于分页查询所有图书
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量（1 ~ MAX_PAGE_SIZE）
+     * @return 分页结果
+     */
+    public Page<Book> searchBooksPage(String keyword, Integer cursor, int pageSize) {
+        return searchBooksPage(keyword, null, cursor, pageSize);
+    }
+    
+    /**
+     * 按关键词和分类分页搜索图书
+     * 
+     * @param keyword 搜索关键词，为空时不按关键词筛选
+     * @param category 图书分类，为空时不按分类筛选
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量（1 ~ MAX_PAGE_SIZE）
+     * @return 分页结果
+     */
+    public Page<Book> searchBooksPage(String keyword, String category, Integer cursor, int pageSize) {
+        keyword = normalizeKeyword(keyword);
+        category = normalizeKeyword(category);
+        pageSize = normalizePageSize(pageSize);
+        if (keyword == null) {
+            return category == null ? getBooksPage(cursor, pageSize)
+                : bookDao.searchBooksPage(null, category, cursor, pageSize);
+        }
+        if (FULL_TEXT_SEARCH) {
+            return bookDao.searchBooksFullTextPage(keyword, category, cursor != null ? cursor : 0, pageSize);
+        }
+        int[] bookIds = searchIndex(keyword, category);
+        if (bookIds == null) {
+            return bookDao.searchBooksPage(keyword, category, cursor, pageSize);
+        }
+        int end = positionOf(bookIds, cursor);
+        List<Integer> pageIds = idsBefore(bookIds, end, pageSize);
+        Integer nextCursor = end > pageSize ? pageIds.get(pageSize - 1) : null;
+        return new Page<>(findIndexedBooks(pageIds), nextCursor);
+    }
+    
+    /**
+     * 分面搜索：返回一页图书以及整个搜索结果按分类、出版社、是否可借的数量统计
+     * 
+     * @param keyword 搜索关键词，为空时不按关键词筛选
+     * @param category 图书分类，为空时不按分类筛选
+     * @param cursor 上一页返回的游标，查询第一页时传null
+     * @param pageSize 每页数量（1 ~ MAX_PAGE_SIZE）
+     * @return 分面搜索结果
+     */
+    public FacetedSearchResult facetedSearch(String keyword, String category, Integer cursor, int pageSize) {
+        return new FacetedSearchResult(searchBooksPage(keyword, category, cursor, pageSize),
+            getFacets(keyword, category));
+    }
+    
+    /**
+     * 统计搜索结果的分面
+     * 使用内存索引时在索引中遍历一次匹配的图书完成统计，不查询数据库；否则由一次分组查询得到
+     * 
+     * @param keyword 搜索关键词，为空时统计所有图书
+     * @param category 所选分类，为空时不按分类筛选（分类统计本身不受该筛选影响）
+     * @return 分面统计，查询失败时返回null
+     */
+    public BookFacets getFacets(String keyword, String category) {
+        keyword = normalizeKeyword(keyword);
+        category = normalizeKeyword(category);
+        if (keyword == null) {
+            return bookDao.countFacets(null, category);
+        }
+        if (FULL_TEXT_SEARCH) {
+            return bookDao.countFacetsFullText(keyword, category);
+        }
+        int[] bookIds = searchIndex(keyword, null);
+        BookFacets facets = bookIds != null ? SEARCH_INDEX.facets(bookIds, category) : null;
+        return facets != null ? facets : bookDao.countFacets(keyword, category);
+    }
+    
+    /**
+     * 查询所有图书分类
+     * 
+     * @return 按名称排序的分类列表
+     */
+    public List<String> getCategories() {
+        return bookDao.findCategories();
+    }
+    
+    /**
+     * 统计图书数量
+     * 
+     * @param keyword 搜索关键词，为空时统计所有图书
+     * @return 图书数量
+     */
+    public int countBooks(String keyword) {
+        return countBooks(keyword, null);
+    }
+    
+    /**
+     * 按关键词和分类统计图书数量
+     * 
+     * @param keyword 搜索关键词，为空时不按关键词筛选
+     * @param category 图书分类，为空时不按分类筛选
+     * @return 图书数量
+     */
+    public int countBooks(String keyword, String category) {
+        keyword = normalizeKeyword(keyword);
+        category = normalizeKeyword(category);
+        if (FULL_TEXT_SEARCH && keyword != null) {
+            return bookDao.countFullText(keyword, category);
+        }
+        int[] bookIds = searchIndex(keyword, category);
+        if (bookIds != null) {
+            return bookIds.length;
+        }
+        return bookDao.count(keyword, category);
+    }
+    
+    /**
+     * 从游标处向后跳过若干行，返回新的游标（用于分页表格的远距离跳转）
+     * 
+     * @param keyword 搜索关键词，为空时在所有图书中定位
+     * @param cursor 起始游标，为null时从第一行开始
+     * @param skip 跳过的行数
+     * @return 跳过后的游标，超出范围时返回null
+     */
+    public Integer seekCursor(String keyword, Integer cursor, int skip) {
+        return seekCursor(keyword, null, cursor, skip);
+    }
+    
+    /**
+     * 在按关键词和分类筛选的结果中从游标处向后跳过若干行，返回新的游标
+     * 
+     * @param keyword 搜索关键词，为空时不按关键词筛选
+     * @param category 图书分类，为空时不按分类筛选
+     * @param cursor 起始游标，为null时从第一行开始
+     * @param skip 跳过的行数
+     * @return 跳过后的游标，超出范围时返回null
+     */
+    public Integer seekCursor(String keyword, String category, Integer cursor, int skip) {
+        if (skip <= 0) {
+            return cursor;
+        }
+        keyword = normalizeKeyword(keyword);
+        category = normalizeKeyword(category);
+        if (FULL_TEXT_SEARCH && keyword != null) {
+            // 全文检索结果的游标是行号，跳过若干行即行号相加，超出范围时查询到的是空页
+            return (cursor != null ? cursor : 0) + skip;
+        }
+        int[] bookIds = searchIndex(keyword, category);
+        if (bookIds != null) {
+            int index = positionOf(bookIds, cursor) - skip;
+            return index >= 0 ? bookIds[index] : null;
+        }
+        return bookDao.findSeekCursor(keyword, category, cursor, skip);
     }
     
     /**
@@ -60,7 +407,12 @@ public class BookService {
         if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
             return false;
         }
-        return bookDao.add(book);
+        if (!bookDao.add(book)) {
+            return false;
+        }
+        SEARCH_INDEX.put(book);
+        SUGGEST_INDEX.put(book);
+        return true;
     }
     
     /**
@@ -73,7 +425,13 @@ public class BookService {
         if (book == null || book.getBookId() == null) {
             return false;
         }
-        return bookDao.update(book);
+        if (!bookDao.update(book)) {
+            return false;
+        }
+        BOOK_CACHE.invalidate(book.getBookId());
+        SEARCH_INDEX.put(book);
+        SUGGEST_INDEX.put(book);
+        return true;
     }
     
     /**
@@ -86,6 +444,140 @@ public class BookService {
         if (bookId == null) {
             return false;
         }
-        return bookDao.delete(bookId);
+        if (!bookDao.delete(bookId)) {
+            return false;
+        }
+        BOOK_CACHE.invalidate(bookId);
+        SEARCH_INDEX.remove(bookId);
+        SUGGEST_INDEX.remove(bookId);
+        return true;
+    }
+    
+    /**
+     * 在后台线程中为缺少拼音检索键的图书（升级前已有的图书、用SQL直接导入的图书）补全检索键
+     * 内存索引不依赖补全结果，它会为缺少检索键的图书现场生成
+     */
+    private static void startPinyinBackfill() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.currentTimeMillis();
+                int filled = new BookDao().fillMissingPinyinKeys(500);
+                if (filled > 0) {
+                    // 补全的检索键不经过 updateBook，缓存中的图书需要重新读取
+                    BOOK_CACHE.clear();
+                    System.out.println("已补全 " + filled + " 本图书的拼音检索键，耗时 " +
+                        (System.currentTimeMillis() - start) + " ms");
+                }
+            }
+        }, "book-pinyin-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * 读取 search.fulltext.enabled 配置，全文索引只在 MySQL 上可用
+     */
+    private static boolean isFullTextSearchEnabled() {
+        if (!Boolean.parseBoolean(DBUtil.getProperty("search.fulltext.enabled", "false"))) {
+            return false;
+        }
+        if (!DBUtil.getStorageBackend().isMySql()) {
+            System.err.println("嵌入式数据库不支持全文检索，图书搜索改用模糊匹配");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 使用内存索引搜索
+     * 
+     * @param keyword 搜索关键词
+     * @param category 图书分类，为null时不按分类筛选
+     * @return 匹配的图书ID（升序），关键词为空、索引未就绪或无法使用索引时返回null
+     */
+    private int[] searchIndex(String keyword, String category) {
+        String normalized = normalizeKeyword(keyword);
+        if (normalized == null || !SEARCH_INDEX.isReady()) {
+            return null;
+        }
+        int[] bookIds = SEARCH_INDEX.search(normalized);
+        if (bookIds != null && category != null) {
+            bookIds = SEARCH_INDEX.filterByCategory(bookIds, category);
+        }
+        return bookIds;
+    }
+    
+    /**
+     * 按内存索引返回的ID查询图书
+     * 修改检查只能发现修改过的行，其他终端删除的图书仍留在索引中；查询时发现缺少的图书，
+     * 确认已经不存在后从索引中移除（查询失败导致的缺少不会移除）
+     * 
+     * @param bookIds 图书ID列表
+     * @return 图书列表（按ID倒序）
+     */
+    private List<Book> findIndexedBooks(List<Integer> bookIds) {
+        List<Book> books = bookDao.findByIds(bookIds);
+        if (books.size() >= bookIds.size()) {
+            return books;
+        }
+        Set<Integer> found = new HashSet<>();
+        for (Book book : books) {
+            found.add(book.getBookId());
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer bookId : bookIds) {
+            if (!found.contains(bookId)) {
+                missing.add(bookId);
+            }
+        }
+        Set<Integer> existing = bookDao.findExistingIds(missing);
+        if (existing == null) {
+            return books;
+        }
+        for (Integer bookId : missing) {
+            if (!existing.contains(bookId)) {
+                SEARCH_INDEX.remove(bookId);
+                SUGGEST_INDEX.remove(bookId);
+                BOOK_CACHE.invalidate(bookId);
+            }
+        }
+        return books;
+    }
+    
+    /**
+     * 游标在升序ID数组中的位置：小于游标的ID个数，游标为null时为数组长度
+     */
+    private int positionOf(int[] bookIds, Integer cursor) {
+        if (cursor == null) {
+            return bookIds.length;
+        }
+        int index = Arrays.binarySearch(bookIds, cursor);
+        return index >= 0 ? index : -index - 1;
+    }
+    
+    /**
+     * 从升序ID数组的 end 位置往前倒序取最多 limit 个ID（与 ORDER BY book_id DESC 一致）
+     */
+    private List<Integer> idsBefore(int[] bookIds, int end, int limit) {
+        List<Integer> ids = new ArrayList<>(Math.min(end, limit));
+        for (int i = end - 1; i >= 0 && ids.size() < limit; i--) {
+            ids.add(bookIds[i]);
+        }
+        return ids;
+    }
+    
+    /**
+     * 去除关键词首尾空白，空关键词返回null
+     */
+    private String normalizeKeyword(String keyword) {
+        return keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+    }
+    
+    /**
+     * 把每页数量限制在 1 ~ MAX_PAGE_SIZE 之间
+     */
+    private int normalizePageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
     }
 }
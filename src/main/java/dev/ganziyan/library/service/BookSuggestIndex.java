@@ -0,0 +1,545 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.BookDao;
+import dev.ganziyan.library.dao.BorrowRecordDao;
+import dev.ganziyan.library.dto.Suggestion;
+import dev.ganziyan.library.entity.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索框自动补全索引
+ * 把书名、作者、ISBN 按小写后的文本排序存放在数组中，前缀查询用二分查找确定区间，
+ * 再借助按热门度（累计借阅次数）建立的线段树依次取出区间内热门度最高的候选项，
+ * 取前 N 项只需 O(N log n)，与前缀匹配的条目数量无关。
+ *
+ * 排序数组是不可变快照，在后台定期重建（热门度同时刷新）；两次重建之间增删改的图书记录在变更表中，
+ * 查询时跳过快照里这些图书的旧条目并逐个比较变更后的图书，变更过多时提前触发重建。
+ * 快照还保存每本图书补全字段（书名、作者、ISBN）的指纹，只改变库存的修改不进入变更表
+ */
+public class BookSuggestIndex {
+
+    private static final BookSuggestIndex INSTANCE = new BookSuggestIndex(new BookDao(), new BorrowRecordDao());
+
+    // 变更表超过该数量时提前重建快照
+    private static final int REBUILD_THRESHOLD = 1000;
+
+    // 每个候选项最多从快照中弹出的条目数，避免大量重名书名时无限查找
+    private static final int MAX_POPS_PER_RESULT = 20;
+
+    private final BookDao bookDao;
+    private final BorrowRecordDao borrowRecordDao;
+
+    private volatile Snapshot snapshot;
+
+    // 快照之后变更的图书：图书ID -> 变更（删除时 book 为null）
+    private final Map<Integer, Change> changes = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // 变更过多触发的提前重建是否已在排队或执行中，保证同一时间最多只有一个
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    BookSuggestIndex(BookDao bookDao, BorrowRecordDao borrowRecordDao) {
+        this.bookDao = bookDao;
+        this.borrowRecordDao = borrowRecordDao;
+    }
+
+    /**
+     * 获取全局索引实例
+     *
+     * @return 索引实例
+     */
+    public static BookSuggestIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 在后台线程中构建索引，并按固定间隔重建以刷新热门度，重复调用只会启动一次
+     *
+     * @param refreshMinutes 重建间隔（分钟）
+     */
+    public void start(long refreshMinutes) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "book-suggest-index");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                rebuild();
+            }
+        }, 0, Math.max(1, refreshMinutes), TimeUnit.MINUTES);
+    }
+
+    /**
+     * 判断索引是否已构建完成
+     *
+     * @return true表示可以查询
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 从数据库重建快照
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // 在此之前记录的变更已提交到数据库，会包含在本次扫描中
+            long startSequence = sequence.get();
+            final Map<Integer, Integer> popularity = borrowRecordDao.countByBook();
+            final List<Entry> textEntries = new ArrayList<>();
+            final List<Entry> isbnEntries = new ArrayList<>();
+            final LongList fingerprints = new LongList();
+            // 同一作者的多本图书合并为一个候选项，热门度累加
+            final Map<String, Entry> authors = new HashMap<>();
+
+            boolean success = bookDao.scanSearchFields(new BookDao.BookHandler() {
+                @Override
+                public void handle(Book book) {
+                    fingerprints.add(packFingerprint(book));
+                    int score = popularityOf(popularity, book.getBookId());
+                    if (!isBlank(book.getBookName())) {
+                        textEntries.add(new Entry(normalize(book.getBookName()), book.getBookName(),
+                            Suggestion.TYPE_TITLE, book.getBookId(), score));
+                    }
+                    if (!isBlank(book.getAuthor())) {
+                        Entry author = authors.get(book.getAuthor());
+                        if (author == null) {
+                            authors.put(book.getAuthor(), new Entry(normalize(book.getAuthor()), book.getAuthor(),
+                                Suggestion.TYPE_AUTHOR, Entry.NO_BOOK, score));
+                        } else {
+                            author.score += score;
+                        }
+                    }
+                    if (!isBlank(book.getIsbn())) {
+                        isbnEntries.add(new Entry(normalizeIsbn(book.getIsbn()), book.getIsbn(),
+                            Suggestion.TYPE_ISBN, book.getBookId(), score));
+                    }
+                }
+            });
+            if (!success) {
+                return;
+            }
+            textEntries.addAll(authors.values());
+
+            snapshot = new Snapshot(new PrefixArray(textEntries), new PrefixArray(isbnEntries), popularity,
+                fingerprints.toSortedArray());
+            Iterator<Change> iterator = changes.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().sequence <= startSequence) {
+                    iterator.remove();
+                }
+            }
+            System.out.println("自动补全索引构建完成：" + (textEntries.size() + isbnEntries.size()) +
+                " 个条目，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 记录新增或修改的图书，补全字段与索引中的相同（如借书还书只改变了库存）时忽略
+     *
+     * @param book 图书对象（需包含图书ID）
+     */
+    public void put(Book book) {
+        if (book.getBookId() != null && !isIndexed(book)) {
+            recordChange(book.getBookId(), book);
+        }
+    }
+
+    /**
+     * 记录删除的图书
+     *
+     * @param bookId 图书ID
+     */
+    public void remove(Integer bookId) {
+        if (bookId != null) {
+            recordChange(bookId, null);
+        }
+    }
+
+    /**
+     * 查询补全候选项
+     *
+     * @param prefix 用户已输入的前缀（不区分大小写，ISBN 忽略连字符）
+     * @param limit 最多返回的数量
+     * @return 按热门度从高到低排序的候选项，索引未就绪时返回空列表
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        String query = prefix == null ? "" : normalize(prefix.trim());
+        if (current == null || query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> candidates = new ArrayList<>();
+        current.texts.collectTop(query, limit, changes, candidates);
+        String isbnQuery = normalizeIsbn(query);
+        boolean isbnLike = isIsbnLike(isbnQuery);
+        if (isbnLike) {
+            current.isbns.collectTop(isbnQuery, limit, changes, candidates);
+        }
+
+        // 快照之后变更的图书
+        for (Change change : changes.values()) {
+            Book book = change.book;
+            if (book == null) {
+                continue;
+            }
+            int score = popularityOf(current.popularity, book.getBookId());
+            if (book.getBookName() != null && normalize(book.getBookName()).startsWith(query)) {
+                candidates.add(new Entry(null, book.getBookName(), Suggestion.TYPE_TITLE, book.getBookId(), score));
+            }
+            if (book.getAuthor() != null && normalize(book.getAuthor()).startsWith(query)) {
+                candidates.add(new Entry(null, book.getAuthor(), Suggestion.TYPE_AUTHOR, Entry.NO_BOOK, score));
+            }
+            if (isbnLike && book.getIsbn() != null && normalizeIsbn(book.getIsbn()).startsWith(isbnQuery)) {
+                candidates.add(new Entry(null, book.getIsbn(), Suggestion.TYPE_ISBN, book.getBookId(), score));
+            }
+        }
+
+        Collections.sort(candidates, Entry.BY_SCORE);
+        List<Suggestion> suggestions = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        for (Entry entry : candidates) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            if (seen.add(entry.type + '\n' + entry.text)) {
+                suggestions.add(new Suggestion(entry.text, entry.type,
+                    entry.bookId == Entry.NO_BOOK ? null : entry.bookId, entry.score));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * 图书的补全字段是否与变更表或快照中的相同
+     */
+    private boolean isIndexed(Book book) {
+        Change change = changes.get(book.getBookId());
+        if (change != null) {
+            return change.book != null && fingerprint(change.book) == fingerprint(book);
+        }
+        Snapshot current = snapshot;
+        return current != null && Arrays.binarySearch(current.fingerprints, packFingerprint(book)) >= 0;
+    }
+
+    private void recordChange(Integer bookId, Book book) {
+        if (!started.get()) {
+            return;
+        }
+        changes.put(bookId, new Change(book, sequence.incrementAndGet()));
+        if (changes.size() > REBUILD_THRESHOLD && rebuildScheduled.compareAndSet(false, true)) {
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        rebuild();
+                    } finally {
+                        rebuildScheduled.set(false);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 图书ID（高32位）与补全字段指纹（低32位）合成一个数，快照中按它排序后二分查找
+     */
+    private static long packFingerprint(Book book) {
+        return (long) book.getBookId() << 32 | (fingerprint(book) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 书名、作者、ISBN 的 FNV-1a 散列；偶尔的冲突只会让一次修改推迟到下次定期重建时生效
+     */
+    private static int fingerprint(Book book) {
+        int hash = 0x811C9DC5;
+        for (String field : new String[] {book.getBookName(), book.getAuthor(), book.getIsbn()}) {
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * 0x01000193;
+                }
+            }
+            // 字段之间的分隔，null 与空字符串区分开
+            hash = (hash ^ (field == null ? 0xFFFF : 0xFFFE)) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int popularityOf(Map<Integer, Integer> popularity, Integer bookId) {
+        Integer count = popularity.get(bookId);
+        return count == null ? 0 : count;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeIsbn(String isbn) {
+        return normalize(isbn).replace("-", "").replace(" ", "");
+    }
+
+    private static boolean isIsbnLike(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != 'x') {
+                return false;
+            }
+        }
+        return !text.isEmpty();
+    }
+
+    /**
+     * 索引快照
+     */
+    private static final class Snapshot {
+
+        private final PrefixArray texts;
+        private final PrefixArray isbns;
+        private final Map<Integer, Integer> popularity;
+
+        // 各图书的 packFingerprint（升序）
+        private final long[] fingerprints;
+
+        private Snapshot(PrefixArray texts, PrefixArray isbns, Map<Integer, Integer> popularity, long[] fingerprints) {
+            this.texts = texts;
+            this.isbns = isbns;
+            this.popularity = popularity;
+            this.fingerprints = fingerprints;
+        }
+    }
+
+    /**
+     * 可增长的 long 数组
+     */
+    private static final class LongList {
+
+        private long[] data = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size + (size >> 1));
+            }
+            data[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(data, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * 快照之后的一次变更
+     */
+    private static final class Change {
+
+        private final Book book;
+        private final long sequence;
+
+        private Change(Book book, long sequence) {
+            this.book = book;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 补全条目
+     */
+    private static final class Entry {
+
+        // 作者条目由多本图书合并而成，不属于某一本图书
+        private static final int NO_BOOK = -1;
+
+        private static final Comparator<Entry> BY_KEY = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.key.compareTo(b.key);
+            }
+        };
+
+        private static final Comparator<Entry> BY_SCORE = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return Integer.compare(b.score, a.score);
+            }
+        };
+
+        private final String key;
+        private final String text;
+        private final String type;
+        private final int bookId;
+        private int score;
+
+        private Entry(String key, String text, String type, int bookId, int score) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+            this.bookId = bookId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 按键排序的条目数组，附带按热门度求区间最大值的线段树
+     */
+    private static final class PrefixArray {
+
+        private final String[] keys;
+        private final Entry[] entries;
+
+        // 自底向上的线段树，节点保存区间内热门度最高的条目下标，叶子位于 [n, 2n)
+        private final int[] tree;
+
+        private PrefixArray(List<Entry> list) {
+            Collections.sort(list, Entry.BY_KEY);
+            int n = list.size();
+            entries = list.toArray(new Entry[0]);
+            keys = new String[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = entries[i].key;
+            }
+            tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        /**
+         * 把前缀区间内热门度最高的 limit 个不同候选项加入结果，跳过变更表中图书的旧条目
+         */
+        void collectTop(String prefix, int limit, Map<Integer, Change> changes, List<Entry> result) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to) {
+                return;
+            }
+
+            // 按区间最大值从大到小依次弹出：取出最大值后把区间拆成左右两段放回队列
+            PriorityQueue<int[]> queue = new PriorityQueue<>(new Comparator<int[]>() {
+                @Override
+                public int compare(int[] a, int[] b) {
+                    int byScore = Integer.compare(entries[b[2]].score, entries[a[2]].score);
+                    return byScore != 0 ? byScore : Integer.compare(a[2], b[2]);
+                }
+            });
+            queue.add(new int[] {from, to, argmax(from, to)});
+            Set<String> seen = new HashSet<>();
+            int added = 0;
+            int pops = 0;
+            int maxPops = limit * MAX_POPS_PER_RESULT;
+            while (!queue.isEmpty() && added < limit && pops++ < maxPops) {
+                int[] range = queue.poll();
+                int index = range[2];
+                Entry entry = entries[index];
+                if ((entry.bookId == Entry.NO_BOOK || !changes.containsKey(entry.bookId))
+                        && seen.add(entry.type + '\n' + entry.text)) {
+                    result.add(entry);
+                    added++;
+                }
+                if (range[0] < index) {
+                    queue.add(new int[] {range[0], index, argmax(range[0], index)});
+                }
+                if (index + 1 < range[1]) {
+                    queue.add(new int[] {index + 1, range[1], argmax(index + 1, range[1])});
+                }
+            }
+        }
+
+        /**
+         * 第一个不小于 key 的位置
+         */
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 区间 [from, to) 内热门度最高的条目下标
+         */
+        private int argmax(int from, int to) {
+            int n = entries.length;
+            int best = -1;
+            for (int left = from + n, right = to + n; left < right; left >>= 1, right >>= 1) {
+                if ((left & 1) == 1) {
+                    best = better(best, tree[left++]);
+                }
+                if ((right & 1) == 1) {
+                    best = better(best, tree[--right]);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 热门度更高的条目，相同时取排序靠前的
+         */
+        private int better(int a, int b) {
+            if (a < 0) {
+                return b;
+            }
+            if (b < 0) {
+                return a;
+            }
+            int byScore = Integer.compare(entries[a].score, entries[b].score);
+            if (byScore != 0) {
+                return byScore > 0 ? a : b;
+            }
+            return a < b ? a : b;
+        }
+    }
+}
@@ -2,12 +2,21 @@ package dev.ganziyan.library.service;
 
 import dev.ganziyan.library.dao.BookDao;
 import dev.ganziyan.library.dao.BorrowRecordDao;
+import dev.ganziyan.library.dao.UserDao;
+import dev.ganziyan.library.dto.LoanSummary;
 import dev.ganziyan.library.entity.Book;
 import dev.ganziyan.library.entity.BorrowRecord;
+import dev.ganziyan.library.entity.User;
+import dev.ganziyan.library.util.DBUtil;
+import dev.ganziyan.library.util.StripedLockManager;
+import dev.ganziyan.library.util.TransactionManager;
 
 import java.sql.Date;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  * 借阅服务类
@@ -15,16 +24,33 @@ import java.util.List;
  */
 public class BorrowService {
     
+    // 按图书ID分段加锁：同一图书的借还操作在进程内串行执行，不同图书并行
+    private static final StripedLockManager BOOK_LOCKS = new StripedLockManager(
+        DBUtil.getIntProperty("borrow.lock.stripes", 64),
+        DBUtil.getIntProperty("borrow.lock.timeoutMillis", 3000));
+    
+    // 库存变化后清除图书缓存
+    private static final BookCache BOOK_CACHE = BookCache.getInstance();
+    
+    // 库存变化后调整检索索引中的可借数量（分面统计用）
+    private static final BookSearchIndex SEARCH_INDEX = BookSearchIndex.getInstance();
+    
+    // 登录用户的借阅摘要，借书前的重复借阅校验不访问数据库
+    private static final LoanSummaryCache LOAN_SUMMARIES = LoanSummaryCache.getInstance();
+    
     private BookDao bookDao = new BookDao();
     private BorrowRecordDao borrowRecordDao = new BorrowRecordDao();
+    private UserDao userDao = new UserDao();
     
     /**
      * 借书操作
      * 业务规则：
-     * 1. 检查图书库存是否充足（available_quantity > 0）
-     * 2. 检查用户是否已经借阅该图书（避免重复借阅）
-     * 3. 创建借阅记录
-     * 4. 减少图书的可借数量
+     * 1. 根据缓存的借阅摘要检查用户是否已经借阅该图书（避免重复借阅）
+     * 2. 原子地增加用户的未归还借阅数量（open_loans < max_borrow_count 时才增加）
+     * 3. 原子地扣减图书库存（available_quantity > 0 时才扣减）
+     * 4. 创建借阅记录，插入时由数据库再次检查重复借阅
+     * 2 ~ 4 在同一个事务中完成，任一步骤失败都会整体回滚；
+     * 同一图书的借书请求持有该图书的分段锁后按顺序执行，同一用户的并发借书由用户行的行锁串行化
      * 
      * @param userId 用户ID
      * @param bookId 图书ID
@@ -32,84 +58,206 @@ public class BorrowService {
      * @return 成功返回null，失败返回错误消息
      */
     public String borrowBook(Integer userId, Integer bookId, int borrowDays) {
-        // 1. 查询图书信息
-        Book book = bookDao.findById(bookId);
-        if (book == null) {
-            return "图书不存在！";
+        // 1. 检查用户是否已经借阅该图书：摘要中没有时直接进入事务，
+        //    摘要中有时向数据库确认（该书可能已在其他终端归还）
+        LoanSummary summary = LOAN_SUMMARIES.get(userId);
+        if (summary != null && summary.isBorrowing(bookId)) {
+            if (borrowRecordDao.findBorrowingRecord(userId, bookId) != null) {
+                return "您已经借阅了这本书，请先归还后再借！";
+            }
+            LOAN_SUMMARIES.evict(userId);
         }
         
-        // 2. 检查图书库存
-        if (!book.isAvailable()) {
-            return "图书库存不足，暂时无法借阅！";
+        Lock lock = BOOK_LOCKS.tryLock(bookId);
+        if (lock == null) {
+            return "当前借阅该图书的人数较多，请稍后重试！";
+        }
+        try {
+            return TransactionManager.execute(() -> doBorrowBook(userId, bookId, borrowDays));
+        } catch (SQLException e) {
+            System.err.println("借书事务执行失败：" + e.getMessage());
+            e.printStackTrace();
+            return "借书失败，数据库异常，请重试！";
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 还书操作
+     * 业务规则：
+     * 1. 查找用户借阅该图书的记录
+     * 2. 减少用户的未归还借阅数量
+     * 3. 更新借阅记录状态为"已归还"（已归还的记录不会被重复更新）
+     * 4. 原子地增加图书的可借数量
+     * 以上步骤在同一个事务中完成，任一步骤失败都会整体回滚；
+     * 与借书共用图书的分段锁
+     * 
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @return 成功返回null，失败返回错误消息
+     */
+    public String returnBook(Integer userId, Integer bookId) {
+        Lock lock = BOOK_LOCKS.tryLock(bookId);
+        if (lock == null) {
+            return "当前操作该图书的人数较多，请稍后重试！";
+        }
+        try {
+            return TransactionManager.execute(() -> doReturnBook(userId, bookId));
+        } catch (SQLException e) {
+            System.err.println("还书事务执行失败：" + e.getMessage());
+            e.printStackTrace();
+            return "还书失败，数据库异常，请重试！";
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 借书的事务内步骤
+     */
+    private String doBorrowBook(final Integer userId, final Integer bookId, int borrowDays) {
+        // 2. 占用借阅名额：数量检查和增加在同一条SQL中完成，不需要统计借阅记录；
+        //    借书和还书都先锁用户行再锁图书行，加锁顺序一致，避免死锁
+        if (!userDao.increaseOpenLoans(userId)) {
+            // 仅在失败时查询用户，区分"用户不存在"和"达到上限"
+            User user = userDao.findById(userId);
+            if (user == null) {
+                return rollback("用户不存在！");
+            }
+            return rollback("您已借阅 " + user.getOpenLoans() + " 本图书，达到最大可借数量（" + 
+                user.getMaxBorrowCount() + " 本），请先归还后再借！");
         }
         
-        // 3. 检查用户是否已经借阅该图书（避免重复借阅）
-        BorrowRecord existingRecord = borrowRecordDao.findBorrowingRecord(userId, bookId);
-        if (existingRecord != null) {
-            return "您已经借阅了这本书，请先归还后再借！";
+        // 3. 扣减库存：库存检查和扣减在同一条SQL中完成，并发借书不会超借
+        if (!bookDao.decreaseAvailableQuantity(bookId)) {
+            // 仅在失败时查询图书，区分"图书不存在"和"库存不足"
+            Book book = bookDao.findById(bookId);
+            if (book == null) {
+                return rollback("图书不存在！");
+            }
+            return rollback("图书库存不足，暂时无法借阅！");
         }
+        invalidateBookAfterCommit(bookId, -1);
         
         // 4. 计算应还日期
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.DAY_OF_MONTH, borrowDays);
-        Date dueDate = new Date(calendar.getTimeInMillis());
+        final Date dueDate = new Date(calendar.getTimeInMillis());
         
-        // 5. 创建借阅记录
+        // 5. 创建借阅记录（失败时事务回滚，已占用的名额和已扣减的库存随之恢复）
         BorrowRecord record = new BorrowRecord(userId, bookId, dueDate);
-        boolean recordAdded = borrowRecordDao.add(record);
+        boolean recordAdded = borrowRecordDao.addIfNotBorrowing(record);
         if (!recordAdded) {
-            return "创建借阅记录失败，请重试！";
-        }
-        
-        // 6. 减少图书可借数量
-        int newAvailableQuantity = book.getAvailableQuantity() - 1;
-        boolean quantityUpdated = bookDao.updateAvailableQuantity(bookId, newAvailableQuantity);
-        if (!quantityUpdated) {
-            return "更新图书库存失败，请联系管理员！";
+            // 仅在失败时查询借阅记录，区分"重复借阅"（借阅摘要已过时）和插入失败
+            if (borrowRecordDao.findBorrowingRecord(userId, bookId) != null) {
+                LOAN_SUMMARIES.evict(userId);
+                return rollback("您已经借阅了这本书，请先归还后再借！");
+            }
+            return rollback("创建借阅记录失败，请重试！");
         }
+        TransactionManager.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                LOAN_SUMMARIES.loanOpened(userId, bookId, dueDate);
+            }
+        });
         
         // 借书成功
         return null;
     }
     
     /**
-     * 还书操作
-     * 业务规则：
-     * 1. 查找用户借阅该图书的记录
-     * 2. 更新借阅记录状态为"已归还"
-     * 3. 增加图书的可借数量
-     * 
-     * @param userId 用户ID
-     * @param bookId 图书ID
-     * @return 成功返回null，失败返回错误消息
+     * 还书的事务内步骤
      */
-    public String returnBook(Integer userId, Integer bookId) {
+    private String doReturnBook(final Integer userId, final Integer bookId) {
         // 1. 查找借阅记录
         BorrowRecord record = borrowRecordDao.findBorrowingRecord(userId, bookId);
         if (record == null) {
-            return "未找到该图书的借阅记录！";
+            // 借阅摘要中可能还有该书（如已在其他终端归还），重新加载
+            LOAN_SUMMARIES.evict(userId);
+            return rollback("未找到该图书的借阅记录！");
         }
         
-        // 2. 更新借阅记录状态
+        // 2. 释放借阅名额（与借书一样先锁用户行）；计数已为0说明数据不一致，不影响还书，
+        //    数据库出错时回滚，否则该用户会永久少一个借阅名额
+        int loansReleased = userDao.decreaseOpenLoans(userId);
+        if (loansReleased < 0) {
+            return rollback("更新借阅数量失败，请重试！");
+        }
+        if (loansReleased == 0) {
+            System.err.println("用户 " + userId + " 的未归还借阅数量与借阅记录不一致");
+        }
+        
+        // 3. 更新借阅记录状态
         boolean recordUpdated = borrowRecordDao.returnBook(record.getRecordId());
         if (!recordUpdated) {
-            return "更新借阅记录失败，请重试！";
+            return rollback("更新借阅记录失败，请重试！");
         }
         
-        // 3. 增加图书可借数量
-        Book book = bookDao.findById(bookId);
-        if (book != null) {
-            int newAvailableQuantity = book.getAvailableQuantity() + 1;
-            boolean quantityUpdated = bookDao.updateAvailableQuantity(bookId, newAvailableQuantity);
-            if (!quantityUpdated) {
-                return "更新图书库存失败，请联系管理员！";
-            }
+        // 4. 增加图书可借数量（失败时事务回滚，借阅记录保持未归还状态）
+        boolean quantityUpdated = bookDao.increaseAvailableQuantity(bookId);
+        if (!quantityUpdated) {
+            return rollback("更新图书库存失败，请联系管理员！");
         }
+        invalidateBookAfterCommit(bookId, 1);
+        TransactionManager.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                LOAN_SUMMARIES.loanClosed(userId, bookId);
+            }
+        });
         
         // 还书成功
         return null;
     }
     
+    /**
+     * 事务提交后清除图书缓存，并调整检索索引中的可借数量（提交前清除的话，并发查询可能把提交前的库存重新放入缓存）
+     * 
+     * @param availableDelta 可借数量的变化量
+     */
+    private void invalidateBookAfterCommit(final Integer bookId, final int availableDelta) {
+        TransactionManager.afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                BOOK_CACHE.invalidate(bookId);
+                SEARCH_INDEX.adjustAvailableQuantity(bookId, availableDelta);
+            }
+        });
+    }
+    
+    /**
+     * 标记当前事务回滚并返回错误消息
+     * 
+     * @param errorMessage 错误消息
+     * @return 错误消息
+     */
+    private String rollback(String errorMessage) {
+        TransactionManager.setRollbackOnly();
+        return errorMessage;
+    }
+    
+    /**
+     * 查询用户的借阅摘要（正在借阅的图书、数量和最早应还日期）
+     * 用户登录期间缓存在内存中
+     * 
+     * @param userId 用户ID
+     * @return 借阅摘要，查询失败时返回null
+     */
+    public LoanSummary getLoanSummary(Integer userId) {
+        return LOAN_SUMMARIES.get(userId);
+    }
+    
+    /**
+     * 用户登出时移除其借阅摘要
+     * 
+     * @param userId 用户ID
+     */
+    public void endSession(Integer userId) {
+        LOAN_SUMMARIES.evict(userId);
+    }
+    
     /**
      * 查询用户的所有借阅记录
      * 
@@ -130,6 +278,38 @@ public class BorrowService {
         return borrowRecordDao.findBorrowingByUserId(userId);
     }
     
+    /**
+     * 流式扫描借阅记录（按记录ID倒序），用于导出、统计等需要遍历大量历史记录的场景
+     * 记录逐条交给 handler 处理，不会全部加载到内存；方法返回时已关闭结果集并归还连接
+     * 
+     * @param userId 用户ID，为null时扫描所有用户的记录
+     * @param maxRows 最多读取的记录数，0表示不限制
+     * @param handler 每条记录的处理器（期间不要访问数据库），返回false时提前结束
+     * @return true表示扫描完成（包括提前结束），false表示查询失败
+     */
+    public boolean scanBorrowRecords(Integer userId, int maxRows, BorrowRecordDao.BorrowRecordHandler handler) {
+        return borrowRecordDao.scan(userId, maxRows, handler);
+    }
+    
+    /**
+     * 查询最近的借阅记录（按记录ID倒序），记录数由数据库限制
+     * 
+     * @param userId 用户ID，为null时查询所有用户的记录
+     * @param limit 最多返回的记录数
+     * @return 借阅记录列表，查询失败时返回null
+     */
+    public List<BorrowRecord> getRecentBorrowRecords(Integer userId, int limit) {
+        final List<BorrowRecord> records = new ArrayList<>();
+        boolean success = borrowRecordDao.scan(userId, limit, new BorrowRecordDao.BorrowRecordHandler() {
+            @Override
+            public boolean handle(BorrowRecord record) {
+                records.add(record);
+                return true;
+            }
+        });
+        return success ? records : null;
+    }
+    
     /**
      * 查询所有借阅记录
      * 
@@ -0,0 +1,327 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.ExportDao;
+import dev.ganziyan.library.dto.ExportResult;
+import dev.ganziyan.library.util.CsvWriter;
+import dev.ganziyan.library.util.DBUtil;
+import dev.ganziyan.library.util.JsonLinesWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务
+ * 把图书、用户或借阅记录从数据库游标直接写入文件（CSV 或 JSON Lines，可选 gzip 压缩）：
+ * 1. 逐行读取、逐行写入，不在内存中收集记录，内存占用与表的大小无关，可以导出上千万条借阅记录
+ * 2. 先写入临时文件（目标文件名.part），完成后再替换目标文件，失败或取消时删除临时文件，不会留下不完整的导出文件
+ * 3. 每导出 PROGRESS_INTERVAL 行报告一次进度，可以中途取消
+ * CSV 使用 UTF-8 编码并带 BOM（便于 Excel 识别），第一行为列名；日期写成 yyyy-MM-dd，时间写成 yyyy-MM-dd HH:mm:ss。
+ * 也可以在命令行中运行（见 main 方法），不需要启动图形界面
+ */
+public class ExportService {
+
+    /**
+     * 报告进度的间隔行数
+     */
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    // 文件输出和 gzip 压缩的缓冲区大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+
+        /**
+         * CSV，第一行为列名
+         */
+        CSV(".csv"),
+
+        /**
+         * JSON Lines，每行一个 JSON 对象
+         */
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * 获取文件扩展名（不含压缩后缀）
+         *
+         * @return 扩展名，如 .csv
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 导出进度回调
+     */
+    public interface ProgressListener {
+
+        /**
+         * 报告进度（在导出线程中调用）
+         *
+         * @param rowCount 已导出的行数
+         * @return true表示继续，false表示取消导出
+         */
+        boolean progress(long rowCount);
+    }
+
+    private final ExportDao exportDao = new ExportDao();
+
+    /**
+     * 导出一张表
+     *
+     * @param table 要导出的表
+     * @param file 目标文件，已存在时在导出完成后替换
+     * @param format 导出格式
+     * @param gzip 是否使用 gzip 压缩
+     * @param listener 进度回调，可以为null
+     * @return 导出结果
+     * @throws IOException 写入文件失败
+     * @throws SQLException 读取数据库失败（详细原因已输出到日志）
+     */
+    public ExportResult export(ExportDao.Table table, File file, Format format, boolean gzip,
+                               ProgressListener listener) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        ExportResult result = new ExportResult();
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        boolean completed = false;
+        ExportHandler handler = null;
+        try {
+            OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE);
+            if (gzip) {
+                output = new GZIPOutputStream(output, BUFFER_SIZE);
+            }
+            handler = new ExportHandler(format, new OutputStreamWriter(output, StandardCharsets.UTF_8), listener);
+            if (!exportDao.scan(table, handler)) {
+                throw new SQLException("读取" + table.getDisplayName() + "失败");
+            }
+            if (handler.error != null) {
+                throw handler.error;
+            }
+            // 关闭时写出缓冲区中剩余的内容和 gzip 文件尾
+            handler.close();
+            result.setRowCount(handler.rowCount);
+            if (handler.cancelled) {
+                result.setCancelled(true);
+            } else {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                result.setFile(target.toAbsolutePath().toString());
+                result.setFileSize(Files.size(target));
+                completed = true;
+            }
+        } finally {
+            if (handler != null) {
+                closeQuietly(handler);
+            }
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+
+    /**
+     * 生成默认的导出文件名，如 borrow_records-20240101.csv.gz
+     *
+     * @param table 要导出的表
+     * @param format 导出格式
+     * @param gzip 是否使用 gzip 压缩
+     * @return 文件名
+     */
+    public static String defaultFileName(ExportDao.Table table, Format format, boolean gzip) {
+        return table.getTableName() + "-" + new SimpleDateFormat("yyyyMMdd").format(new java.util.Date()) +
+            format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.err.println("关闭导出文件失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 命令行导出
+     * 用法：ExportService &lt;books|users|borrow_records&gt; &lt;输出文件&gt; [--format csv|jsonl] [--gzip]
+     * 退出码：0 导出完成，2 出错
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        ExportDao.Table table = null;
+        File file = null;
+        Format format = Format.CSV;
+        boolean gzip = false;
+        boolean valid = args.length >= 2;
+        for (int i = 0; i < args.length && valid; i++) {
+            if ("--gzip".equals(args[i])) {
+                gzip = true;
+            } else if ("--format".equals(args[i]) && i + 1 < args.length) {
+                String name = args[++i];
+                if ("csv".equals(name)) {
+                    format = Format.CSV;
+                } else if ("jsonl".equals(name)) {
+                    format = Format.JSON_LINES;
+                } else {
+                    valid = false;
+                }
+            } else if (table == null && !args[i].startsWith("--")) {
+                for (ExportDao.Table candidate : ExportDao.Table.values()) {
+                    if (candidate.getTableName().equals(args[i])) {
+                        table = candidate;
+                    }
+                }
+                valid = table != null;
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = new File(args[i]);
+            } else {
+                valid = false;
+            }
+        }
+        if (!valid || table == null || file == null) {
+            System.err.println("用法：ExportService <books|users|borrow_records> <输出文件> [--format csv|jsonl] [--gzip]");
+            System.exit(2);
+        }
+
+        int status = 0;
+        try {
+            ExportResult result = new ExportService().export(table, file, format, gzip, new ProgressListener() {
+                private long lastReport = System.currentTimeMillis();
+
+                @Override
+                public boolean progress(long rowCount) {
+                    long now = System.currentTimeMillis();
+                    if (now - lastReport >= 1000) {
+                        lastReport = now;
+                        System.out.println("已导出 " + rowCount + " 行");
+                    }
+                    return true;
+                }
+            });
+            System.out.println("导出完成：共 " + result.getRowCount() + " 行，" + result.getFileSize() / 1024 +
+                " KB，耗时 " + result.getElapsedMillis() + " ms");
+            System.out.println("已写入：" + result.getFile());
+        } catch (IOException | SQLException e) {
+            System.err.println("导出失败：" + e.getMessage());
+            status = 2;
+        } finally {
+            DBUtil.shutdown();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * 把扫描到的每一行写入文件
+     * 写入失败时记录异常并结束扫描，由 export 方法抛出
+     */
+    private static final class ExportHandler implements ExportDao.RowHandler, Closeable {
+
+        private final Format format;
+        private final Writer writer;
+        private final ProgressListener listener;
+        private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        private CsvWriter csvWriter;
+        private JsonLinesWriter jsonWriter;
+        private String[] columnNames;
+        // CSV 每行的字段，在各行之间复用
+        private String[] fields;
+        private long rowCount;
+        private boolean cancelled;
+        private IOException error;
+
+        private ExportHandler(Format format, Writer writer, ProgressListener listener) {
+            this.format = format;
+            this.writer = writer;
+            this.listener = listener;
+        }
+
+        @Override
+        public void start(String[] columnNames) {
+            this.columnNames = columnNames;
+            try {
+                if (format == Format.CSV) {
+                    writer.write('\uFEFF');
+                    csvWriter = new CsvWriter(writer);
+                    csvWriter.writeRecord(columnNames);
+                    fields = new String[columnNames.length];
+                } else {
+                    jsonWriter = new JsonLinesWriter(writer);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public boolean handle(Object[] values) {
+            if (error != null) {
+                return false;
+            }
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    Object value = values[i];
+                    if (value instanceof Timestamp) {
+                        values[i] = timestampFormat.format(value);
+                    } else if (value instanceof java.sql.Date) {
+                        values[i] = value.toString();
+                    }
+                }
+                if (csvWriter != null) {
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = values[i];
+                        fields[i] = value == null ? null
+                            : value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+                    }
+                    csvWriter.writeRecord(fields);
+                } else {
+                    jsonWriter.writeRecord(columnNames, values);
+                }
+            } catch (IOException e) {
+                error = e;
+                return false;
+            }
+            rowCount++;
+            if (listener != null && rowCount % PROGRESS_INTERVAL == 0 && !listener.progress(rowCount)) {
+                cancelled = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (csvWriter != null) {
+                csvWriter.close();
+            } else if (jsonWriter != null) {
+                jsonWriter.close();
+            } else {
+                writer.close();
+            }
+        }
+    }
+}
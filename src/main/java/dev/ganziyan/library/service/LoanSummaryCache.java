@@ -0,0 +1,115 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.dao.BorrowRecordDao;
+import dev.ganziyan.library.dto.LoanSummary;
+
+import java.sql.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户借阅情况缓存
+ * 用户登录期间在内存中保存其未归还借阅的摘要（正在借阅的图书、数量、最早应还日期），
+ * 借书前的校验因此不需要查询数据库；数据库仍是最终依据，借书的插入语句会再次检查重复借阅。
+ * 1. 第一次查询时从数据库加载，之后借书、还书在事务提交后直接更新摘要
+ * 2. 用户登出时移除摘要
+ * 3. 与 BookCache 一样使用版本号，加载期间发生过更新的结果不放入缓存
+ * 同一用户在其他终端的借还不会通知本进程，借书校验发现摘要与数据库不一致时由调用方调用 evict() 重新加载
+ */
+public class LoanSummaryCache {
+
+    private static final LoanSummaryCache INSTANCE = new LoanSummaryCache(new BorrowRecordDao());
+
+    private final BorrowRecordDao borrowRecordDao;
+
+    // 用户ID -> 借阅摘要
+    private final Map<Integer, LoanSummary> summaries = new HashMap<>();
+
+    // 更新版本号，每次更新或移除时递增
+    private long version;
+
+    LoanSummaryCache(BorrowRecordDao borrowRecordDao) {
+        this.borrowRecordDao = borrowRecordDao;
+    }
+
+    /**
+     * 获取全局缓存实例
+     *
+     * @return 缓存实例
+     */
+    public static LoanSummaryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取用户的借阅摘要，未缓存时从数据库加载
+     *
+     * @param userId 用户ID
+     * @return 借阅摘要，查询数据库失败时返回null
+     */
+    public LoanSummary get(Integer userId) {
+        long loadVersion;
+        synchronized (this) {
+            LoanSummary summary = summaries.get(userId);
+            if (summary != null) {
+                return summary;
+            }
+            loadVersion = version;
+        }
+        Map<Integer, Date> loans = borrowRecordDao.findOpenLoans(userId);
+        if (loans == null) {
+            return null;
+        }
+        LoanSummary summary = new LoanSummary(userId, Collections.unmodifiableMap(loans));
+        synchronized (this) {
+            if (loadVersion == version) {
+                summaries.put(userId, summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * 借书事务提交后记录新的借阅
+     *
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @param dueDate 应还日期
+     */
+    public synchronized void loanOpened(Integer userId, Integer bookId, Date dueDate) {
+        version++;
+        LoanSummary summary = summaries.get(userId);
+        if (summary != null) {
+            Map<Integer, Date> loans = new HashMap<>(summary.getDueDates());
+            loans.put(bookId, dueDate);
+            summaries.put(userId, new LoanSummary(userId, Collections.unmodifiableMap(loans)));
+        }
+    }
+
+    /**
+     * 还书事务提交后移除对应的借阅
+     *
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     */
+    public synchronized void loanClosed(Integer userId, Integer bookId) {
+        version++;
+        LoanSummary summary = summaries.get(userId);
+        if (summary != null && summary.isBorrowing(bookId)) {
+            Map<Integer, Date> loans = new HashMap<>(summary.getDueDates());
+            loans.remove(bookId);
+            summaries.put(userId, new LoanSummary(userId, Collections.unmodifiableMap(loans)));
+        }
+    }
+
+    /**
+     * 移除用户的借阅摘要（用户登出，或发现摘要与数据库不一致时）
+     *
+     * @param userId 用户ID
+     */
+    public synchronized void evict(Integer userId) {
+        version++;
+        summaries.remove(userId);
+    }
+}
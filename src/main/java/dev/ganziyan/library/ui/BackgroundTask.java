@@ -0,0 +1,198 @@
+package dev.ganziyan.library.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 后台任务
+ * doInBackground() 在后台线程中执行数据库操作，其余回调均在事件分发线程（EDT）中执行：
+ * 成功时调用 succeeded()，出现异常时调用 failed()，无论结果如何最后都会调用 finished()。
+ * 任务被取消后不再回调 succeeded()/failed()，过期的查询结果因此不会覆盖界面上较新的数据。
+ * 使用方式：
+ * <pre>
+ * BackgroundTaskExecutor.submit(new BackgroundTask&lt;List&lt;User&gt;&gt;(this) {
+ *     protected List&lt;User&gt; doInBackground() {
+ *         return userService.getAllUsers();
+ *     }
+ *
+ *     protected void succeeded(List&lt;User&gt; users) {
+ *         // 填充表格
+ *     }
+ * });
+ * </pre>
+ *
+ * @param <T> 后台操作的结果类型
+ */
+public abstract class BackgroundTask<T> {
+
+    // 发起任务的窗口，任务执行期间显示等待光标，可以为null
+    private final Component owner;
+
+    private volatile boolean cancelled;
+
+    // 正在执行任务的线程，用于取消时中断
+    private Thread runner;
+
+    // 是否已有进度更新等待在EDT中处理，用于合并频繁的进度通知
+    private final AtomicBoolean progressPending = new AtomicBoolean();
+    private volatile int progressPercent;
+    private volatile String progressMessage;
+
+    /**
+     * 构造方法（不显示等待光标）
+     */
+    public BackgroundTask() {
+        this(null);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param owner 发起任务的窗口，任务执行期间显示等待光标
+     */
+    public BackgroundTask(Component owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * 在后台线程中执行的操作
+     *
+     * @return 操作结果
+     * @throws Exception 操作失败
+     */
+    protected abstract T doInBackground() throws Exception;
+
+    /**
+     * 操作成功（EDT）
+     *
+     * @param result 操作结果
+     */
+    protected void succeeded(T result) {
+    }
+
+    /**
+     * 操作失败（EDT），默认记录异常并提示用户
+     *
+     * @param e 异常
+     */
+    protected void failed(Throwable e) {
+        System.err.println("后台任务执行失败：" + e.getMessage());
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(owner,
+            "操作失败，请稍后重试！",
+            "错误",
+            JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * 进度更新（EDT），频繁的进度通知会被合并，只保证收到最新的进度
+     *
+     * @param percent 进度百分比
+     * @param message 进度说明
+     */
+    protected void progress(int percent, String message) {
+    }
+
+    /**
+     * 任务结束（EDT），成功、失败或取消后都会调用，适合恢复按钮状态
+     */
+    protected void finished() {
+    }
+
+    /**
+     * 在后台线程中报告进度
+     *
+     * @param percent 进度百分比
+     * @param message 进度说明
+     */
+    protected final void setProgress(int percent, String message) {
+        progressPercent = percent;
+        progressMessage = message;
+        if (progressPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    progressPending.set(false);
+                    if (!cancelled) {
+                        progress(progressPercent, progressMessage);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 取消任务：尚未开始的任务不再执行，正在执行的任务会被中断，结果不再回调
+     * 应在EDT中调用
+     */
+    public final void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+
+    /**
+     * 判断任务是否已取消，长时间运行的 doInBackground() 应定期检查
+     *
+     * @return true表示已取消
+     */
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    Component getOwner() {
+        return owner;
+    }
+
+    /**
+     * 在后台线程中执行任务，并把结果交给EDT
+     */
+    final void run() {
+        T result = null;
+        Throwable error = null;
+        if (!cancelled) {
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                result = doInBackground();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    // 清除取消时设置的中断标记，避免影响线程池中的下一个任务
+                    Thread.interrupted();
+                }
+            }
+        }
+        complete(result, error);
+    }
+
+    /**
+     * 在EDT中回调任务结果
+     */
+    final void complete(final T result, final Throwable error) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!cancelled) {
+                        if (error == null) {
+                            succeeded(result);
+                        } else {
+                            failed(error);
+                        }
+                    }
+                } finally {
+                    BackgroundTaskExecutor.taskFinished(BackgroundTask.this);
+                    finished();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package dev.ganziyan.library.ui;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台任务执行器
+ * 界面上的数据加载和修改操作都通过它提交到固定大小的后台线程池，避免慢查询卡住事件分发线程（EDT）。
+ * 线程数不超过连接池的默认最大连接数，等待队列有界，队列满时任务直接失败而不是无限堆积。
+ *
+ * 同一类会被重复触发的操作（如搜索）应通过 {@link Channel} 提交：
+ * 提交新任务时自动取消上一个尚未完成的任务，旧任务的结果不会再回到界面
+ */
+public class BackgroundTaskExecutor {
+
+    // 后台线程数
+    private static final int THREADS = 4;
+
+    // 等待队列长度
+    private static final int QUEUE_CAPACITY = 100;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+        THREADS, THREADS, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+        new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ui-task-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    // 各窗口正在执行的任务数，用于显示等待光标（仅在EDT中访问）
+    private static final Map<Component, Integer> BUSY_OWNERS = new HashMap<>();
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private BackgroundTaskExecutor() {
+    }
+
+    /**
+     * 提交后台任务，应在EDT中调用
+     *
+     * @param task 后台任务
+     * @param <T> 结果类型
+     * @return 提交的任务，可用于取消
+     */
+    public static <T> BackgroundTask<T> submit(final BackgroundTask<T> task) {
+        taskStarted(task);
+        try {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    task.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("后台任务过多，提交失败：" + e.getMessage());
+            task.complete(null, e);
+        }
+        return task;
+    }
+
+    private static void taskStarted(BackgroundTask<?> task) {
+        Component owner = task.getOwner();
+        if (owner == null) {
+            return;
+        }
+        Integer count = BUSY_OWNERS.get(owner);
+        BUSY_OWNERS.put(owner, count == null ? 1 : count + 1);
+        owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+
+    /**
+     * 任务结束（EDT），窗口上没有其他任务时恢复默认光标
+     */
+    static void taskFinished(BackgroundTask<?> task) {
+        Component owner = task.getOwner();
+        if (owner == null) {
+            return;
+        }
+        Integer count = BUSY_OWNERS.get(owner);
+        if (count == null || count <= 1) {
+            BUSY_OWNERS.remove(owner);
+            owner.setCursor(Cursor.getDefaultCursor());
+        } else {
+            BUSY_OWNERS.put(owner, count - 1);
+        }
+    }
+
+    /**
+     * 任务通道：同一时刻只保留最新提交的任务（仅在EDT中使用）
+     */
+    public static class Channel {
+
+        private BackgroundTask<?> current;
+
+        /**
+         * 提交任务，并取消上一个尚未完成的任务
+         *
+         * @param task 后台任务
+         * @param <T> 结果类型
+         * @return 提交的任务
+         */
+        public <T> BackgroundTask<T> submit(BackgroundTask<T> task) {
+            cancel();
+            current = task;
+            return BackgroundTaskExecutor.submit(task);
+        }
+
+        /**
+         * 取消当前任务（如关闭窗口时）
+         */
+        public void cancel() {
+            if (current != null) {
+                current.cancel();
+                current = null;
+            }
+        }
+    }
+}
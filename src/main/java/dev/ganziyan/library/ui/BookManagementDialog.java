@@ -1,14 +1,18 @@
 package dev.ganziyan.library.ui;
 
+import dev.ganziyan.library.dto.BookImportResult;
 import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.service.BookImportService;
 import dev.ganziyan.library.service.BookService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 图书管理对话框
@@ -17,16 +21,18 @@ import java.util.List;
 public class BookManagementDialog extends JDialog {
     
     private BookService bookService = new BookService();
+    private BookImportService importService = new BookImportService();
     
     // 界面组件
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private BookTableModel tableModel;
     private JTextField searchField;
     private JButton searchButton;
     private JButton refreshButton;
     private JButton addButton;
     private JButton editButton;
     private JButton deleteButton;
+    private JButton importButton;
     private JButton closeButton;
     
     /**
@@ -120,10 +126,33 @@ public class BookManagementDialog extends JDialog {
         // 创建表格
         String[] columnNames = {"图书ID", "书名", "作者", "出版社", "ISBN", "分类", 
                                 "总数量", "可借数量", "出版日期", "价格"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        tableModel = new BookTableModel(bookService, columnNames) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // 表格不可编辑
+            protected Object getColumnValue(Book book, int column) {
+                switch (column) {
+                    case 0:
+                        return book.getBookId();
+                    case 1:
+                        return book.getBookName();
+                    case 2:
+                        return book.getAuthor();
+                    case 3:
+                        return book.getPublisher();
+                    case 4:
+                        return book.getIsbn();
+                    case 5:
+                        return book.getCategory();
+                    case 6:
+                        return book.getTotalQuantity();
+                    case 7:
+                        return book.getAvailableQuantity();
+                    case 8:
+                        return book.getPublishDate();
+                    case 9:
+                        return book.getPrice();
+                    default:
+                        return null;
+                }
             }
         };
         
@@ -204,6 +233,21 @@ public class BookManagementDialog extends JDialog {
         });
         panel.add(deleteButton);
         
+        // 批量导入按钮
+        importButton = new JButton("批量导入");
+        importButton.setFont(new Font("微软雅黑", Font.BOLD, 16));
+        importButton.setPreferredSize(new Dimension(130, 40));
+        importButton.setBackground(new Color(70, 130, 180));
+        importButton.setForeground(Color.BLACK);
+        importButton.setFocusPainted(false);
+        importButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleImport();
+            }
+        });
+        panel.add(importButton);
+        
         // 关闭按钮
         closeButton = new JButton("关闭");
         closeButton.setFont(new Font("微软雅黑", Font.PLAIN, 16));
@@ -226,28 +270,8 @@ public class BookManagementDialog extends JDialog {
      * 加载图书数据
      */
     private void loadBookData() {
-        // 清空表格
-        tableModel.setRowCount(0);
-        
-        // 查询所有图书
-        List<Book> books = bookService.getAllBooks();
-        
-        // 填充表格数据
-        for (Book book : books) {
-            Object[] row = {
-                book.getBookId(),
-                book.getBookName(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getIsbn(),
-                book.getCategory(),
-                book.getTotalQuantity(),
-                book.getAvailableQuantity(),
-                book.getPublishDate(),
-                book.getPrice()
-            };
-            tableModel.addRow(row);
-        }
+        // 只统计行数，表格滚动到哪里再加载哪一页
+        tableModel.reload(null, null);
     }
     
     /**
@@ -256,35 +280,18 @@ public class BookManagementDialog extends JDialog {
     private void handleSearch() {
         String keyword = searchField.getText().trim();
         
-        // 清空表格
-        tableModel.setRowCount(0);
-        
-        // 搜索图书
-        List<Book> books = bookService.searchBooks(keyword);
-        
-        // 填充表格数据
-        for (Book book : books) {
-            Object[] row = {
-                book.getBookId(),
-                book.getBookName(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getIsbn(),
-                book.getCategory(),
-                book.getTotalQuantity(),
-                book.getAvailableQuantity(),
-                book.getPublishDate(),
-                book.getPrice()
-            };
-            tableModel.addRow(row);
-        }
-        
-        if (books.isEmpty()) {
-            JOptionPane.showMessageDialog(this, 
-                "未找到符合条件的图书！", 
-                "搜索结果", 
-                JOptionPane.INFORMATION_MESSAGE);
-        }
+        // 搜索图书，统计出结果数量后再提示
+        tableModel.reload(keyword, new BookTableModel.Callback() {
+            @Override
+            public void loaded(int rowCount) {
+                if (rowCount == 0) {
+                    JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                        "未找到符合条件的图书！", 
+                        "搜索结果", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        });
     }
     
     /**
@@ -295,21 +302,29 @@ public class BookManagementDialog extends JDialog {
         dialog.setVisible(true);
         
         if (dialog.isConfirmed()) {
-            Book book = dialog.getBook();
-            boolean success = bookService.addBook(book);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "添加图书成功！", 
-                    "成功", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                loadBookData();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "添加图书失败！", 
-                    "失败", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            final Book book = dialog.getBook();
+            BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+                @Override
+                protected Boolean doInBackground() {
+                    return bookService.addBook(book);
+                }
+                
+                @Override
+                protected void succeeded(Boolean success) {
+                    if (success) {
+                        JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                            "添加图书成功！", 
+                            "成功", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                        loadBookData();
+                    } else {
+                        JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                            "添加图书失败！", 
+                            "失败", 
+                            JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            });
         }
     }
     
@@ -326,10 +341,35 @@ public class BookManagementDialog extends JDialog {
             return;
         }
         
-        // 获取选中图书的ID
-        Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        Book book = bookService.getBookById(bookId);
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, 
+                "数据加载中，请稍后再试！", 
+                "提示", 
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
         
+        // 获取选中图书的ID，在后台查询完整的图书信息后打开编辑窗口
+        final Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        BackgroundTaskExecutor.submit(new BackgroundTask<Book>(this) {
+            @Override
+            protected Book doInBackground() {
+                return bookService.getBookById(bookId);
+            }
+            
+            @Override
+            protected void succeeded(Book book) {
+                showEditForm(book);
+            }
+        });
+    }
+    
+    /**
+     * 打开编辑窗口并保存修改
+     * 
+     * @param book 要编辑的图书，为null表示图书不存在
+     */
+    private void showEditForm(Book book) {
         if (book == null) {
             JOptionPane.showMessageDialog(this, 
                 "图书不存在！", 
@@ -342,21 +382,29 @@ public class BookManagementDialog extends JDialog {
         dialog.setVisible(true);
         
         if (dialog.isConfirmed()) {
-            Book updatedBook = dialog.getBook();
-            boolean success = bookService.updateBook(updatedBook);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "编辑图书成功！", 
-                    "成功", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                loadBookData();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "编辑图书失败！", 
-                    "失败", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            final Book updatedBook = dialog.getBook();
+            BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+                @Override
+                protected Boolean doInBackground() {
+                    return bookService.updateBook(updatedBook);
+                }
+                
+                @Override
+                protected void succeeded(Boolean success) {
+                    if (success) {
+                        JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                            "编辑图书成功！", 
+                            "成功", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                        loadBookData();
+                    } else {
+                        JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                            "编辑图书失败！", 
+                            "失败", 
+                            JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            });
         }
     }
     
@@ -373,8 +421,16 @@ public class BookManagementDialog extends JDialog {
             return;
         }
         
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, 
+                "数据加载中，请稍后再试！", 
+                "提示", 
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
         // 获取选中图书的信息
-        Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        final Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
         String bookName = (String) tableModel.getValueAt(selectedRow, 1);
         
         // 确认删除
@@ -388,19 +444,156 @@ public class BookManagementDialog extends JDialog {
             return;
         }
         
-        boolean success = bookService.deleteBook(bookId);
-        
-        if (success) {
-            JOptionPane.showMessageDialog(this, 
-                "删除图书成功！", 
-                "成功", 
-                JOptionPane.INFORMATION_MESSAGE);
-            loadBookData();
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                "删除图书失败！可能该图书存在借阅记录。", 
-                "失败", 
-                JOptionPane.ERROR_MESSAGE);
+        BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+            @Override
+            protected Boolean doInBackground() {
+                return bookService.deleteBook(bookId);
+            }
+            
+            @Override
+            protected void succeeded(Boolean success) {
+                if (success) {
+                    JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                        "删除图书成功！", 
+                        "成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    loadBookData();
+                } else {
+                    JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                        "删除图书失败！可能该图书存在借阅记录。", 
+                        "失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 处理批量导入
+     * 选择 CSV 文件和 ISBN 冲突的处理方式后在后台导入，导入期间显示进度，可以中途取消
+     */
+    private void handleImport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("选择要导入的图书文件（CSV，UTF-8 编码，第一行为表头）");
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV 文件 (*.csv)", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = chooser.getSelectedFile();
+        
+        Object[] options = {"更新已有图书", "跳过并记录", "取消"};
+        int choice = JOptionPane.showOptionDialog(this, 
+            "文件中的 ISBN 与已有图书相同时如何处理？\n跳过的行和校验失败的行会写入拒绝文件。", 
+            "批量导入", 
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.QUESTION_MESSAGE, 
+            null, 
+            options, 
+            options[1]);
+        if (choice != 0 && choice != 1) {
+            return;
+        }
+        final BookImportService.ConflictMode mode = choice == 0 
+            ? BookImportService.ConflictMode.UPSERT : BookImportService.ConflictMode.REJECT;
+        
+        // 进度窗口
+        final JDialog progressDialog = new JDialog(this, "批量导入", true);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        final JLabel progressLabel = new JLabel("正在导入：" + file.getName());
+        progressLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        panel.add(progressLabel, BorderLayout.NORTH);
+        final JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        panel.add(progressBar, BorderLayout.CENTER);
+        final AtomicBoolean cancelRequested = new AtomicBoolean();
+        final JButton cancelButton = new JButton("取消");
+        cancelButton.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // 当前批次提交后停止，已提交的图书保留
+                cancelRequested.set(true);
+                cancelButton.setEnabled(false);
+                progressLabel.setText("正在取消，等待当前批次提交...");
+            }
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(cancelButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        progressDialog.add(panel);
+        progressDialog.setSize(460, 170);
+        progressDialog.setLocationRelativeTo(this);
+        
+        final long fileLength = Math.max(1, file.length());
+        BackgroundTaskExecutor.submit(new BackgroundTask<BookImportResult>(this) {
+            @Override
+            protected BookImportResult doInBackground() throws Exception {
+                return importService.importBooks(file, StandardCharsets.UTF_8, mode, 
+                    new BookImportService.ProgressListener() {
+                        @Override
+                        public boolean progress(BookImportResult progress, long bytesRead) {
+                            setProgress((int) Math.min(100, bytesRead * 100 / fileLength), 
+                                "已处理 " + progress.getTotalRows() + " 行，新增 " + progress.getInsertedCount() + 
+                                " 本，更新 " + progress.getUpdatedCount() + " 本，拒绝 " + progress.getRejectedCount() + " 行");
+                            return !cancelRequested.get();
+                        }
+                    });
+            }
+            
+            @Override
+            protected void progress(int percent, String message) {
+                progressBar.setValue(percent);
+                if (!cancelRequested.get()) {
+                    progressLabel.setText(message);
+                }
+            }
+            
+            @Override
+            protected void succeeded(BookImportResult result) {
+                progressDialog.dispose();
+                showImportResult(result);
+            }
+            
+            @Override
+            protected void failed(Throwable e) {
+                progressDialog.dispose();
+                System.err.println("批量导入失败：" + e.getMessage());
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(BookManagementDialog.this, 
+                    "导入失败：" + e.getMessage() + "\n已提交的图书不会撤销。", 
+                    "失败", 
+                    JOptionPane.ERROR_MESSAGE);
+            }
+            
+            @Override
+            protected void finished() {
+                progressDialog.dispose();
+                loadBookData();
+            }
+        });
+        // 模态窗口在任务结束时关闭，任务的回调都在窗口显示之后才会执行
+        progressDialog.setVisible(true);
+    }
+    
+    /**
+     * 显示批量导入结果
+     * 
+     * @param result 导入结果
+     */
+    private void showImportResult(BookImportResult result) {
+        StringBuilder message = new StringBuilder(result.isCancelled() ? "导入已取消，已提交的图书保留。\n" : "导入完成！\n");
+        message.append("共读取 ").append(result.getTotalRows()).append(" 行：新增 ")
+            .append(result.getInsertedCount()).append(" 本，更新 ")
+            .append(result.getUpdatedCount()).append(" 本，拒绝 ")
+            .append(result.getRejectedCount()).append(" 行");
+        if (result.getRejectFile() != null) {
+            message.append("\n被拒绝的行及原因已写入：\n").append(result.getRejectFile());
         }
+        JOptionPane.showMessageDialog(this, 
+            message.toString(), 
+            "批量导入", 
+            result.getRejectedCount() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
     }
 }
@@ -0,0 +1,274 @@
+package dev.ganziyan.library.ui;
+
+import dev.ganziyan.library.dto.Page;
+import dev.ganziyan.library.entity.Book;
+import dev.ganziyan.library.service.BookService;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 按需加载的图书表格模型
+ * 表格行数取自 COUNT 查询，单元格数据按页（PAGE_SIZE 行）通过 BackgroundTaskExecutor 在后台用游标分页查询加载，
+ * 只在内存中保留最近访问的 MAX_CACHED_PAGES 页；某页加载完成后会预取下一页，保证顺序滚动流畅。
+ * 尚未加载的行显示为空，加载完成后只刷新该页对应的行。
+ *
+ * 除后台查询外，模型的所有状态只在事件分发线程（EDT）中读写
+ */
+public abstract class BookTableModel extends AbstractTableModel {
+
+    // 每页行数
+    private static final int PAGE_SIZE = 200;
+
+    // 最多缓存的页数
+    private static final int MAX_CACHED_PAGES = 20;
+
+    private final BookService bookService;
+    private final String[] columnNames;
+
+    // 当前搜索关键词，为null时显示所有图书
+    private String keyword;
+
+    // 当前筛选的分类，为null时不按分类筛选
+    private String category;
+    private int rowCount;
+
+    // 每次重新加载递增，用于丢弃过期的查询结果（后台线程据此跳过已过期的加载）
+    private volatile int generation;
+
+    // 行数统计任务，重新加载时取消上一次统计
+    private final BackgroundTaskExecutor.Channel countChannel = new BackgroundTaskExecutor.Channel();
+
+    // 已加载的页（按访问顺序淘汰）
+    private final Map<Integer, Book[]> pages = new LinkedHashMap<Integer, Book[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Book[]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    // 页号 -> 该页起始游标（第0页为null），页被淘汰后游标仍保留，再次加载无需重新定位
+    private final TreeMap<Integer, Integer> pageCursors = new TreeMap<>();
+
+    // 正在加载的页
+    private final Set<Integer> loadingPages = new HashSet<>();
+
+    /**
+     * 构造方法
+     *
+     * @param bookService 图书服务
+     * @param columnNames 列名
+     */
+    public BookTableModel(BookService bookService, String[] columnNames) {
+        this.bookService = bookService;
+        this.columnNames = columnNames;
+    }
+
+    /**
+     * 获取图书在指定列显示的值
+     *
+     * @param book 图书
+     * @param column 列号
+     * @return 单元格的值
+     */
+    protected abstract Object getColumnValue(Book book, int column);
+
+    /**
+     * 重新加载数据：清空已加载的页，在后台统计行数后刷新表格
+     *
+     * @param keyword 搜索关键词，为空时显示所有图书
+     * @param onLoaded 统计完成后在EDT中回调，参数为总行数，可以为null
+     */
+    public void reload(String keyword, Callback onLoaded) {
+        reload(keyword, null, onLoaded);
+    }
+
+    /**
+     * 按关键词和分类重新加载数据
+     *
+     * @param keyword 搜索关键词，为空时不按关键词筛选
+     * @param category 图书分类，为空时不按分类筛选
+     * @param onLoaded 统计完成后在EDT中回调，参数为总行数，可以为null
+     */
+    public void reload(String keyword, String category, final Callback onLoaded) {
+        this.keyword = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+        this.category = category == null || category.trim().isEmpty() ? null : category.trim();
+        generation++;
+        final String currentKeyword = this.keyword;
+        final String currentCategory = this.category;
+        pages.clear();
+        pageCursors.clear();
+        pageCursors.put(0, null);
+        loadingPages.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+
+        countChannel.submit(new BackgroundTask<Integer>() {
+            @Override
+            protected Integer doInBackground() {
+                return bookService.countBooks(currentKeyword, currentCategory);
+            }
+
+            @Override
+            protected void succeeded(Integer count) {
+                rowCount = count;
+                fireTableDataChanged();
+                if (onLoaded != null) {
+                    onLoaded.loaded(count);
+                }
+            }
+        });
+    }
+
+    /**
+     * 判断指定行的数据是否已加载
+     *
+     * @param row 行号
+     * @return true表示已加载
+     */
+    public boolean isRowLoaded(int row) {
+        return getBookAt(row) != null;
+    }
+
+    /**
+     * 获取指定行的图书，未加载时返回null并在后台加载该页
+     *
+     * @param row 行号
+     * @return 图书对象
+     */
+    public Book getBookAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int pageIndex = row / PAGE_SIZE;
+        Book[] page = pages.get(pageIndex);
+        if (page == null) {
+            loadPage(pageIndex, false);
+            return null;
+        }
+        int offset = row % PAGE_SIZE;
+        return offset < page.length ? page[offset] : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // 表格不可编辑
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Book book = getBookAt(row);
+        return book == null ? null : getColumnValue(book, column);
+    }
+
+    /**
+     * 在后台加载一页数据
+     * 起始游标未知时（直接拖动滚动条跳到远处），先从最近的已知游标处跳过中间的行进行定位
+     *
+     * @param pageIndex 页号
+     * @param prefetch 是否为预取（预取的页加载完成后不再继续预取）
+     */
+    private void loadPage(final int pageIndex, final boolean prefetch) {
+        if (pageIndex * PAGE_SIZE >= rowCount || !loadingPages.add(pageIndex)) {
+            return;
+        }
+
+        final int currentGeneration = generation;
+        final String currentKeyword = keyword;
+        final String currentCategory = category;
+        final Map.Entry<Integer, Integer> known = pageCursors.floorEntry(pageIndex);
+        final int skip = (pageIndex - known.getKey()) * PAGE_SIZE;
+
+        BackgroundTaskExecutor.submit(new BackgroundTask<Page<Book>>() {
+            private Integer startCursor;
+
+            @Override
+            protected Page<Book> doInBackground() {
+                if (currentGeneration != generation) {
+                    return null; // 已重新加载，跳过过期的页
+                }
+                startCursor = known.getValue();
+                if (skip > 0
+                    && (startCursor = bookService.seekCursor(currentKeyword, currentCategory, startCursor, skip)) == null) {
+                    // 定位超出范围（统计行数后数据被删除），该页为空
+                    return new Page<>(new ArrayList<Book>(), null);
+                }
+                return bookService.searchBooksPage(currentKeyword, currentCategory, startCursor, PAGE_SIZE);
+            }
+
+            @Override
+            protected void succeeded(Page<Book> page) {
+                if (currentGeneration == generation) {
+                    pageLoaded(pageIndex, startCursor, page, prefetch);
+                }
+            }
+
+            @Override
+            protected void failed(Throwable e) {
+                System.err.println("加载图书列表失败：" + e.getMessage());
+                e.printStackTrace();
+                if (currentGeneration == generation) {
+                    loadingPages.remove(pageIndex);
+                }
+            }
+        });
+    }
+
+    /**
+     * 页面加载完成（在EDT中执行）
+     */
+    private void pageLoaded(int pageIndex, Integer startCursor, Page<Book> page, boolean prefetch) {
+        loadingPages.remove(pageIndex);
+        List<Book> items = page.getItems();
+        pages.put(pageIndex, items.toArray(new Book[0]));
+        pageCursors.put(pageIndex, startCursor);
+        if (page.hasMore()) {
+            pageCursors.put(pageIndex + 1, page.getNextCursor());
+        }
+
+        int firstRow = pageIndex * PAGE_SIZE;
+        int lastRow = Math.min(firstRow + PAGE_SIZE, rowCount) - 1;
+        if (lastRow >= firstRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+
+        // 预取下一页
+        if (!prefetch && page.hasMore() && !pages.containsKey(pageIndex + 1)) {
+            loadPage(pageIndex + 1, true);
+        }
+    }
+
+    /**
+     * 行数统计完成的回调
+     */
+    public interface Callback {
+
+        /**
+         * 统计完成
+         *
+         * @param rowCount 总行数
+         */
+        void loaded(int rowCount);
+    }
+}
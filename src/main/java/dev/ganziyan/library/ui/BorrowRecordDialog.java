@@ -6,6 +6,7 @@ import dev.ganziyan.library.service.BorrowService;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.List;
 
@@ -15,10 +16,16 @@ import java.util.List;
  */
 public class BorrowRecordDialog extends JDialog {
     
+    // 表格最多显示的记录数（最近的记录），借阅历史很多时避免全部加载到内存
+    private static final int MAX_DISPLAY_ROWS = 5000;
+    
     private BorrowService borrowService = new BorrowService();
     private Integer userId; // 用户ID，为null表示查询所有记录
     private boolean showAll; // 是否显示所有用户的记录
     
+    // 借阅记录加载任务
+    private final BackgroundTaskExecutor.Channel loadChannel = new BackgroundTaskExecutor.Channel();
+    
     private JTable recordTable;
     private DefaultTableModel tableModel;
     
@@ -115,17 +122,37 @@ public class BorrowRecordDialog extends JDialog {
      * 加载借阅记录数据
      */
     private void loadRecordData() {
+        // 在后台查询最近的借阅记录
+        loadChannel.submit(new BackgroundTask<List<BorrowRecord>>(this) {
+            @Override
+            protected List<BorrowRecord> doInBackground() throws Exception {
+                List<BorrowRecord> records = borrowService.getRecentBorrowRecords(showAll ? null : userId, 
+                    MAX_DISPLAY_ROWS);
+                if (records == null) {
+                    throw new SQLException("查询借阅记录失败");
+                }
+                return records;
+            }
+            
+            @Override
+            protected void succeeded(List<BorrowRecord> records) {
+                fillTable(records);
+                if (records.size() >= MAX_DISPLAY_ROWS) {
+                    setTitle(getTitle() + "（仅显示最近 " + MAX_DISPLAY_ROWS + " 条）");
+                }
+            }
+        });
+    }
+    
+    /**
+     * 填充借阅记录表格
+     * 
+     * @param records 借阅记录列表
+     */
+    private void fillTable(List<BorrowRecord> records) {
         // 清空表格
         tableModel.setRowCount(0);
         
-        // 查询借阅记录
-        List<BorrowRecord> records;
-        if (showAll) {
-            records = borrowService.getAllBorrowRecords();
-        } else {
-            records = borrowService.getUserBorrowRecords(userId);
-        }
-        
         // 日期格式化
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
         SimpleDateFormat dateTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -176,4 +203,13 @@ public class BorrowRecordDialog extends JDialog {
                 JOptionPane.INFORMATION_MESSAGE);
         }
     }
+    
+    /**
+     * 关闭对话框时取消尚未完成的加载
+     */
+    @Override
+    public void dispose() {
+        loadChannel.cancel();
+        super.dispose();
+    }
 }
@@ -247,22 +247,36 @@ public class ChangePasswordDialog extends JDialog {
             return;
         }
         
-        // 7. 更新密码
+        // 7. 在后台更新密码，执行期间禁用确认按钮
         currentUser.setPassword(newPassword);
-        boolean success = userService.updateUser(currentUser);
-        
-        // 8. 处理更新结果
-        if (success) {
-            JOptionPane.showMessageDialog(this, 
-                "密码修改成功！请使用新密码登录。", 
-                "成功", 
-                JOptionPane.INFORMATION_MESSAGE);
-            dispose();
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                "密码修改失败，请重试！", 
-                "失败", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        confirmButton.setEnabled(false);
+        BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+            @Override
+            protected Boolean doInBackground() {
+                return userService.updateUser(currentUser);
+            }
+            
+            @Override
+            protected void succeeded(Boolean success) {
+                // 8. 处理更新结果
+                if (success) {
+                    JOptionPane.showMessageDialog(ChangePasswordDialog.this, 
+                        "密码修改成功！请使用新密码登录。", 
+                        "成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                } else {
+                    JOptionPane.showMessageDialog(ChangePasswordDialog.this, 
+                        "密码修改失败，请重试！", 
+                        "失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            
+            @Override
+            protected void finished() {
+                confirmButton.setEnabled(true);
+            }
+        });
     }
 }
@@ -0,0 +1,299 @@
+package dev.ganziyan.library.ui;
+
+import dev.ganziyan.library.dao.ExportDao;
+import dev.ganziyan.library.dto.ExportResult;
+import dev.ganziyan.library.service.ExportService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 数据导出对话框（仅管理员可见）
+ * 选择要导出的表、格式和是否压缩，在后台流式导出到文件，导出期间显示已导出的行数，可以中途取消
+ */
+public class ExportDialog extends JDialog {
+
+    private ExportService exportService = new ExportService();
+
+    // 界面组件
+    private JComboBox<ExportDao.Table> tableComboBox;
+    private JRadioButton csvRadioButton;
+    private JRadioButton jsonRadioButton;
+    private JCheckBox gzipCheckBox;
+    private JProgressBar progressBar;
+    private JLabel progressLabel;
+    private JButton exportButton;
+    private JButton closeButton;
+
+    // 导出是否正在进行，以及是否已请求取消
+    private boolean exporting;
+    private final AtomicBoolean cancelRequested = new AtomicBoolean();
+
+    /**
+     * 构造方法
+     *
+     * @param parent 父窗口
+     */
+    public ExportDialog(Frame parent) {
+        super(parent, "数据导出", true);
+        initComponents();
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * 初始化界面组件
+     */
+    private void initComponents() {
+        setSize(520, 380);
+        setLayout(new BorderLayout(10, 10));
+        setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                handleClose();
+            }
+        });
+
+        // 创建标题面板
+        JPanel titlePanel = new JPanel();
+        titlePanel.setBackground(new Color(70, 130, 180));
+        titlePanel.setPreferredSize(new Dimension(0, 60));
+        JLabel titleLabel = new JLabel("数据导出");
+        titleLabel.setFont(new Font("微软雅黑", Font.BOLD, 24));
+        titleLabel.setForeground(Color.WHITE);
+        titlePanel.add(titleLabel);
+        add(titlePanel, BorderLayout.NORTH);
+
+        add(createFormPanel(), BorderLayout.CENTER);
+        add(createButtonPanel(), BorderLayout.SOUTH);
+    }
+
+    /**
+     * 创建表单面板
+     */
+    private JPanel createFormPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 40, 10, 40));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(6, 6, 6, 6);
+
+        // 导出内容
+        JLabel tableLabel = new JLabel("导出内容:");
+        tableLabel.setFont(new Font("微软雅黑", Font.PLAIN, 16));
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        gbc.weightx = 0.3;
+        panel.add(tableLabel, gbc);
+
+        tableComboBox = new JComboBox<>(ExportDao.Table.values());
+        tableComboBox.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        gbc.gridx = 1;
+        gbc.weightx = 0.7;
+        panel.add(tableComboBox, gbc);
+
+        // 文件格式
+        JLabel formatLabel = new JLabel("文件格式:");
+        formatLabel.setFont(new Font("微软雅黑", Font.PLAIN, 16));
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.weightx = 0.3;
+        panel.add(formatLabel, gbc);
+
+        csvRadioButton = new JRadioButton("CSV", true);
+        csvRadioButton.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        jsonRadioButton = new JRadioButton("JSON Lines");
+        jsonRadioButton.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        ButtonGroup formatGroup = new ButtonGroup();
+        formatGroup.add(csvRadioButton);
+        formatGroup.add(jsonRadioButton);
+        JPanel formatPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        formatPanel.add(csvRadioButton);
+        formatPanel.add(jsonRadioButton);
+        gbc.gridx = 1;
+        gbc.weightx = 0.7;
+        panel.add(formatPanel, gbc);
+
+        gzipCheckBox = new JCheckBox("gzip 压缩（适合导出大量借阅记录）");
+        gzipCheckBox.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        panel.add(gzipCheckBox, gbc);
+
+        // 导出进度
+        progressBar = new JProgressBar();
+        progressBar.setVisible(false);
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        panel.add(progressBar, gbc);
+
+        progressLabel = new JLabel(" ");
+        progressLabel.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+        progressLabel.setForeground(Color.GRAY);
+        gbc.gridy = 4;
+        panel.add(progressLabel, gbc);
+
+        return panel;
+    }
+
+    /**
+     * 创建按钮面板
+     */
+    private JPanel createButtonPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 15));
+        panel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+
+        // 导出按钮
+        exportButton = new JButton("导出");
+        exportButton.setFont(new Font("微软雅黑", Font.BOLD, 16));
+        exportButton.setPreferredSize(new Dimension(130, 40));
+        exportButton.setBackground(new Color(70, 130, 180));
+        exportButton.setForeground(Color.BLACK);
+        exportButton.setFocusPainted(false);
+        exportButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleExport();
+            }
+        });
+        panel.add(exportButton);
+
+        // 关闭按钮（导出期间为取消按钮）
+        closeButton = new JButton("关闭");
+        closeButton.setFont(new Font("微软雅黑", Font.PLAIN, 16));
+        closeButton.setPreferredSize(new Dimension(130, 40));
+        closeButton.setBackground(new Color(169, 169, 169));
+        closeButton.setForeground(Color.BLACK);
+        closeButton.setFocusPainted(false);
+        closeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleClose();
+            }
+        });
+        panel.add(closeButton);
+
+        return panel;
+    }
+
+    /**
+     * 处理导出
+     */
+    private void handleExport() {
+        final ExportDao.Table table = (ExportDao.Table) tableComboBox.getSelectedItem();
+        final ExportService.Format format = jsonRadioButton.isSelected()
+            ? ExportService.Format.JSON_LINES : ExportService.Format.CSV;
+        final boolean gzip = gzipCheckBox.isSelected();
+
+        // 1. 选择保存位置
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("导出" + table.getDisplayName());
+        chooser.setSelectedFile(new File(ExportService.defaultFileName(table, format, gzip)));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final File file = chooser.getSelectedFile();
+        if (file.exists()) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                "文件 " + file.getName() + " 已存在，是否覆盖？",
+                "确认覆盖",
+                JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        // 2. 在后台导出，行数未知，进度条只表示正在进行
+        setExporting(true);
+        progressLabel.setText("正在导出" + table.getDisplayName() + "...");
+        BackgroundTaskExecutor.submit(new BackgroundTask<ExportResult>(this) {
+            @Override
+            protected ExportResult doInBackground() throws Exception {
+                return exportService.export(table, file, format, gzip, new ExportService.ProgressListener() {
+                    @Override
+                    public boolean progress(long rowCount) {
+                        setProgress(0, "已导出 " + rowCount + " 行");
+                        return !cancelRequested.get();
+                    }
+                });
+            }
+
+            @Override
+            protected void progress(int percent, String message) {
+                if (!cancelRequested.get()) {
+                    progressLabel.setText(message);
+                }
+            }
+
+            @Override
+            protected void succeeded(ExportResult result) {
+                if (result.isCancelled()) {
+                    progressLabel.setText("导出已取消，未生成文件");
+                    return;
+                }
+                progressLabel.setText("已导出 " + result.getRowCount() + " 行");
+                JOptionPane.showMessageDialog(ExportDialog.this,
+                    "导出完成！共 " + result.getRowCount() + " 行，耗时 " + result.getElapsedMillis() / 1000.0 + " 秒\n" +
+                    "已写入：" + result.getFile(),
+                    "成功",
+                    JOptionPane.INFORMATION_MESSAGE);
+            }
+
+            @Override
+            protected void failed(Throwable e) {
+                System.err.println("数据导出失败：" + e.getMessage());
+                e.printStackTrace();
+                progressLabel.setText(" ");
+                JOptionPane.showMessageDialog(ExportDialog.this,
+                    "导出失败：" + e.getMessage(),
+                    "失败",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+
+            @Override
+            protected void finished() {
+                setExporting(false);
+            }
+        });
+    }
+
+    /**
+     * 处理关闭：导出期间请求取消（下一次报告进度时停止，并删除未完成的文件），否则关闭对话框
+     */
+    private void handleClose() {
+        if (!exporting) {
+            dispose();
+            return;
+        }
+        cancelRequested.set(true);
+        closeButton.setEnabled(false);
+        progressLabel.setText("正在取消...");
+    }
+
+    /**
+     * 切换导出状态
+     *
+     * @param exporting 是否正在导出
+     */
+    private void setExporting(boolean exporting) {
+        this.exporting = exporting;
+        cancelRequested.set(false);
+        tableComboBox.setEnabled(!exporting);
+        csvRadioButton.setEnabled(!exporting);
+        jsonRadioButton.setEnabled(!exporting);
+        gzipCheckBox.setEnabled(!exporting);
+        exportButton.setEnabled(!exporting);
+        progressBar.setIndeterminate(exporting);
+        progressBar.setVisible(exporting);
+        closeButton.setText(exporting ? "取消导出" : "关闭");
+        closeButton.setEnabled(true);
+    }
+}
@@ -182,8 +182,8 @@ public class LoginFrame extends JFrame {
      */
     private void handleLogin() {
         // 1. 获取用户输入
-        String username = usernameField.getText().trim();
-        String password = new String(passwordField.getPassword()).trim();
+        final String username = usernameField.getText().trim();
+        final String password = new String(passwordField.getPassword()).trim();
         
         // 2. 验证输入
         if (username.isEmpty() || password.isEmpty()) {
@@ -194,9 +194,32 @@ public class LoginFrame extends JFrame {
             return;
         }
         
-        // 3. 调用服务层进行登录验证
-        User user = userService.login(username, password);
-        
+        // 3. 在后台调用服务层进行登录验证，验证期间禁用登录按钮
+        loginButton.setEnabled(false);
+        BackgroundTaskExecutor.submit(new BackgroundTask<User>(this) {
+            @Override
+            protected User doInBackground() {
+                return userService.login(username, password);
+            }
+            
+            @Override
+            protected void succeeded(User user) {
+                handleLoginResult(user);
+            }
+            
+            @Override
+            protected void finished() {
+                loginButton.setEnabled(true);
+            }
+        });
+    }
+    
+    /**
+     * 处理登录结果
+     * 
+     * @param user 登录成功的用户，为null表示用户名或密码错误
+     */
+    private void handleLoginResult(User user) {
         // 4. 处理登录结果
         if (user != null) {
             // 登录成功
@@ -1,16 +1,21 @@
 package dev.ganziyan.library.ui;
 
+import dev.ganziyan.library.dto.BookFacets;
+import dev.ganziyan.library.dto.LoanSummary;
+import dev.ganziyan.library.dto.Suggestion;
 import dev.ganziyan.library.entity.Book;
 import dev.ganziyan.library.entity.User;
 import dev.ganziyan.library.service.BookService;
 import dev.ganziyan.library.service.BorrowService;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 主界面
@@ -18,14 +23,23 @@ import java.util.List;
  */
 public class MainFrame extends JFrame {
     
+    // 分类下拉框中表示不按分类筛选的选项
+    private static final String ALL_CATEGORIES = "全部分类";
+    
+    // 分面统计提示中最多列出的出版社数量
+    private static final int MAX_FACET_PUBLISHERS = 5;
+    
     private User currentUser; // 当前登录用户
     private BookService bookService = new BookService();
     private BorrowService borrowService = new BorrowService();
     
     // 界面组件
     private JTable bookTable;
-    private DefaultTableModel tableModel;
+    private BookTableModel tableModel;
     private JTextField searchField;
+    private JComboBox<String> categoryComboBox;
+    private JLabel facetLabel;
+    private JLabel loanLabel;
     private JButton searchButton;
     private JButton refreshButton;
     private JButton borrowButton;
@@ -35,9 +49,19 @@ public class MainFrame extends JFrame {
     private JButton allRecordsButton;
     private JButton manageBooksButton;
     private JButton userManagementButton;
+    private JButton exportButton;
     private JButton changePasswordButton;
     private JButton logoutButton;
     
+    // 当前搜索结果中各分类的图书数量，显示在分类下拉框中
+    private Map<String, Integer> categoryCounts = new HashMap<>();
+    // 重新填充分类下拉框时不触发搜索
+    private boolean updatingCategories;
+    private final BackgroundTaskExecutor.Channel facetChannel = new BackgroundTaskExecutor.Channel();
+    
+    // 容错搜索（新的搜索会取消尚未返回的容错搜索）
+    private final BackgroundTaskExecutor.Channel fuzzyChannel = new BackgroundTaskExecutor.Channel();
+    
     /**
      * 构造方法
      * 
@@ -46,7 +70,9 @@ public class MainFrame extends JFrame {
     public MainFrame(User user) {
         this.currentUser = user;
         initComponents();
+        loadCategories();
         loadBookData();
+        loadLoanSummary();
         // 重新 pack 并居中，然后自动显示窗口，用户无需手动调整大小
         pack();
         setLocationRelativeTo(null); // 窗口居中
@@ -95,18 +121,82 @@ public class MainFrame extends JFrame {
             " (" + currentUser.getUserType() + ")");
         welcomeLabel.setFont(new Font("微软雅黑", Font.BOLD, 18));
         welcomeLabel.setForeground(new Color(70, 130, 180));
-        panel.add(welcomeLabel, BorderLayout.WEST);
+        
+        // 当前借阅情况（借阅数量和最早应还日期）
+        loanLabel = new JLabel(" ");
+        loanLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        
+        JPanel userPanel = new JPanel(new GridLayout(2, 1));
+        userPanel.setOpaque(false);
+        userPanel.add(welcomeLabel);
+        userPanel.add(loanLabel);
+        panel.add(userPanel, BorderLayout.WEST);
+        
+        // 分面统计（可借/已借完数量，悬停显示主要出版社）
+        facetLabel = new JLabel();
+        facetLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        facetLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        panel.add(facetLabel, BorderLayout.CENTER);
         
         // 搜索面板
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
         searchPanel.setBackground(new Color(240, 248, 255));
         
+        // 分类筛选，选项后显示当前搜索结果在该分类中的数量
+        categoryComboBox = new JComboBox<>(new String[]{ALL_CATEGORIES});
+        categoryComboBox.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        categoryComboBox.setPrototypeDisplayValue("古典文学（00000）");
+        categoryComboBox.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Object text = value;
+                if (value != null && !ALL_CATEGORIES.equals(value)) {
+                    Integer count = categoryCounts.get(value);
+                    text = value + "（" + (count == null ? 0 : count) + "）";
+                }
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        categoryComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!updatingCategories) {
+                    handleSearch();
+                }
+            }
+        });
+        searchPanel.add(categoryComboBox);
+        
         JLabel searchLabel = new JLabel("搜索:");
         searchLabel.setFont(new Font("微软雅黑", Font.PLAIN, 14));
         searchPanel.add(searchLabel);
         
         searchField = new JTextField(20);
         searchField.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+        // 回车直接搜索
+        searchField.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                handleSearch();
+            }
+        });
+        // 输入时提示书名、作者、ISBN，选中书名或作者后立即搜索，选中ISBN时显示该图书详情
+        new SuggestionPopup(searchField, new SuggestionPopup.Provider() {
+            @Override
+            public List<Suggestion> suggest(String prefix) {
+                return bookService.suggest(prefix, 10);
+            }
+        }, new SuggestionPopup.Listener() {
+            @Override
+            public void selected(Suggestion suggestion) {
+                if (Suggestion.TYPE_ISBN.equals(suggestion.getType())) {
+                    loadBookDescription(suggestion.getBookId());
+                } else {
+                    handleSearch();
+                }
+            }
+        });
         searchPanel.add(searchField);
         
         searchButton = new JButton("搜索");
@@ -130,6 +220,7 @@ public class MainFrame extends JFrame {
         refreshButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                loadCategories();
                 loadBookData();
             }
         });
@@ -149,10 +240,29 @@ public class MainFrame extends JFrame {
         
         // 创建表格
         String[] columnNames = {"图书ID", "书名", "作者", "出版社", "分类", "总数量", "可借数量", "价格"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        tableModel = new BookTableModel(bookService, columnNames) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // 表格不可编辑
+            protected Object getColumnValue(Book book, int column) {
+                switch (column) {
+                    case 0:
+                        return book.getBookId();
+                    case 1:
+                        return book.getBookName();
+                    case 2:
+                        return book.getAuthor();
+                    case 3:
+                        return book.getPublisher();
+                    case 4:
+                        return book.getCategory();
+                    case 5:
+                        return book.getTotalQuantity();
+                    case 6:
+                        return book.getAvailableQuantity();
+                    case 7:
+                        return book.getPrice();
+                    default:
+                        return null;
+                }
             }
         };
         
@@ -247,7 +357,7 @@ public class MainFrame extends JFrame {
         });
         panel.add(myRecordsButton);
         
-        // 如果是管理员，显示所有借阅记录按钮和图书管理按钮
+        // 如果是管理员，显示所有借阅记录、图书管理、用户管理和数据导出按钮
         if (currentUser.isAdmin()) {
             allRecordsButton = new JButton("所有借阅记录");
             allRecordsButton.setFont(new Font("微软雅黑", Font.PLAIN, 16));
@@ -290,6 +400,20 @@ public class MainFrame extends JFrame {
                 }
             });
             panel.add(userManagementButton);
+            
+            exportButton = new JButton("数据导出");
+            exportButton.setFont(new Font("微软雅黑", Font.PLAIN, 16));
+            exportButton.setPreferredSize(new Dimension(120, 40));
+            exportButton.setBackground(new Color(60, 179, 113));
+            exportButton.setForeground(Color.BLACK);
+            exportButton.setFocusPainted(false);
+            exportButton.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    showExport();
+                }
+            });
+            panel.add(exportButton);
         }
         
         // 修改密码按钮（所有用户可见）
@@ -329,61 +453,194 @@ public class MainFrame extends JFrame {
      * 加载图书数据到表格
      */
     private void loadBookData() {
-        // 清空表格
-        tableModel.setRowCount(0);
-        
-        // 查询所有图书
-        List<Book> books = bookService.getAllBooks();
-        
-        // 填充表格数据
-        for (Book book : books) {
-            Object[] row = {
-                book.getBookId(),
-                book.getBookName(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getCategory(),
-                book.getTotalQuantity(),
-                book.getAvailableQuantity(),
-                book.getPrice()
-            };
-            tableModel.addRow(row);
-        }
+        // 只统计行数，表格滚动到哪里再加载哪一页
+        String category = getSelectedCategory();
+        tableModel.reload(null, category, null);
+        loadFacets(null, category);
+    }
+    
+    /**
+     * 在后台加载分类下拉框的选项，保留当前选中的分类
+     */
+    private void loadCategories() {
+        BackgroundTaskExecutor.submit(new BackgroundTask<List<String>>() {
+            @Override
+            protected List<String> doInBackground() {
+                return bookService.getCategories();
+            }
+            
+            @Override
+            protected void succeeded(List<String> categories) {
+                Object selected = categoryComboBox.getSelectedItem();
+                updatingCategories = true;
+                try {
+                    categoryComboBox.removeAllItems();
+                    categoryComboBox.addItem(ALL_CATEGORIES);
+                    for (String category : categories) {
+                        categoryComboBox.addItem(category);
+                    }
+                    categoryComboBox.setSelectedItem(categories.contains(selected) ? selected : ALL_CATEGORIES);
+                } finally {
+                    updatingCategories = false;
+                }
+            }
+        });
+    }
+    
+    /**
+     * 在后台统计搜索结果的分面，更新分类下拉框中的数量和可借统计
+     */
+    private void loadFacets(final String keyword, final String category) {
+        facetChannel.submit(new BackgroundTask<BookFacets>() {
+            @Override
+            protected BookFacets doInBackground() {
+                return bookService.getFacets(keyword, category);
+            }
+            
+            @Override
+            protected void succeeded(BookFacets facets) {
+                if (facets == null) {
+                    // 统计失败时不显示数量，避免把不完整的统计当成真实结果
+                    categoryCounts = new HashMap<>();
+                    categoryComboBox.repaint();
+                    facetLabel.setText("");
+                    facetLabel.setToolTipText(null);
+                    return;
+                }
+                categoryCounts = facets.getCategoryCounts();
+                categoryComboBox.repaint();
+                facetLabel.setText("共 " + facets.getTotal() + " 本，可借 " + facets.getAvailableCount() +
+                    " 本，已借完 " + facets.getUnavailableCount() + " 本");
+                
+                StringBuilder publishers = new StringBuilder("主要出版社：");
+                int shown = 0;
+                for (Map.Entry<String, Integer> entry : facets.getPublisherCounts().entrySet()) {
+                    if (shown++ == MAX_FACET_PUBLISHERS) {
+                        break;
+                    }
+                    publishers.append(shown > 1 ? "、" : "").append(entry.getKey())
+                        .append("（").append(entry.getValue()).append("）");
+                }
+                facetLabel.setToolTipText(shown > 0 ? publishers.toString() : null);
+            }
+            
+            @Override
+            protected void failed(Throwable e) {
+                System.err.println("统计图书分面失败：" + e.getMessage());
+                facetLabel.setText("");
+            }
+        });
+    }
+    
+    /**
+     * 在后台查询当前用户的借阅摘要，显示借阅数量和最早应还日期
+     */
+    private void loadLoanSummary() {
+        BackgroundTaskExecutor.submit(new BackgroundTask<LoanSummary>() {
+            @Override
+            protected LoanSummary doInBackground() {
+                return borrowService.getLoanSummary(currentUser.getUserId());
+            }
+            
+            @Override
+            protected void succeeded(LoanSummary summary) {
+                if (summary == null) {
+                    loanLabel.setText(" ");
+                } else if (summary.getOpenLoanCount() == 0) {
+                    loanLabel.setText("当前没有借阅图书");
+                } else {
+                    loanLabel.setText("当前借阅 " + summary.getOpenLoanCount() + " 本，最早应还日期：" + 
+                        summary.getEarliestDueDate());
+                }
+            }
+            
+            @Override
+            protected void failed(Throwable e) {
+                System.err.println("查询借阅情况失败：" + e.getMessage());
+                loanLabel.setText(" ");
+            }
+        });
+    }
+    
+    /**
+     * 获取分类下拉框中选中的分类
+     * 
+     * @return 选中的分类，选择“全部分类”时返回null
+     */
+    private String getSelectedCategory() {
+        Object selected = categoryComboBox.getSelectedItem();
+        return selected == null || ALL_CATEGORIES.equals(selected) ? null : selected.toString();
     }
     
     /**
      * 处理搜索功能
      */
     private void handleSearch() {
-        String keyword = searchField.getText().trim();
-        
-        // 清空表格
-        tableModel.setRowCount(0);
-        
-        // 搜索图书
-        List<Book> books = bookService.searchBooks(keyword);
-        
-        // 填充表格数据
-        for (Book book : books) {
-            Object[] row = {
-                book.getBookId(),
-                book.getBookName(),
-                book.getAuthor(),
-                book.getPublisher(),
-                book.getCategory(),
-                book.getTotalQuantity(),
-                book.getAvailableQuantity(),
-                book.getPrice()
-            };
-            tableModel.addRow(row);
-        }
+        final String keyword = searchField.getText().trim();
+        String category = getSelectedCategory();
         
-        if (books.isEmpty()) {
-            JOptionPane.showMessageDialog(this, 
-                "未找到符合条件的图书！", 
-                "搜索结果", 
-                JOptionPane.INFORMATION_MESSAGE);
-        }
+        fuzzyChannel.cancel();
+        // 搜索图书，统计出结果数量后再提示
+        loadFacets(keyword, category);
+        tableModel.reload(keyword, category, new BookTableModel.Callback() {
+            @Override
+            public void loaded(int rowCount) {
+                if (rowCount == 0 && !keyword.isEmpty() && bookService.isFuzzySearchEnabled()) {
+                    suggestSimilarBooks(keyword);
+                } else if (rowCount == 0) {
+                    showNoSearchResult();
+                }
+            }
+        });
+    }
+    
+    /**
+     * 精确搜索没有结果时用容错搜索查找相近的图书，用户选择后显示图书详情
+     * 
+     * @param keyword 搜索关键词
+     */
+    private void suggestSimilarBooks(final String keyword) {
+        fuzzyChannel.submit(new BackgroundTask<List<Book>>(this) {
+            @Override
+            protected List<Book> doInBackground() {
+                return bookService.searchBooksFuzzy(keyword);
+            }
+            
+            @Override
+            protected void succeeded(List<Book> books) {
+                if (books.isEmpty()) {
+                    showNoSearchResult();
+                    return;
+                }
+                String[] options = new String[books.size()];
+                for (int i = 0; i < books.size(); i++) {
+                    options[i] = books.get(i).getBookName() + " - " + books.get(i).getAuthor();
+                }
+                Object selected = JOptionPane.showInputDialog(MainFrame.this, 
+                    "未找到完全匹配的图书，您要找的是不是：", 
+                    "搜索结果", 
+                    JOptionPane.QUESTION_MESSAGE, 
+                    null, 
+                    options, 
+                    options[0]);
+                if (selected != null) {
+                    showBookDescription(books.get(Arrays.asList(options).indexOf(selected)));
+                }
+            }
+            
+            @Override
+            protected void failed(Throwable e) {
+                System.err.println("容错搜索失败：" + e.getMessage());
+                showNoSearchResult();
+            }
+        });
+    }
+    
+    private void showNoSearchResult() {
+        JOptionPane.showMessageDialog(this, 
+            "未找到符合条件的图书！", 
+            "搜索结果", 
+            JOptionPane.INFORMATION_MESSAGE);
     }
     
     /**
@@ -406,9 +663,17 @@ public class MainFrame extends JFrame {
             return;
         }
         
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, 
+                "数据加载中，请稍后再试！", 
+                "提示", 
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
         // 2. 获取选中图书的ID和信息
-        Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        String bookName = (String) tableModel.getValueAt(selectedRow, 1);
+        final Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        final String bookName = (String) tableModel.getValueAt(selectedRow, 1);
         Integer availableQuantity = (Integer) tableModel.getValueAt(selectedRow, 6);
         
         // 检查库存
@@ -447,24 +712,40 @@ public class MainFrame extends JFrame {
             return;
         }
         
-        // 4. 调用服务层执行借书操作
-        String errorMessage = borrowService.borrowBook(currentUser.getUserId(), bookId, borrowDays);
-        
-        // 5. 显示操作结果
-        if (errorMessage == null) {
-            JOptionPane.showMessageDialog(this, 
-                "借书成功！\n图书名称：" + bookName + "\n借阅天数：" + borrowDays + "天", 
-                "成功", 
-                JOptionPane.INFORMATION_MESSAGE);
+        // 4. 在后台调用服务层执行借书操作，执行期间禁用借书按钮防止重复提交
+        final int days = borrowDays;
+        borrowButton.setEnabled(false);
+        BackgroundTaskExecutor.submit(new BackgroundTask<String>(this) {
+            @Override
+            protected String doInBackground() {
+                return borrowService.borrowBook(currentUser.getUserId(), bookId, days);
+            }
             
-            // 刷新表格
-            loadBookData();
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                errorMessage, 
-                "借书失败", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+            @Override
+            protected void succeeded(String errorMessage) {
+                // 5. 显示操作结果
+                if (errorMessage == null) {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        "借书成功！\n图书名称：" + bookName + "\n借阅天数：" + days + "天", 
+                        "成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // 刷新表格和借阅情况
+                    loadBookData();
+                    loadLoanSummary();
+                } else {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        errorMessage, 
+                        "借书失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            
+            @Override
+            protected void finished() {
+                borrowButton.setEnabled(true);
+            }
+        });
     }
     
     /**
@@ -481,9 +762,17 @@ public class MainFrame extends JFrame {
             return;
         }
         
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, 
+                "数据加载中，请稍后再试！", 
+                "提示", 
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
         // 获取选中图书的ID和信息
-        Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        String bookName = (String) tableModel.getValueAt(selectedRow, 1);
+        final Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
+        final String bookName = (String) tableModel.getValueAt(selectedRow, 1);
         
         // 确认归还
         int confirm = JOptionPane.showConfirmDialog(this, 
@@ -495,24 +784,39 @@ public class MainFrame extends JFrame {
             return;
         }
         
-        // 调用服务层执行还书操作
-        String errorMessage = borrowService.returnBook(currentUser.getUserId(), bookId);
-        
-        // 显示操作结果
-        if (errorMessage == null) {
-            JOptionPane.showMessageDialog(this, 
-                "还书成功！", 
-                "成功", 
-                JOptionPane.INFORMATION_MESSAGE);
+        // 在后台调用服务层执行还书操作
+        returnButton.setEnabled(false);
+        BackgroundTaskExecutor.submit(new BackgroundTask<String>(this) {
+            @Override
+            protected String doInBackground() {
+                return borrowService.returnBook(currentUser.getUserId(), bookId);
+            }
             
-            // 刷新表格
-            loadBookData();
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                errorMessage, 
-                "还书失败", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+            @Override
+            protected void succeeded(String errorMessage) {
+                // 显示操作结果
+                if (errorMessage == null) {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        "还书成功！", 
+                        "成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // 刷新表格和借阅情况
+                    loadBookData();
+                    loadLoanSummary();
+                } else {
+                    JOptionPane.showMessageDialog(MainFrame.this, 
+                        errorMessage, 
+                        "还书失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            
+            @Override
+            protected void finished() {
+                returnButton.setEnabled(true);
+            }
+        });
     }
     
     /**
@@ -529,12 +833,44 @@ public class MainFrame extends JFrame {
             return;
         }
         
+        if (!tableModel.isRowLoaded(selectedRow)) {
+            JOptionPane.showMessageDialog(this, 
+                "数据加载中，请稍后再试！", 
+                "提示", 
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
         // 获取选中图书的ID
         Integer bookId = (Integer) tableModel.getValueAt(selectedRow, 0);
-        
-        // 查询完整的图书信息（包含description字段）
-        Book book = bookService.getBookById(bookId);
-        
+        loadBookDescription(bookId);
+    }
+    
+    /**
+     * 在后台查询完整的图书信息（包含description字段）后显示详情
+     * 
+     * @param bookId 图书ID
+     */
+    private void loadBookDescription(final Integer bookId) {
+        BackgroundTaskExecutor.submit(new BackgroundTask<Book>(this) {
+            @Override
+            protected Book doInBackground() {
+                return bookService.getBookById(bookId);
+            }
+            
+            @Override
+            protected void succeeded(Book book) {
+                showBookDescription(book);
+            }
+        });
+    }
+    
+    /**
+     * 显示图书详细信息
+     * 
+     * @param book 图书对象，为null表示未找到
+     */
+    private void showBookDescription(Book book) {
         if (book == null) {
             JOptionPane.showMessageDialog(this, 
                 "未找到该图书信息！", 
@@ -612,6 +948,14 @@ public class MainFrame extends JFrame {
         dialog.setVisible(true);
     }
     
+    /**
+     * 显示数据导出界面（仅管理员可见）
+     */
+    private void showExport() {
+        ExportDialog dialog = new ExportDialog(this);
+        dialog.setVisible(true);
+    }
+    
     /**
      * 显示修改密码对话框
      */
@@ -630,6 +974,9 @@ public class MainFrame extends JFrame {
             JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
+            // 结束会话：移除缓存的借阅摘要
+            borrowService.endSession(currentUser.getUserId());
+            
             // 关闭当前主界面
             this.dispose();
             
@@ -287,26 +287,40 @@ public class RegisterFrame extends JFrame {
         }
         
         // 3. 创建用户对象（默认注册为读者）
-        User newUser = new User(username, password, realName, gender, phone, email, "读者");
+        final User newUser = new User(username, password, realName, gender, phone, email, "读者");
         
-        // 4. 调用服务层进行注册
-        boolean success = userService.addUser(newUser);
-        
-        // 5. 处理注册结果
-        if (success) {
-            JOptionPane.showMessageDialog(this, 
-                "注册成功！请使用您的账号登录。", 
-                "注册成功", 
-                JOptionPane.INFORMATION_MESSAGE);
+        // 4. 在后台调用服务层进行注册，执行期间禁用注册按钮
+        registerButton.setEnabled(false);
+        BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+            @Override
+            protected Boolean doInBackground() {
+                return userService.addUser(newUser);
+            }
             
-            // 返回登录界面
-            handleCancel();
-        } else {
-            JOptionPane.showMessageDialog(this, 
-                "注册失败！用户名可能已存在，请更换用户名后重试。", 
-                "注册失败", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+            @Override
+            protected void succeeded(Boolean success) {
+                // 5. 处理注册结果
+                if (success) {
+                    JOptionPane.showMessageDialog(RegisterFrame.this, 
+                        "注册成功！请使用您的账号登录。", 
+                        "注册成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // 返回登录界面
+                    handleCancel();
+                } else {
+                    JOptionPane.showMessageDialog(RegisterFrame.this, 
+                        "注册失败！用户名可能已存在，请更换用户名后重试。", 
+                        "注册失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+            
+            @Override
+            protected void finished() {
+                registerButton.setEnabled(true);
+            }
+        });
     }
     
     /**
@@ -0,0 +1,244 @@
+package dev.ganziyan.library.ui;
+
+import dev.ganziyan.library.dto.Suggestion;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * 搜索框自动补全弹出列表
+ * 输入停顿 DEBOUNCE_MILLIS 毫秒后才查询候选项，连续输入时只查询最后一次；
+ * 上下方向键选择候选项，回车或鼠标单击确认，Esc 关闭列表
+ */
+public class SuggestionPopup {
+
+    // 输入停顿多久后查询候选项（毫秒）
+    private static final int DEBOUNCE_MILLIS = 250;
+
+    // 列表最多显示的行数
+    private static final int MAX_VISIBLE_ROWS = 10;
+
+    private final JTextField textField;
+    private final Provider provider;
+    private final Listener listener;
+
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<Suggestion> listModel = new DefaultListModel<>();
+    private final JList<Suggestion> list = new JList<>(listModel);
+    private final JScrollPane scrollPane = new JScrollPane(list);
+    private final Timer debounceTimer;
+    private final BackgroundTaskExecutor.Channel channel = new BackgroundTaskExecutor.Channel();
+
+    // 程序设置输入框文本时不触发查询
+    private boolean adjusting;
+
+    /**
+     * 候选项来源
+     */
+    public interface Provider {
+
+        /**
+         * 查询候选项（在后台线程中调用）
+         *
+         * @param prefix 已输入的文本
+         * @return 候选项列表
+         */
+        List<Suggestion> suggest(String prefix);
+    }
+
+    /**
+     * 候选项选中回调
+     */
+    public interface Listener {
+
+        /**
+         * 用户选中了候选项，此时输入框已填入候选文本
+         *
+         * @param suggestion 选中的候选项
+         */
+        void selected(Suggestion suggestion);
+    }
+
+    /**
+     * 构造方法，为输入框安装自动补全
+     *
+     * @param textField 输入框
+     * @param provider 候选项来源
+     * @param listener 选中回调
+     */
+    public SuggestionPopup(JTextField textField, Provider provider, Listener listener) {
+        this.textField = textField;
+        this.provider = provider;
+        this.listener = listener;
+
+        list.setFont(textField.getFont());
+        list.setFocusable(false);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        popup.setFocusable(false);
+        popup.add(scrollPane);
+
+        debounceTimer = new Timer(DEBOUNCE_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        debounceTimer.setRepeats(false);
+
+        installListeners();
+    }
+
+    private void installListeners() {
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textChanged();
+            }
+        });
+
+        textField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) {
+                    return;
+                }
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        moveSelection(1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        moveSelection(-1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        if (list.getSelectedValue() != null) {
+                            select(list.getSelectedValue());
+                            e.consume();
+                        } else {
+                            hide();
+                        }
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        hide();
+                        e.consume();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+
+        textField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                hide();
+            }
+        });
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    select(listModel.getElementAt(index));
+                }
+            }
+        });
+    }
+
+    private void textChanged() {
+        if (!adjusting) {
+            debounceTimer.restart();
+        }
+    }
+
+    /**
+     * 查询并显示候选项，新查询会取消尚未返回的旧查询
+     */
+    private void refresh() {
+        final String text = textField.getText().trim();
+        if (text.isEmpty()) {
+            channel.cancel();
+            hide();
+            return;
+        }
+        channel.submit(new BackgroundTask<List<Suggestion>>() {
+            @Override
+            protected List<Suggestion> doInBackground() {
+                return provider.suggest(text);
+            }
+
+            @Override
+            protected void succeeded(List<Suggestion> suggestions) {
+                show(suggestions);
+            }
+        });
+    }
+
+    private void show(List<Suggestion> suggestions) {
+        listModel.clear();
+        if (suggestions.isEmpty() || !textField.isShowing() || !textField.hasFocus()) {
+            hide();
+            return;
+        }
+        for (Suggestion suggestion : suggestions) {
+            listModel.addElement(suggestion);
+        }
+        list.setVisibleRowCount(Math.min(suggestions.size(), MAX_VISIBLE_ROWS));
+        Insets insets = popup.getInsets();
+        popup.setPopupSize(new Dimension(Math.max(textField.getWidth(), 240),
+            scrollPane.getPreferredSize().height + insets.top + insets.bottom));
+        popup.show(textField, 0, textField.getHeight());
+        textField.requestFocusInWindow();
+    }
+
+    private void hide() {
+        popup.setVisible(false);
+        list.clearSelection();
+    }
+
+    private void moveSelection(int delta) {
+        int size = listModel.getSize();
+        if (size == 0) {
+            return;
+        }
+        int index = list.getSelectedIndex() + delta;
+        index = Math.max(0, Math.min(size - 1, index));
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void select(Suggestion suggestion) {
+        adjusting = true;
+        try {
+            textField.setText(suggestion.getText());
+        } finally {
+            adjusting = false;
+        }
+        debounceTimer.stop();
+        hide();
+        listener.selected(suggestion);
+    }
+}
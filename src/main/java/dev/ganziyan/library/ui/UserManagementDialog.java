@@ -18,6 +18,9 @@ public class UserManagementDialog extends JDialog {
     
     private UserService userService = new UserService();
     
+    // 用户列表加载任务，重复刷新时只保留最新一次的结果
+    private final BackgroundTaskExecutor.Channel loadChannel = new BackgroundTaskExecutor.Channel();
+    
     // 界面组件
     private JTable userTable;
     private DefaultTableModel tableModel;
@@ -188,12 +191,29 @@ public class UserManagementDialog extends JDialog {
      * 加载用户数据
      */
     private void loadUserData() {
+        // 在后台查询所有用户
+        loadChannel.submit(new BackgroundTask<List<User>>(this) {
+            @Override
+            protected List<User> doInBackground() {
+                return userService.getAllUsers();
+            }
+            
+            @Override
+            protected void succeeded(List<User> users) {
+                fillTable(users);
+            }
+        });
+    }
+    
+    /**
+     * 填充用户表格
+     * 
+     * @param users 用户列表
+     */
+    private void fillTable(List<User> users) {
         // 清空表格
         tableModel.setRowCount(0);
         
-        // 查询所有用户
-        List<User> users = userService.getAllUsers();
-        
         // 填充表格数据
         for (User user : users) {
             Object[] row = {
@@ -250,25 +270,8 @@ public class UserManagementDialog extends JDialog {
             return;
         }
         
-        // 更新用户状态
-        User user = userService.getUserById(userId);
-        if (user != null) {
-            user.setStatus("正常");
-            boolean success = userService.updateUser(user);
-            
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "启用账号成功！", 
-                    "成功", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                loadUserData();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "启用账号失败！", 
-                    "失败", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
-        }
+        // 在后台更新用户状态
+        updateUserStatus(userId, "正常", "启用");
     }
     
     /**
@@ -320,24 +323,56 @@ public class UserManagementDialog extends JDialog {
             return;
         }
         
-        // 更新用户状态
-        User user = userService.getUserById(userId);
-        if (user != null) {
-            user.setStatus("禁用");
-            boolean success = userService.updateUser(user);
+        // 在后台更新用户状态
+        updateUserStatus(userId, "禁用", "禁用");
+    }
+    
+    /**
+     * 在后台更新用户账号状态，完成后提示结果并刷新表格
+     * 
+     * @param userId 用户ID
+     * @param status 新状态
+     * @param action 操作名称（启用/禁用）
+     */
+    private void updateUserStatus(final Integer userId, final String status, final String action) {
+        BackgroundTaskExecutor.submit(new BackgroundTask<Boolean>(this) {
+            @Override
+            protected Boolean doInBackground() {
+                User user = userService.getUserById(userId);
+                if (user == null) {
+                    return null;
+                }
+                user.setStatus(status);
+                return userService.updateUser(user);
+            }
             
-            if (success) {
-                JOptionPane.showMessageDialog(this, 
-                    "禁用账号成功！", 
-                    "成功", 
-                    JOptionPane.INFORMATION_MESSAGE);
-                loadUserData();
-            } else {
-                JOptionPane.showMessageDialog(this, 
-                    "禁用账号失败！", 
-                    "失败", 
-                    JOptionPane.ERROR_MESSAGE);
+            @Override
+            protected void succeeded(Boolean success) {
+                if (success == null) {
+                    return; // 用户已不存在
+                }
+                if (success) {
+                    JOptionPane.showMessageDialog(UserManagementDialog.this, 
+                        action + "账号成功！", 
+                        "成功", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                    loadUserData();
+                } else {
+                    JOptionPane.showMessageDialog(UserManagementDialog.this, 
+                        action + "账号失败！", 
+                        "失败", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
             }
-        }
+        });
+    }
+    
+    /**
+     * 关闭对话框时取消尚未完成的加载
+     */
+    @Override
+    public void dispose() {
+        loadChannel.cancel();
+        super.dispose();
     }
 }
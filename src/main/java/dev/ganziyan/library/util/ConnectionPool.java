@@ -0,0 +1,473 @@
+package dev.ganziyan.library.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 数据库连接池
+ * 功能：复用物理连接，避免每次操作都重新建立 TCP/TLS 会话
+ * 特性：
+ * 1. 启动时预热 minIdle 个连接
+ * 2. 借出时校验连接有效性，失效连接自动丢弃并重建
+ * 3. 通过信号量限制最大连接数，借用超时抛出 SQLException
+ * 4. 后台线程定期回收空闲时间过长的连接
+ * 5. 统计借用等待耗时、长时间占用的连接，可选记录借用位置用于泄漏检测
+ */
+public class ConnectionPool implements ConnectionPoolMXBean {
+
+    // 借用等待耗时直方图的区间上限（毫秒），最后一个区间为无上限
+    private static final long[] WAIT_BUCKET_BOUNDS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    // 连接参数
+    private final String url;
+    private final String username;
+    private final String password;
+
+    // 连接池参数
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    // 空闲连接（队头为最近归还的连接，优先复用）
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+
+    // 控制同时借出的连接数不超过 maxSize
+    private final Semaphore permits;
+
+    // 当前已创建的物理连接总数
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    // 当前借出的连接
+    private final Set<LeaseHandler> activeLeases = ConcurrentHashMap.newKeySet();
+
+    // 监控统计
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong maxBorrowWaitMillis = new AtomicLong();
+    private final AtomicLongArray borrowWaitHistogram = new AtomicLongArray(WAIT_BUCKET_BOUNDS.length + 1);
+
+    // 持有时间阈值，超过即视为疑似泄漏
+    private volatile long holdThresholdMillis = 30000L;
+    // 是否记录借用位置的调用栈
+    private volatile boolean leakDetection;
+
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * 构造方法
+     *
+     * @param url 数据库URL
+     * @param username 用户名
+     * @param password 密码
+     * @param minIdle 最小空闲连接数
+     * @param maxSize 最大连接数
+     * @param borrowTimeoutMillis 借用连接的最长等待时间（毫秒）
+     * @param idleTimeoutMillis 空闲连接的最长保留时间（毫秒）
+     * @param validationTimeoutSeconds 校验连接的超时时间（秒）
+     */
+    public ConnectionPool(String url, String username, String password,
+                          int minIdle, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, int validationTimeoutSeconds) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("连接池最大连接数必须大于0");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis, 60000L));
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+        evictor.scheduleWithFixedDelay(this::reportLongHeldConnections, 5, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 设置持有时间阈值，借出超过该时间的连接计入 longHeldCount 并输出警告
+     *
+     * @param holdThresholdMillis 持有时间阈值（毫秒）
+     */
+    public void setHoldThresholdMillis(long holdThresholdMillis) {
+        this.holdThresholdMillis = holdThresholdMillis;
+    }
+
+    /**
+     * 开启或关闭泄漏检测
+     * 开启后每次借用都会记录调用栈，便于定位未归还连接的代码位置
+     *
+     * @param leakDetection true表示开启
+     */
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * 预热连接池，创建 minIdle 个空闲连接
+     * 预热失败不影响使用，借用时会再次尝试建立连接
+     */
+    public void warmUp() {
+        try {
+            while (totalConnections.get() < minIdle) {
+                idleConnections.offerLast(createPooledConnection());
+            }
+        } catch (SQLException e) {
+            System.err.println("连接池预热失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 从连接池借用连接
+     * 返回的连接调用 close() 时会归还到连接池，而不是真正关闭
+     *
+     * @return Connection 数据库连接对象
+     * @throws SQLException 等待超时或建立连接失败
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+            recordBorrowWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+            if (!acquired) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("获取数据库连接超时（" + borrowTimeoutMillis + "ms），连接池状态：" + this);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (isValid(pooled)) {
+                    return pooled.lease();
+                }
+                discard(pooled);
+            }
+            return createPooledConnection().lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭连接池，释放所有空闲连接
+     */
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    @Override
+    public int getActiveCount() {
+        return activeLeases.size();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    @Override
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public long getMaxBorrowWaitMillis() {
+        return maxBorrowWaitMillis.get();
+    }
+
+    @Override
+    public String[] getBorrowWaitBuckets() {
+        String[] labels = new String[WAIT_BUCKET_BOUNDS.length + 1];
+        for (int i = 0; i < WAIT_BUCKET_BOUNDS.length; i++) {
+            labels[i] = "<" + WAIT_BUCKET_BOUNDS[i] + "ms";
+        }
+        labels[WAIT_BUCKET_BOUNDS.length] = ">=" + WAIT_BUCKET_BOUNDS[WAIT_BUCKET_BOUNDS.length - 1] + "ms";
+        return labels;
+    }
+
+    @Override
+    public long[] getBorrowWaitHistogram() {
+        long[] counts = new long[borrowWaitHistogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = borrowWaitHistogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public int getLongHeldCount() {
+        return findLongHeldLeases().size();
+    }
+
+    @Override
+    public long getHoldThresholdMillis() {
+        return holdThresholdMillis;
+    }
+
+    @Override
+    public String[] getLongHeldStackTraces() {
+        List<LeaseHandler> leases = findLongHeldLeases();
+        String[] traces = new String[leases.size()];
+        for (int i = 0; i < traces.length; i++) {
+            traces[i] = leases.get(i).describe();
+        }
+        return traces;
+    }
+
+    /**
+     * 连接池状态摘要，用于日志输出
+     */
+    @Override
+    public String toString() {
+        return "active=" + getActiveCount() + ", idle=" + getIdleCount()
+            + ", waiting=" + getWaitingCount() + ", total=" + getTotalCount()
+            + ", max=" + maxSize + ", longHeld=" + getLongHeldCount();
+    }
+
+    /**
+     * 归还连接：重置连接状态后放回空闲队列，状态异常的连接直接丢弃
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            Connection physical = pooled.physical;
+            if (closed || physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            pooled.lastUsedAt = System.currentTimeMillis();
+            idleConnections.offerFirst(pooled);
+        } catch (SQLException e) {
+            System.err.println("归还数据库连接失败，丢弃该连接：" + e.getMessage());
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 回收空闲时间超过 idleTimeout 的连接，保留至少 minIdle 个
+     */
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && idleConnections.size() > minIdle) {
+            PooledConnection pooled = iterator.next();
+            if (now - pooled.lastUsedAt > idleTimeoutMillis && idleConnections.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * 输出持有时间超过阈值的连接，每个借用只报告一次
+     */
+    private void reportLongHeldConnections() {
+        for (LeaseHandler lease : findLongHeldLeases()) {
+            if (!lease.reported) {
+                lease.reported = true;
+                System.err.println("疑似连接泄漏：" + lease.describe());
+            }
+        }
+    }
+
+    private List<LeaseHandler> findLongHeldLeases() {
+        long now = System.currentTimeMillis();
+        List<LeaseHandler> leases = new ArrayList<>();
+        for (LeaseHandler lease : activeLeases) {
+            if (now - lease.borrowedAt > holdThresholdMillis) {
+                leases.add(lease);
+            }
+        }
+        return leases;
+    }
+
+    private void recordBorrowWait(long waitMillis) {
+        borrowCount.incrementAndGet();
+        maxBorrowWaitMillis.accumulateAndGet(waitMillis, Math::max);
+        int bucket = 0;
+        while (bucket < WAIT_BUCKET_BOUNDS.length && waitMillis >= WAIT_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        borrowWaitHistogram.incrementAndGet(bucket);
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createPooledConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("关闭物理连接失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 池化连接：持有物理连接，每次借出时生成一个代理，代理的 close() 归还连接
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lease() {
+            LeaseHandler handler = new LeaseHandler(this);
+            activeLeases.add(handler);
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                handler);
+        }
+    }
+
+    /**
+     * 单次借出的代理处理器：close() 只生效一次，归还后再使用该代理会抛出异常
+     */
+    private final class LeaseHandler implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final String threadName = Thread.currentThread().getName();
+        private final Throwable borrowSite = leakDetection ? new Throwable("连接借用位置") : null;
+        private volatile boolean reported;
+        private boolean returned;
+
+        private LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        /**
+         * 描述本次借用：线程、持有时长及借用位置（开启泄漏检测时）
+         */
+        private String describe() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("线程 ").append(threadName)
+                .append(" 已持有连接 ").append(System.currentTimeMillis() - borrowedAt).append("ms");
+            if (borrowSite != null) {
+                for (StackTraceElement element : borrowSite.getStackTrace()) {
+                    builder.append("\n\tat ").append(element);
+                }
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!returned) {
+                    returned = true;
+                    activeLeases.remove(this);
+                    release(pooled);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return returned || pooled.physical.isClosed();
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "PooledConnection[" + pooled.physical + "]";
+            }
+            if (returned) {
+                throw new SQLException("连接已归还连接池，不能继续使用");
+            }
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
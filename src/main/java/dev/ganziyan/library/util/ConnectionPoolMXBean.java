@@ -0,0 +1,73 @@
+package dev.ganziyan.library.util;
+
+/**
+ * 连接池监控接口
+ * 通过 JMX 暴露连接池的实时状态（ObjectName：dev.ganziyan.library:type=ConnectionPool）
+ */
+public interface ConnectionPoolMXBean {
+
+    /**
+     * 获取当前借出（使用中）的连接数
+     */
+    int getActiveCount();
+
+    /**
+     * 获取当前空闲连接数
+     */
+    int getIdleCount();
+
+    /**
+     * 获取正在等待连接的线程数
+     */
+    int getWaitingCount();
+
+    /**
+     * 获取当前已创建的物理连接总数
+     */
+    int getTotalCount();
+
+    /**
+     * 获取最大连接数
+     */
+    int getMaxSize();
+
+    /**
+     * 获取累计借用次数
+     */
+    long getBorrowCount();
+
+    /**
+     * 获取累计借用超时次数
+     */
+    long getTimeoutCount();
+
+    /**
+     * 获取借用等待的最长耗时（毫秒）
+     */
+    long getMaxBorrowWaitMillis();
+
+    /**
+     * 获取借用等待耗时直方图的区间标签
+     */
+    String[] getBorrowWaitBuckets();
+
+    /**
+     * 获取借用等待耗时直方图，与 getBorrowWaitBuckets() 一一对应
+     */
+    long[] getBorrowWaitHistogram();
+
+    /**
+     * 获取持有时间超过阈值的连接数
+     */
+    int getLongHeldCount();
+
+    /**
+     * 获取持有时间阈值（毫秒）
+     */
+    long getHoldThresholdMillis();
+
+    /**
+     * 获取持有时间超过阈值的连接的借用位置（需开启泄漏检测）
+     */
+    String[] getLongHeldStackTraces();
+}
@@ -0,0 +1,113 @@
+package dev.ganziyan.library.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV 读取器
+ * 按 RFC 4180 逐条读取记录：逗号分隔，字段可以用双引号包围，引号内可以包含逗号和换行，
+ * 两个连续的双引号表示一个双引号。每次只在内存中保留一条记录，可以读取任意大小的文件。
+ * 文件开头的 UTF-8 BOM 会被忽略
+ */
+public class CsvReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    // 已读取的物理行数
+    private long lineNumber;
+
+    // 最近一条记录起始的行号
+    private long recordLineNumber;
+
+    private boolean started;
+
+    /**
+     * 构造方法
+     *
+     * @param reader 字符输入流
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 字段列表，已到文件末尾时返回null
+     * @throws IOException 读取失败，或引号没有闭合
+     */
+    public List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+        lineNumber++;
+        recordLineNumber = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("第 " + recordLineNumber + " 行的引号没有闭合");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * 获取最近一条记录起始的行号（从1开始，表头为第1行）
+     *
+     * @return 行号
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
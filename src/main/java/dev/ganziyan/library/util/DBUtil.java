@@ -2,51 +2,72 @@ package dev.ganziyan.library.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * 数据库工具类
  * 功能：提供数据库连接管理、资源释放等基础功能
+ * 连接由内置的 ConnectionPool 管理，close() 会将连接归还连接池
  *
  */
 public class DBUtil {
     
-    // 数据库连接参数
-    private static String url;
-    private static String username;
-    private static String password;
-    private static String driver;
+    // 存储后端（MySQL 或嵌入式数据库）
+    private static StorageBackend storageBackend;
+    
+    // 配置文件内容（供其他组件读取扩展配置）
+    private static Properties properties;
+    
+    // 数据库连接池
+    private static ConnectionPool connectionPool;
     
     // 在类加载时读取配置文件并注册数据库驱动
     static {
         try {
-            // 加载数据库配置文件
-            Properties properties = new Properties();
+            // 加载数据库配置文件（可通过 -Ddb.config=xxx.properties 指定其他类路径下的配置文件）
+            String configFile = System.getProperty("db.config", "db.properties");
+            properties = new Properties();
             InputStream inputStream = DBUtil.class.getClassLoader()
-                .getResourceAsStream("db.properties");
+                .getResourceAsStream(configFile);
             
             if (inputStream == null) {
-                throw new RuntimeException("无法找到数据库配置文件 db.properties");
+                throw new RuntimeException("无法找到数据库配置文件 " + configFile);
             }
             
             properties.load(inputStream);
             
-            // 读取配置参数
-            url = properties.getProperty("db.url");
-            username = properties.getProperty("db.username");
-            password = properties.getProperty("db.password");
-            driver = properties.getProperty("db.driver");
+            // 根据 db.backend 选择存储后端
+            storageBackend = createStorageBackend(getProperty("db.backend", "mysql"));
             
             // 注册数据库驱动
-            Class.forName(driver);
+            Class.forName(storageBackend.getDriver());
+            
+            System.out.println("数据库驱动加载成功！存储后端：" + storageBackend.getName());
+            
+            // 创建连接池并预热
+            connectionPool = new ConnectionPool(storageBackend.getUrl(),
+                storageBackend.getUsername(), storageBackend.getPassword(),
+                getIntProperty("db.pool.minIdle", 2),
+                getIntProperty("db.pool.maxSize", 10),
+                getIntProperty("db.pool.borrowTimeoutMillis", 5000),
+                getIntProperty("db.pool.idleTimeoutMillis", 600000),
+                getIntProperty("db.pool.validationTimeoutSeconds", 2));
+            connectionPool.setHoldThresholdMillis(getIntProperty("db.pool.holdThresholdMillis", 30000));
+            connectionPool.setLeakDetection(Boolean.parseBoolean(getProperty("db.pool.leakDetection", "false")));
+            connectionPool.warmUp();
+            registerPoolMBean();
+            Runtime.getRuntime().addShutdownHook(new Thread(DBUtil::shutdown, "db-pool-shutdown"));
             
-            System.out.println("数据库驱动加载成功！");
+            // 初始化存储后端（嵌入式模式首次启动时建表）
+            initializeStorageBackend();
             
         } catch (ClassNotFoundException e) {
             System.err.println("数据库驱动加载失败：" + e.getMessage());
@@ -58,28 +79,139 @@ public class DBUtil {
     }
     
     /**
-     * 获取数据库连接
+     * 根据名称创建存储后端
+     * 
+     * @param name 后端名称：mysql 或 embedded
+     * @return StorageBackend 存储后端
+     */
+    private static StorageBackend createStorageBackend(String name) {
+        if ("mysql".equalsIgnoreCase(name)) {
+            return new MySqlStorageBackend(properties);
+        }
+        if ("embedded".equalsIgnoreCase(name)) {
+            return new EmbeddedStorageBackend(properties);
+        }
+        throw new RuntimeException("不支持的存储后端：" + name + "（可选值：mysql、embedded）");
+    }
+    
+    /**
+     * 初始化存储后端，失败时只输出错误，不影响程序启动
+     */
+    private static void initializeStorageBackend() {
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            storageBackend.initialize(connection);
+        } catch (SQLException e) {
+            System.err.println("初始化存储后端失败：" + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            closeConnection(connection);
+        }
+    }
+    
+    /**
+     * 获取当前使用的存储后端
+     * 
+     * @return StorageBackend 存储后端
+     */
+    public static StorageBackend getStorageBackend() {
+        return storageBackend;
+    }
+    
+    /**
+     * 读取配置项
+     * 
+     * @param key 配置键
+     * @param defaultValue 默认值
+     * @return 配置值，不存在时返回默认值
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+    
+    /**
+     * 读取整数配置项
+     * 
+     * @param key 配置键
+     * @param defaultValue 默认值
+     * @return 配置值，不存在或格式错误时返回默认值
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("配置项 " + key + " 格式错误，使用默认值：" + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * 获取数据库连接（从连接池借用）
+     * 如果当前线程处于事务中，返回事务绑定的连接
      * 
      * @return Connection 数据库连接对象
-     * @throws SQLException 数据库连接异常
+     * @throws SQLException 数据库连接异常或等待超时
      */
     public static Connection getConnection() throws SQLException {
+        Connection transactionConnection = TransactionManager.currentConnection();
+        if (transactionConnection != null) {
+            return transactionConnection;
+        }
         try {
-            Connection connection = DriverManager.getConnection(url, username, password);
-            return connection;
+            return connectionPool.getConnection();
         } catch (SQLException e) {
             System.err.println("获取数据库连接失败：" + e.getMessage());
+            for (String trace : connectionPool.getLongHeldStackTraces()) {
+                System.err.println("长时间占用的连接：" + trace);
+            }
             throw e;
         }
     }
     
     /**
-     * 关闭数据库连接
+     * 将连接池注册到 JMX，可通过 JConsole 等工具查看
+     */
+    private static void registerPoolMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(connectionPool,
+                new ObjectName("dev.ganziyan.library:type=ConnectionPool"));
+        } catch (JMException e) {
+            System.err.println("注册连接池监控失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取连接池（可查询活动、空闲、等待连接数等监控指标）
+     * 
+     * @return ConnectionPool 连接池对象
+     */
+    public static ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+    
+    /**
+     * 关闭连接池，释放所有物理连接
+     */
+    public static void shutdown() {
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+        }
+    }
+    
+    /**
+     * 关闭数据库连接（归还连接池）
+     * 事务绑定的连接由 TransactionManager 负责关闭，此处忽略
      * 
      * @param connection 数据库连接对象
      */
     public static void closeConnection(Connection connection) {
-        if (connection != null) {
+        if (connection != null && connection != TransactionManager.currentConnection()) {
             try {
                 connection.close();
             } catch (SQLException e) {
@@ -0,0 +1,103 @@
+package dev.ganziyan.library.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * 嵌入式存储后端
+ * 使用 H2 数据库的 MySQL 兼容模式，无需安装数据库服务器，适用于分馆自助终端、压力测试和持续集成
+ * 首次启动时如果 books 表不存在，会自动执行 database/schema.sql 建表并导入测试数据
+ */
+public class EmbeddedStorageBackend implements StorageBackend {
+
+    /**
+     * 默认数据文件位置（相对于工作目录）
+     */
+    public static final String DEFAULT_URL =
+        "jdbc:h2:./data/library_system;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String schema;
+
+    /**
+     * 构造方法
+     *
+     * @param properties 数据库配置
+     */
+    public EmbeddedStorageBackend(Properties properties) {
+        this.url = properties.getProperty("db.embedded.url", DEFAULT_URL);
+        this.username = properties.getProperty("db.embedded.username", "sa");
+        this.password = properties.getProperty("db.embedded.password", "");
+        this.schema = properties.getProperty("db.embedded.schema", "database/schema.sql");
+    }
+
+    @Override
+    public String getName() {
+        return "embedded";
+    }
+
+    @Override
+    public String getDriver() {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public boolean isMySql() {
+        return false;
+    }
+
+    /**
+     * books 表不存在时执行建表脚本
+     */
+    @Override
+    public void initialize(Connection connection) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, "books", null)) {
+            if (tables.next()) {
+                return;
+            }
+        }
+
+        System.out.println("嵌入式数据库为空，正在执行建表脚本：" + schema);
+        try (Reader reader = new InputStreamReader(openSchema(), StandardCharsets.UTF_8)) {
+            SchemaLoader.load(connection, reader);
+        } catch (IOException e) {
+            throw new SQLException("读取建表脚本失败：" + schema, e);
+        }
+    }
+
+    /**
+     * 优先从类路径读取建表脚本，找不到时按文件路径读取
+     */
+    private InputStream openSchema() throws IOException {
+        InputStream inputStream = EmbeddedStorageBackend.class.getClassLoader().getResourceAsStream(schema);
+        if (inputStream != null) {
+            return inputStream;
+        }
+        return new FileInputStream(schema);
+    }
+}
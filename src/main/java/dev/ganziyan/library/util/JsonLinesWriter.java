@@ -0,0 +1,104 @@
+package dev.ganziyan.library.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * JSON Lines 写入器
+ * 每条记录写成一行 JSON 对象，记录之间以 LF 分隔。数值写成 JSON 数字，null 写成 null，
+ * 其他值按 toString() 写成 JSON 字符串
+ */
+public class JsonLinesWriter implements Closeable, Flushable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+
+    /**
+     * 构造方法
+     *
+     * @param writer 字符输出流
+     */
+    public JsonLinesWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @param names 字段名
+     * @param values 字段值，与字段名一一对应
+     * @throws IOException 写入失败
+     */
+    public void writeRecord(String[] names, Object[] values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeString(names[i]);
+            writer.write(':');
+            writeValue(values[i]);
+        }
+        writer.write("}\n");
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof BigDecimal) {
+            writer.write(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(value.toString());
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write("\\u00");
+                        writer.write(HEX[c >> 4]);
+                        writer.write(HEX[c & 0xF]);
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,63 @@
+package dev.ganziyan.library.util;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+/**
+ * MySQL 存储后端
+ * 连接参数来自 db.url、db.username、db.password、db.driver，表结构由 database/schema.sql 手动创建
+ */
+public class MySqlStorageBackend implements StorageBackend {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String driver;
+
+    /**
+     * 构造方法
+     *
+     * @param properties 数据库配置
+     */
+    public MySqlStorageBackend(Properties properties) {
+        this.url = properties.getProperty("db.url");
+        this.username = properties.getProperty("db.username");
+        this.password = properties.getProperty("db.password");
+        this.driver = properties.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
+    }
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public String getDriver() {
+        return driver;
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public boolean isMySql() {
+        return true;
+    }
+
+    @Override
+    public void initialize(Connection connection) {
+        // MySQL 的表结构由管理员执行 database/schema.sql 创建，无需初始化
+    }
+}
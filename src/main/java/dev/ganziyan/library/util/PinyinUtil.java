@@ -0,0 +1,168 @@
+package dev.ganziyan.library.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 拼音工具类
+ * 把书名、作者等中文文本转换为全拼和首字母检索键，如“三体”“刘慈欣”生成 "santi st liucixin lcx"。
+ * 文本按标点和空白分段，只为含有汉字的段生成检索键，段内的字母和数字原样保留（转为小写）；
+ * 多音字会生成多种读音组合（如“重庆”生成 zhongqing 和 chongqing），组合数量有上限
+ */
+public class PinyinUtil {
+
+    /**
+     * 检索键的最大长度，与 books.pinyin_keys 列的长度一致
+     */
+    public static final int MAX_KEYS_LENGTH = 2000;
+
+    // 每段文本最多生成的读音组合数，超过后其余多音字只取第一个读音
+    private static final int MAX_VARIANTS = 4;
+
+    // 分段的分隔符：标点和空白
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    // 字符 -> 读音，pinyin4j 每次转换都要格式化所有读音，缓存后批量生成检索键快一个数量级
+    private static final ConcurrentHashMap<Character, String[]> READINGS = new ConcurrentHashMap<>();
+
+    // 缓存中表示“不是汉字”的占位值
+    private static final String[] NOT_HAN = new String[0];
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        // ü 输出为 v，与拼音输入法的习惯一致（如“绿”为 lv）
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private PinyinUtil() {
+    }
+
+    /**
+     * 生成检索键
+     *
+     * @param texts 文本（如书名、作者），可以为null
+     * @return 以空格分隔的全拼和首字母（已去重），没有汉字时返回空字符串
+     */
+    public static String toSearchKeys(String... texts) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (String segment : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                addSegmentKeys(segment, keys);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (String key : keys) {
+            if (builder.length() + key.length() + 1 > MAX_KEYS_LENGTH) {
+                break;
+            }
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(key);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 为一段不含标点的文本生成全拼和首字母的所有读音组合
+     */
+    private static void addSegmentKeys(String segment, Set<String> keys) {
+        List<StringBuilder> fulls = new ArrayList<>();
+        List<StringBuilder> initials = new ArrayList<>();
+        fulls.add(new StringBuilder());
+        initials.add(new StringBuilder());
+        boolean hasHan = false;
+
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            String[] readings = readingsOf(c);
+            if (readings == null) {
+                for (int k = 0; k < fulls.size(); k++) {
+                    fulls.get(k).append(c);
+                    initials.get(k).append(c);
+                }
+                continue;
+            }
+            hasHan = true;
+            if (readings.length > 1 && fulls.size() * readings.length <= MAX_VARIANTS) {
+                int size = fulls.size();
+                for (int r = 1; r < readings.length; r++) {
+                    for (int k = 0; k < size; k++) {
+                        fulls.add(new StringBuilder(fulls.get(k)).append(readings[r]));
+                        initials.add(new StringBuilder(initials.get(k)).append(readings[r].charAt(0)));
+                    }
+                }
+                for (int k = 0; k < size; k++) {
+                    fulls.get(k).append(readings[0]);
+                    initials.get(k).append(readings[0].charAt(0));
+                }
+            } else {
+                for (int k = 0; k < fulls.size(); k++) {
+                    fulls.get(k).append(readings[0]);
+                    initials.get(k).append(readings[0].charAt(0));
+                }
+            }
+        }
+
+        if (!hasHan) {
+            return;
+        }
+        for (int k = 0; k < fulls.size(); k++) {
+            keys.add(fulls.get(k).toString());
+            keys.add(initials.get(k).toString());
+        }
+    }
+
+    /**
+     * 汉字的不同读音（不含声调），不是汉字时返回null
+     */
+    private static String[] readingsOf(char c) {
+        if (c < 0x80) {
+            return null;
+        }
+        String[] readings = READINGS.get(c);
+        if (readings == null) {
+            readings = loadReadings(c);
+            READINGS.put(c, readings);
+        }
+        return readings == NOT_HAN ? null : readings;
+    }
+
+    private static String[] loadReadings(char c) {
+        String[] readings;
+        try {
+            readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return NOT_HAN;
+        }
+        if (readings == null || readings.length == 0) {
+            return NOT_HAN;
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String reading : readings) {
+            if (!reading.isEmpty()) {
+                distinct.add(reading);
+            }
+        }
+        return distinct.isEmpty() ? NOT_HAN : distinct.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,75 @@
+package dev.ganziyan.library.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 建表脚本执行器
+ * 逐条执行 SQL 脚本，支持：
+ * 1. 以 -- 开头的注释行
+ * 2. MySQL 客户端的 DELIMITER 指令
+ * 3. 紧跟在 "-- @mysql-only" 注释后的语句只在 MySQL 上执行，嵌入式数据库会跳过
+ */
+public class SchemaLoader {
+
+    private static final String MYSQL_ONLY_MARKER = "-- @mysql-only";
+
+    private SchemaLoader() {
+    }
+
+    /**
+     * 在非 MySQL 数据库上执行脚本（跳过标记为 MySQL 专用的语句）
+     *
+     * @param connection 数据库连接
+     * @param reader 脚本内容
+     * @throws IOException 读取脚本失败
+     * @throws SQLException 执行语句失败
+     */
+    public static void load(Connection connection, Reader reader) throws IOException, SQLException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String delimiter = ";";
+        boolean mysqlOnly = false;
+        StringBuilder statementText = new StringBuilder();
+        int executed = 0;
+
+        try (Statement statement = connection.createStatement()) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                String trimmed = line.trim();
+
+                if (statementText.length() == 0) {
+                    if (trimmed.startsWith(MYSQL_ONLY_MARKER)) {
+                        mysqlOnly = true;
+                        continue;
+                    }
+                    if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                        continue;
+                    }
+                    if (trimmed.toUpperCase().startsWith("DELIMITER ")) {
+                        delimiter = trimmed.substring("DELIMITER ".length()).trim();
+                        continue;
+                    }
+                }
+
+                if (!trimmed.endsWith(delimiter)) {
+                    statementText.append(line).append('\n');
+                    continue;
+                }
+
+                statementText.append(line, 0, line.lastIndexOf(delimiter));
+                if (!mysqlOnly) {
+                    statement.execute(statementText.toString());
+                    executed++;
+                }
+                statementText.setLength(0);
+                mysqlOnly = false;
+            }
+        }
+
+        System.out.println("建表脚本执行完成，共执行 " + executed + " 条语句");
+    }
+}
@@ -0,0 +1,50 @@
+package dev.ganziyan.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 存储后端
+ * 描述 DAO 层下方实际使用的数据库：连接参数以及首次使用前的初始化工作
+ * 通过 db.properties 中的 db.backend 选择：mysql（默认）或 embedded
+ */
+public interface StorageBackend {
+
+    /**
+     * 获取后端名称
+     */
+    String getName();
+
+    /**
+     * 获取 JDBC 驱动类名
+     */
+    String getDriver();
+
+    /**
+     * 获取 JDBC 连接URL
+     */
+    String getUrl();
+
+    /**
+     * 获取数据库用户名
+     */
+    String getUsername();
+
+    /**
+     * 获取数据库密码
+     */
+    String getPassword();
+
+    /**
+     * 判断是否为 MySQL 服务器（部分功能如全文索引、流式结果集依赖 MySQL）
+     */
+    boolean isMySql();
+
+    /**
+     * 初始化数据库（如嵌入式模式下首次启动时建表）
+     *
+     * @param connection 数据库连接
+     * @throws SQLException SQL异常
+     */
+    void initialize(Connection connection) throws SQLException;
+}
@@ -0,0 +1,77 @@
+package dev.ganziyan.library.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁管理器
+ * 功能：按键（如图书ID）把操作映射到固定数量的公平锁上，
+ * 相同键的操作串行执行，不同键大概率落在不同分段上并行执行
+ */
+public class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    /**
+     * 构造方法
+     *
+     * @param stripeCount 分段数量，会向上取整为2的幂
+     * @param timeoutMillis 获取锁的最长等待时间（毫秒）
+     */
+    public StripedLockManager(int stripeCount, long timeoutMillis) {
+        int size = 1;
+        while (size < Math.max(1, stripeCount)) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            // 公平锁：热门图书的借阅请求按到达顺序获得锁
+            stripes[i] = new ReentrantLock(true);
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 在超时时间内尝试获取键对应的锁
+     *
+     * @param key 加锁的键
+     * @return 获取成功返回已加锁的 Lock（调用方负责 unlock），超时或被中断返回null
+     */
+    public Lock tryLock(Object key) {
+        Lock lock = lockFor(key);
+        try {
+            if (lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * 获取键对应的分段锁（不加锁）
+     *
+     * @param key 加锁的键
+     * @return 分段锁
+     */
+    public Lock lockFor(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        // 扰动函数：让连续的图书ID分散到不同分段
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return stripes[hash & mask];
+    }
+
+    /**
+     * 获取分段数量
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,168 @@
+package dev.ganziyan.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 事务管理器
+ * 功能：把一个数据库连接绑定到当前线程，使多个DAO调用共用同一连接并在一次提交中完成
+ * 使用方式：
+ * <pre>
+ * String result = TransactionManager.execute(() -&gt; {
+ *     if (!bookDao.decreaseAvailableQuantity(bookId)) {
+ *         TransactionManager.setRollbackOnly();
+ *         return "库存不足";
+ *     }
+ *     borrowRecordDao.add(record);
+ *     return null;
+ * });
+ * </pre>
+ * 事务期间 DBUtil.getConnection() 返回绑定的连接，DBUtil.closeAll() 不会关闭它；
+ * 嵌套调用 execute() 会加入外层事务，由最外层统一提交或回滚；
+ * 依赖提交结果的操作（如清除缓存）通过 afterCommit() 注册，在最外层事务提交后执行
+ */
+public class TransactionManager {
+
+    // 当前线程绑定的事务
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 事务回调
+     *
+     * @param <T> 返回值类型
+     */
+    public interface TransactionCallback<T> {
+
+        /**
+         * 在事务中执行的操作
+         *
+         * @return 操作结果
+         * @throws SQLException SQL异常，抛出后事务回滚
+         */
+        T doInTransaction() throws SQLException;
+    }
+
+    /**
+     * 在事务中执行操作
+     * 回调正常返回且未标记回滚时提交，抛出异常或调用 setRollbackOnly() 时回滚
+     *
+     * @param callback 事务回调
+     * @param <T> 返回值类型
+     * @return 回调的返回值
+     * @throws SQLException 获取连接、提交或回滚失败，或回调抛出的SQL异常
+     */
+    public static <T> T execute(TransactionCallback<T> callback) throws SQLException {
+        Transaction outer = CURRENT.get();
+        if (outer != null) {
+            // 加入外层事务
+            return callback.doInTransaction();
+        }
+
+        Connection connection = DBUtil.getConnection();
+        Transaction transaction = new Transaction(connection);
+        T result;
+        boolean committed = false;
+        try {
+            connection.setAutoCommit(false);
+            CURRENT.set(transaction);
+
+            try {
+                result = callback.doInTransaction();
+            } catch (SQLException | RuntimeException | Error e) {
+                rollbackQuietly(connection);
+                throw e;
+            }
+
+            if (transaction.rollbackOnly) {
+                connection.rollback();
+            } else {
+                connection.commit();
+                committed = true;
+            }
+        } finally {
+            CURRENT.remove();
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("恢复自动提交失败：" + e.getMessage());
+            }
+            connection.close();
+        }
+
+        if (committed) {
+            for (Runnable action : transaction.afterCommitActions) {
+                action.run();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 注册在事务提交后执行的操作，事务回滚时不执行；不在事务中时立即执行
+     *
+     * @param action 要执行的操作
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCommitActions.add(action);
+        }
+    }
+
+    /**
+     * 标记当前事务只能回滚
+     * DAO 方法通过返回值报告失败，业务层据此调用本方法放弃整个事务
+     */
+    public static void setRollbackOnly() {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            throw new IllegalStateException("当前线程没有进行中的事务");
+        }
+        transaction.rollbackOnly = true;
+    }
+
+    /**
+     * 判断当前线程是否处于事务中
+     *
+     * @return true表示处于事务中
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 获取当前线程绑定的连接
+     *
+     * @return 事务连接，不在事务中时返回null
+     */
+    static Connection currentConnection() {
+        Transaction transaction = CURRENT.get();
+        return transaction == null ? null : transaction.connection;
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.err.println("事务回滚失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 事务状态
+     */
+    private static final class Transaction {
+
+        private final Connection connection;
+        private boolean rollbackOnly;
+        private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package dev.ganziyan.library.service;
+
+import dev.ganziyan.library.util.DBUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 借还书并发测试
+ * 在嵌入式 H2 数据库上让数千个请求同时借阅同一本图书，校验库存不会超借：
+ * 可借数量不能为负，且必须等于总数量减去未归还的借阅记录数；读者的未归还数量也必须与借阅记录一致
+ */
+class BorrowConcurrencyTest {
+
+    private static final int READER_COUNT = 4000;
+    private static final int THREAD_COUNT = 64;
+    private static final int HOT_BOOK_COPIES = 50;
+
+    private static final BorrowService BORROW_SERVICE = new BorrowService();
+
+    // 测试读者的用户ID范围
+    private static int firstReaderId;
+    private static int lastReaderId;
+
+    @BeforeAll
+    static void createReaders() throws SQLException {
+        try (Connection connection = DBUtil.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO users (username, password, real_name, user_type, status, max_borrow_count) "
+                        + "VALUES (?, 'reader123', ?, '读者', '正常', 5)")) {
+                for (int i = 1; i <= READER_COUNT; i++) {
+                    preparedStatement.setString(1, "concurrency" + i);
+                    preparedStatement.setString(2, "并发读者" + i);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            firstReaderId = queryInt(connection,
+                "SELECT MIN(user_id) FROM users WHERE username LIKE 'concurrency%'", null);
+            lastReaderId = queryInt(connection,
+                "SELECT MAX(user_id) FROM users WHERE username LIKE 'concurrency%'", null);
+        }
+    }
+
+    /**
+     * 每个读者借一次同一本图书：借到的数量恰好等于馆藏数量，其余请求都被拒绝
+     */
+    @Test
+    void concurrentBorrowsNeverOversell() throws Exception {
+        final int bookId = createBook("并发借阅测试", "9780000000001", HOT_BOOK_COPIES);
+
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int userId = firstReaderId; userId <= lastReaderId; userId++) {
+            final int borrower = userId;
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    return BORROW_SERVICE.borrowBook(borrower, bookId, 30);
+                }
+            });
+        }
+        int borrowed = 0;
+        for (String error : runConcurrently(tasks)) {
+            if (error == null) {
+                borrowed++;
+            }
+        }
+
+        assertEquals(HOT_BOOK_COPIES, borrowed, "借到的数量应等于馆藏数量");
+        assertInventoryConsistent(bookId);
+        assertEquals(0, queryInt("SELECT available_quantity FROM books WHERE book_id = ?", bookId));
+    }
+
+    /**
+     * 读者反复借还同一本图书，库存在 0 附近反复争用，结束时库存与借阅记录一致
+     */
+    @Test
+    void concurrentBorrowAndReturnKeepInventoryConsistent() throws Exception {
+        final int bookId = createBook("并发借还测试", "9780000000002", 5);
+
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            final int borrower = firstReaderId + i;
+            final long seed = i;
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    Random random = new Random(seed);
+                    for (int round = 0; round < 10; round++) {
+                        if (BORROW_SERVICE.borrowBook(borrower, bookId, 30) == null && random.nextBoolean()) {
+                            BORROW_SERVICE.returnBook(borrower, bookId);
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+        runConcurrently(tasks);
+
+        assertInventoryConsistent(bookId);
+    }
+
+    /**
+     * 所有任务在同一时刻开始执行，返回各任务的结果
+     */
+    private static List<String> runConcurrently(List<Callable<String>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (final Callable<String> task : tasks) {
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        startSignal.await();
+                        return task.call();
+                    }
+                }));
+            }
+            startSignal.countDown();
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(5, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 校验库存：可借数量不为负，等于总数量减去未归还的借阅记录数；测试读者的未归还数量与借阅记录一致
+     */
+    private static void assertInventoryConsistent(int bookId) throws SQLException {
+        int available = queryInt("SELECT available_quantity FROM books WHERE book_id = ?", bookId);
+        int total = queryInt("SELECT total_quantity FROM books WHERE book_id = ?", bookId);
+        int openLoans = queryInt(
+            "SELECT COUNT(*) FROM borrow_records WHERE book_id = ? AND status = '借阅中'", bookId);
+        assertTrue(available >= 0, "可借数量为负：" + available);
+        assertEquals(total - openLoans, available, "可借数量应等于总数量减去未归还的借阅记录数");
+
+        int counted = queryInt("SELECT COALESCE(SUM(open_loans), 0) FROM users WHERE username LIKE 'concurrency%'", null);
+        int recorded = queryInt("SELECT COUNT(*) FROM borrow_records br JOIN users u ON br.user_id = u.user_id "
+            + "WHERE u.username LIKE 'concurrency%' AND br.status = '借阅中'", null);
+        assertEquals(recorded, counted, "读者的未归还数量应等于未归还的借阅记录数");
+    }
+
+    private static int createBook(String name, String isbn, int copies) throws SQLException {
+        try (Connection connection = DBUtil.getConnection()) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    "INSERT INTO books (book_name, author, isbn, total_quantity, available_quantity) "
+                        + "VALUES (?, '测试作者', ?, ?, ?)")) {
+                preparedStatement.setString(1, name);
+                preparedStatement.setString(2, isbn);
+                preparedStatement.setInt(3, copies);
+                preparedStatement.setInt(4, copies);
+                preparedStatement.executeUpdate();
+            }
+            return queryInt(connection, "SELECT book_id FROM books WHERE isbn = '" + isbn + "'", null);
+        }
+    }
+
+    private static int queryInt(String sql, Integer parameter) throws SQLException {
+        try (Connection connection = DBUtil.getConnection()) {
+            return queryInt(connection, sql, parameter);
+        }
+    }
+
+    private static int queryInt(Connection connection, String sql, Integer parameter) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                preparedStatement.setInt(1, parameter);
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+}